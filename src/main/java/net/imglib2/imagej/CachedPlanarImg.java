@@ -0,0 +1,159 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2025 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Gabriel Selzer, Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.imagej;
+
+import ij.ImagePlus;
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
+import net.imglib2.img.planar.PlanarImg;
+import net.imglib2.type.NativeType;
+import net.imglib2.util.Fraction;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A {@link PlanarImg} that wraps an {@link ImagePlus}, loads its planes on
+ * demand and caches them according to a {@link PlaneCachePolicy}. Created by
+ * {@link ImagePlusToImg#wrapCached(ImagePlus, PlaneCachePolicy)}.
+ * <p>
+ * The cache follows modifications made by ImageJ: when the {@link ImagePlus}
+ * is updated, the current plane is reloaded on next access, and all planes if
+ * the number of planes changed. Unsaved modifications of these planes are
+ * discarded, ImageJ's modification wins. When the {@link ImagePlus} is
+ * closed, the cached planes are released and pending
+ * {@link #preload(int, int)}s are cancelled. Other modifications of the
+ * {@link ImagePlus} can be announced with {@link #invalidate(int)} and
+ * {@link #invalidateAll()}.
+ * <p>
+ * The image registers a listener with ImageJ. Call {@link #close()} when the
+ * image is no longer needed, but the {@link ImagePlus} stays open.
+ */
+public class CachedPlanarImg< T extends NativeType< T >, A extends ArrayDataAccess< A > > extends PlanarImg< T, A >
+{
+	private final ImagePlusLoader< A > loader;
+
+	CachedPlanarImg( final ImagePlusLoader< A > loader, final long[] dimensions )
+	{
+		super( loader, dimensions, new Fraction() );
+		this.loader = loader;
+	}
+
+	/**
+	 * Returns the wrapped {@link ImagePlus}.
+	 */
+	public ImagePlus getImagePlus()
+	{
+		return loader.getImagePlus();
+	}
+
+	/**
+	 * Returns the policy that determines which planes are kept in memory.
+	 */
+	public PlaneCachePolicy getCachePolicy()
+	{
+		return loader.getCache().policy();
+	}
+
+	/**
+	 * Loads the planes with zero based index {@code fromPlane} (inclusive) to
+	 * {@code toPlane} (exclusive) in parallel in the background. The planes are
+	 * kept according to the {@link PlaneCachePolicy}, so preloading more planes
+	 * than the cache holds is of no use.
+	 *
+	 * @return a future that completes when all planes are loaded
+	 */
+	public CompletableFuture< Void > preload( final int fromPlane, final int toPlane )
+	{
+		if ( fromPlane < 0 || toPlane > numSlices() )
+			throw new IndexOutOfBoundsException( "Planes " + fromPlane + " to " + toPlane + " out of range, number of planes: " + numSlices() );
+		return loader.preload( fromPlane, toPlane );
+	}
+
+	/**
+	 * Writes all modified planes back to the {@link ImagePlus}. Only has an
+	 * effect for images created by
+	 * {@link ImagePlusToImg#wrapCachedWritable(ImagePlus, PlaneCachePolicy)}.
+	 * Modified planes are pinned in the cache, so the cache may exceed the
+	 * bounds of its {@link PlaneCachePolicy} until they are flushed.
+	 */
+	public void flush()
+	{
+		loader.getCache().flush();
+	}
+
+	/**
+	 * Discards the cached copy of a plane, it is loaded again from the
+	 * {@link ImagePlus} on next access. Unsaved modifications of the plane
+	 * are discarded, call {@link #flush()} first to keep them.
+	 *
+	 * @param plane zero based index of the plane
+	 */
+	public void invalidate( final int plane )
+	{
+		loader.getCache().invalidate( plane );
+	}
+
+	/**
+	 * Discards all cached planes. Unsaved modifications are discarded, call
+	 * {@link #flush()} first to keep them.
+	 */
+	public void invalidateAll()
+	{
+		loader.getCache().invalidateAll();
+	}
+
+	/**
+	 * Writes back modified planes, cancels pending {@link #preload(int, int)}s,
+	 * releases the cached planes and unregisters the listener that follows
+	 * modifications of the {@link ImagePlus}. Planes requested afterwards
+	 * are loaded again, but modifications made by ImageJ are no longer
+	 * detected.
+	 */
+	public void close()
+	{
+		loader.close();
+	}
+
+	/**
+	 * Returns the current hit, miss and eviction counts of the plane cache.
+	 */
+	public PlaneCacheStatistics getCacheStatistics()
+	{
+		return loader.getCache().statistics();
+	}
+
+	ImagePlusLoader< A > getLoader()
+	{
+		return loader;
+	}
+}
@@ -0,0 +1,285 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2025 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Gabriel Selzer, Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.imagej;
+
+import ij.ImageListener;
+import ij.ImagePlus;
+import net.imglib2.imagej.img.PlaneScheduler;
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
+
+import java.lang.ref.WeakReference;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * The list of planes of a {@link CachedPlanarImg}. Planes are loaded from the
+ * {@link ImagePlus} on demand and kept in a {@link PlaneCache}. If the
+ * {@link PlaneCachePolicy} requests read-ahead, sequential access is detected
+ * and the following planes are loaded on the {@link PlaneScheduler}. If
+ * writable, dirty planes are written back with
+ * {@link ij.ImageStack#setPixels(Object, int)}.
+ * <p>
+ * An {@link ImageListener} keeps the cache consistent with the
+ * {@link ImagePlus}: when the image is updated, the current plane is
+ * invalidated, or all planes if the size of the stack changed. ImageJ's
+ * modification wins, a dirty copy of an invalidated plane is discarded. When
+ * the image is closed, or the loader is {@link #close() closed}, pending
+ * loads are cancelled, dirty planes are written back, the cache is released
+ * and the listener is unregistered. The listener only weakly references the
+ * loader, and also unregisters itself once the loader is garbage collected.
+ *
+ * @param <A> plane type
+ */
+class ImagePlusLoader< A extends ArrayDataAccess< A > > extends AbstractList< A > implements RandomAccess
+{
+	private final ImagePlus image;
+
+	private final PlaneCache< A > cache;
+
+	private final Function< Object, A > arrayFactory;
+
+	private final PlaneScheduler scheduler;
+
+	// NB: A List has a content based hashCode, therefore use a separate owner for the scheduler.
+	private final Object schedulerOwner = new Object();
+
+	private final Listener listener;
+
+	private volatile int stackSize;
+
+	private final Set< Integer > prefetching = ConcurrentHashMap.newKeySet();
+
+	// NB: completed exceptionally if their tasks are cancelled, see imageClosed()
+	private final Set< CompletableFuture< Void > > preloading = ConcurrentHashMap.newKeySet();
+
+	private volatile int lastRequested = -2;
+
+	ImagePlusLoader( final ImagePlus image, final Function< Object, A > arrayFactory, final PlaneCachePolicy policy, final boolean writable )
+	{
+		this( image, arrayFactory, policy, writable, PlaneScheduler.getInstance() );
+	}
+
+	ImagePlusLoader( final ImagePlus image, final Function< Object, A > arrayFactory, final PlaneCachePolicy policy, final boolean writable, final PlaneScheduler scheduler )
+	{
+		this.scheduler = scheduler;
+		this.arrayFactory = arrayFactory;
+		this.image = image;
+		this.cache = writable ? new PlaneCache<>( policy, this::store ) : new PlaneCache<>( policy );
+		this.stackSize = image.getStackSize();
+		this.listener = new Listener( this );
+		ImagePlus.addImageListener( listener );
+	}
+
+	@Override
+	public A get( final int key )
+	{
+		final int readAhead = cache.policy().readAhead();
+		if ( readAhead > 0 )
+		{
+			if ( key == lastRequested + 1 )
+				prefetch( key + 1, Math.min( key + 1 + readAhead, size() ) );
+			lastRequested = key;
+		}
+		return cache.get( key, this::load );
+	}
+
+	/**
+	 * Loads the planes {@code from} (inclusive) to {@code to} (exclusive) in
+	 * the background.
+	 *
+	 * @return a future that completes when all planes are loaded, or
+	 *         exceptionally if the image is closed before
+	 */
+	CompletableFuture< Void > preload( final int from, final int to )
+	{
+		final CompletableFuture< ? >[] futures = new CompletableFuture< ? >[ Math.max( 0, to - from ) ];
+		for ( int key = from; key < to; key++ )
+		{
+			final int k = key;
+			final CompletableFuture< Void > future = new CompletableFuture<>();
+			preloading.add( future );
+			future.whenComplete( ( r, t ) -> preloading.remove( future ) );
+			scheduler.submit( schedulerOwner, PlaneScheduler.Priority.PREFETCH, () -> {
+				try
+				{
+					cache.get( k, this::load );
+					future.complete( null );
+				}
+				catch ( final Throwable t )
+				{
+					future.completeExceptionally( t );
+				}
+			} );
+			futures[ key - from ] = future;
+		}
+		return CompletableFuture.allOf( futures );
+	}
+
+	private void prefetch( final int from, final int to )
+	{
+		for ( int key = from; key < to; key++ )
+		{
+			if ( cache.containsOrLoading( key ) || !prefetching.add( key ) )
+				continue;
+			final int k = key;
+			scheduler.submit( schedulerOwner, PlaneScheduler.Priority.PREFETCH, () -> {
+				try
+				{
+					cache.get( k, this::load );
+				}
+				catch ( final RuntimeException e )
+				{
+					// NB: ignore, the exception is thrown again when the plane is actually requested
+				}
+				finally
+				{
+					prefetching.remove( k );
+				}
+			} );
+		}
+	}
+
+	private A load( final int key )
+	{
+		return arrayFactory.apply( image.getStack().getPixels( key + 1 ) );
+	}
+
+	/**
+	 * Called when the {@link ImagePlus} was modified by ImageJ.
+	 */
+	void imageUpdated()
+	{
+		final int size = image.getStackSize();
+		if ( size != stackSize )
+		{
+			stackSize = size;
+			cache.invalidateAll();
+		}
+		else
+			cache.invalidate( image.getCurrentSlice() - 1 );
+	}
+
+	/**
+	 * Called when the {@link ImagePlus} was closed, see {@link #close()}.
+	 */
+	void imageClosed()
+	{
+		close();
+	}
+
+	/**
+	 * Cancels pending loads, writes back dirty planes, releases all cached
+	 * planes and unregisters the listener, such that modifications of the
+	 * {@link ImagePlus} are no longer followed.
+	 */
+	void close()
+	{
+		ImagePlus.removeImageListener( listener );
+		scheduler.cancelPending( schedulerOwner );
+		// NB: the cancelled tasks never complete their preload futures
+		for ( final CompletableFuture< Void > future : preloading )
+			future.completeExceptionally( new CancellationException( "The loader was closed." ) );
+		cache.flush();
+		cache.invalidateAll();
+	}
+
+	private void store( final A plane, final int key )
+	{
+		image.getStack().setPixels( plane.getCurrentStorageArray(), key + 1 );
+	}
+
+	@Override
+	public int size()
+	{
+		return image.getStackSize();
+	}
+
+	ImagePlus getImagePlus()
+	{
+		return image;
+	}
+
+	PlaneCache< A > getCache()
+	{
+		return cache;
+	}
+
+	private static class Listener implements ImageListener
+	{
+		private final WeakReference< ImagePlusLoader< ? > > loader;
+
+		private final WeakReference< ImagePlus > image;
+
+		private Listener( final ImagePlusLoader< ? > loader )
+		{
+			this.loader = new WeakReference<>( loader );
+			this.image = new WeakReference<>( loader.image );
+		}
+
+		@Override
+		public void imageOpened( final ImagePlus imp )
+		{
+			removeIfCollected();
+		}
+
+		@Override
+		public void imageUpdated( final ImagePlus imp )
+		{
+			final ImagePlusLoader< ? > l = loader.get();
+			if ( l != null && imp == image.get() )
+				l.imageUpdated();
+			removeIfCollected();
+		}
+
+		@Override
+		public void imageClosed( final ImagePlus imp )
+		{
+			final ImagePlusLoader< ? > l = loader.get();
+			if ( l != null && imp == image.get() )
+				l.imageClosed();
+			removeIfCollected();
+		}
+
+		private void removeIfCollected()
+		{
+			if ( loader.get() == null || image.get() == null )
+				ImagePlus.removeImageListener( this );
+		}
+	}
+}
@@ -0,0 +1,213 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2025 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Gabriel Selzer, Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.imagej;
+
+import ij.ImagePlus;
+import ij.ImageStack;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.imagej.img.ImageProcessorUtils;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
+import net.imglib2.img.cell.Cell;
+import net.imglib2.img.cell.CellGrid;
+import net.imglib2.img.cell.CellImg;
+import net.imglib2.img.planar.PlanarImg;
+import net.imglib2.parallel.TaskExecutor;
+import net.imglib2.type.numeric.ARGBType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.type.numeric.real.FloatType;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Copies the planes of an {@link ImagePlus} into an {@link ArrayImg},
+ * {@link PlanarImg} or {@link CellImg} of the matching pixel type, and back,
+ * using {@link System#arraycopy} for every plane, or every row of a cell. The
+ * planes are copied in parallel.
+ */
+class ImagePlusPlaneCopier
+{
+	private ImagePlusPlaneCopier()
+	{
+		// NB: Prevent instantiation of utility class.
+	}
+
+	/**
+	 * Returns true, if {@link #copy} supports the given target. The target must
+	 * have the dimensions of {@link ImagePlusToImg#wrapDirect(ImagePlus)}.
+	 */
+	static boolean isSupported( final ImagePlus imp, final RandomAccessibleInterval< ? > target )
+	{
+		return isSupported( imp.getType(), target );
+	}
+
+	/**
+	 * Returns true, if the planes of {@code image} can be copied to and from
+	 * planes of an {@link ImagePlus} of the given type, see
+	 * {@link ImagePlus#getType()}.
+	 */
+	static boolean isSupported( final int imageType, final RandomAccessibleInterval< ? > image )
+	{
+		final Class< ? > typeClass = typeClass( imageType );
+		if ( typeClass == null || image.getType().getClass() != typeClass )
+			return false;
+		if ( image instanceof ArrayImg )
+			return ( ( ArrayImg< ?, ? > ) image ).update( null ) instanceof ArrayDataAccess;
+		return image instanceof PlanarImg || image instanceof CellImg;
+	}
+
+	/**
+	 * Returns a copy of the plane with the given zero-based index of a
+	 * supported {@code image}, see {@link #isSupported(int, RandomAccessibleInterval)}.
+	 */
+	static Object readPlane( final int imageType, final RandomAccessibleInterval< ? > image, final int plane )
+	{
+		final int planeSize = ( int ) ( image.dimension( 0 ) * image.dimension( 1 ) );
+		final Object pixels = ImageProcessorUtils.newPlane( bitDepth( imageType ), planeSize );
+		if ( image instanceof ArrayImg )
+		{
+			final Object data = ( ( ArrayDataAccess< ? > ) ( ( ArrayImg< ?, ? > ) image ).update( null ) ).getCurrentStorageArray();
+			System.arraycopy( data, plane * planeSize, pixels, 0, planeSize );
+		}
+		else if ( image instanceof PlanarImg )
+		{
+			final Object data = ( ( ArrayDataAccess< ? > ) ( ( PlanarImg< ?, ? > ) image ).getPlane( plane ) ).getCurrentStorageArray();
+			System.arraycopy( data, 0, pixels, 0, planeSize );
+		}
+		else
+			copyCells( pixels, plane, ( CellImg< ?, ? > ) image, false );
+		return pixels;
+	}
+
+	static void copy( final ImagePlus imp, final RandomAccessibleInterval< ? > target, final TaskExecutor executor )
+	{
+		final ImageStack stack = imp.getStack();
+		final PlaneCopy copy = planeCopy( target );
+		final List< Integer > planes = IntStream.range( 0, stack.getSize() ).boxed().collect( Collectors.toList() );
+		executor.forEach( planes, plane -> copy.copy( stack.getPixels( plane + 1 ), plane ) );
+	}
+
+	private static PlaneCopy planeCopy( final RandomAccessibleInterval< ? > target )
+	{
+		final int planeSize = ( int ) ( target.dimension( 0 ) * target.dimension( 1 ) );
+		if ( target instanceof ArrayImg )
+		{
+			final Object data = ( ( ArrayDataAccess< ? > ) ( ( ArrayImg< ?, ? > ) target ).update( null ) ).getCurrentStorageArray();
+			return ( pixels, plane ) -> System.arraycopy( pixels, 0, data, plane * planeSize, planeSize );
+		}
+		if ( target instanceof PlanarImg )
+		{
+			final PlanarImg< ?, ? > planar = ( PlanarImg< ?, ? > ) target;
+			return ( pixels, plane ) -> {
+				final Object data = ( ( ArrayDataAccess< ? > ) planar.getPlane( plane ) ).getCurrentStorageArray();
+				System.arraycopy( pixels, 0, data, 0, planeSize );
+			};
+		}
+		final CellImg< ?, ? > cellImg = ( CellImg< ?, ? > ) target;
+		return ( pixels, plane ) -> copyCells( pixels, plane, cellImg, true );
+	}
+
+	/**
+	 * Copies one plane into all the cells that intersect it, or back if
+	 * {@code toCells} is false. Different planes correspond to disjoint regions
+	 * of the cells, such that planes can be copied concurrently.
+	 */
+	private static void copyCells( final Object pixels, final int plane, final CellImg< ?, ? > cellImg, final boolean toCells )
+	{
+		final int n = cellImg.numDimensions();
+		final int width = ( int ) cellImg.dimension( 0 );
+		final CellGrid grid = cellImg.getCellGrid();
+		final long[] gridDimensions = grid.getGridDimensions();
+
+		// position of the plane, and of the cells containing it, in dimensions 2 and above
+		final long[] position = ImageProcessorUtils.planePosition( cellImg, plane );
+		final long[] gridPosition = new long[ n ];
+		for ( int d = 2; d < n; d++ )
+			gridPosition[ d ] = position[ d ] / grid.cellDimension( d );
+
+		final RandomAccess< ? extends Cell< ? > > cells = cellImg.getCells().randomAccess();
+		for ( long gy = 0; gy < gridDimensions[ 1 ]; gy++ )
+		{
+			for ( long gx = 0; gx < gridDimensions[ 0 ]; gx++ )
+			{
+				gridPosition[ 0 ] = gx;
+				gridPosition[ 1 ] = gy;
+				ImageProcessorUtils.copyCell( pixels, width, position, cells.setPositionAndGet( gridPosition ), toCells );
+			}
+		}
+	}
+
+	private static Class< ? > typeClass( final int imageType )
+	{
+		switch ( imageType )
+		{
+		case ImagePlus.GRAY8:
+			return UnsignedByteType.class;
+		case ImagePlus.GRAY16:
+			return UnsignedShortType.class;
+		case ImagePlus.GRAY32:
+			return FloatType.class;
+		case ImagePlus.COLOR_RGB:
+			return ARGBType.class;
+		default:
+			return null;
+		}
+	}
+
+	private static int bitDepth( final int imageType )
+	{
+		switch ( imageType )
+		{
+		case ImagePlus.GRAY8:
+			return 8;
+		case ImagePlus.GRAY16:
+			return 16;
+		case ImagePlus.GRAY32:
+			return 32;
+		case ImagePlus.COLOR_RGB:
+			return 24;
+		default:
+			throw new IllegalArgumentException( "Unsupported image type: " + imageType );
+		}
+	}
+
+	private interface PlaneCopy
+	{
+		void copy( Object pixels, int plane );
+	}
+}
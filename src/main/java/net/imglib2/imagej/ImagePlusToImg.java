@@ -35,27 +35,49 @@
 package net.imglib2.imagej;
 
 import ij.ImagePlus;
-import net.imglib2.cache.Cache;
-import net.imglib2.cache.ref.SoftRefLoaderCache;
+import ij.ImageStack;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.converter.Converters;
+import net.imglib2.converter.RealTypeConverters;
 import net.imglib2.imagej.imageplus.ByteImagePlus;
 import net.imglib2.imagej.imageplus.FloatImagePlus;
 import net.imglib2.imagej.imageplus.IntImagePlus;
 import net.imglib2.imagej.imageplus.ShortImagePlus;
+import net.imglib2.imagej.img.ArrayImgToImagePlus;
+import net.imglib2.imagej.img.CellImgToImagePlus;
+import net.imglib2.imagej.img.ImageJVirtualStack;
+import net.imglib2.imagej.img.ImageProcessorUtils;
+import net.imglib2.imagej.img.PlanePublisher;
+import net.imglib2.imagej.img.PlaneScheduler;
+import net.imglib2.imagej.img.PlanarImgStack;
+import net.imglib2.imagej.img.PlanarImgToImagePlus;
+import net.imglib2.img.Img;
 import net.imglib2.img.basictypeaccess.array.*;
 import net.imglib2.img.planar.PlanarImg;
+import net.imglib2.loops.LoopBuilder;
+import net.imglib2.parallel.Parallelization;
+import net.imglib2.parallel.TaskExecutor;
+import net.imglib2.parallel.TaskExecutors;
 import net.imglib2.type.NativeType;
 import net.imglib2.type.NativeTypeFactory;
 import net.imglib2.type.numeric.ARGBType;
+import net.imglib2.type.numeric.RealType;
 import net.imglib2.type.numeric.integer.UnsignedByteType;
 import net.imglib2.type.numeric.integer.UnsignedShortType;
 import net.imglib2.type.numeric.real.FloatType;
-import net.imglib2.util.Fraction;
+import net.imglib2.util.Cast;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
 
-import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
+import java.util.Spliterator;
+import java.util.concurrent.Flow;
 import java.util.function.Function;
+import java.util.stream.IntStream;
 import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Provides convenience functions to wrap ImageJ 1.x data structures as ImgLib2
@@ -70,6 +92,63 @@ import java.util.stream.LongStream;
 public class ImagePlusToImg
 {
 
+	/**
+	 * Returns an ImgLib2 image for the given {@link ImagePlus}, avoiding
+	 * unnecessary adapter layers.
+	 * <p>
+	 * If {@code imp} was created by {@link RAIToImagePlus},
+	 * {@link PlanarImgToImagePlus} or
+	 * {@link net.imglib2.imagej.img.CellImgToImagePlus}, the wrapped image is
+	 * returned, see {@link #unwrap(ImagePlus)}. Otherwise, virtual stacks are
+	 * wrapped with {@link #wrapCached(ImagePlus)}, and all other images with
+	 * {@link #wrapDirect(ImagePlus)}.
+	 *
+	 * @param imp the {@link ImagePlus} to wrap
+	 * @return a {@link RandomAccessibleInterval} representing {@code imp}
+	 */
+	public static RandomAccessibleInterval< ? > wrap( final ImagePlus imp )
+	{
+		final RandomAccessibleInterval< ? > source = unwrap( imp );
+		if ( source != null )
+			return source;
+		return imp.getStack().isVirtual() ? wrapCached( imp ) : wrapDirect( imp );
+	}
+
+	/**
+	 * Returns the image that is wrapped by the given {@link ImagePlus}, if it
+	 * was created by {@link RAIToImagePlus} (the stack is an
+	 * {@link ImageJVirtualStack}) or by {@link PlanarImgToImagePlus},
+	 * {@link PlanarImgStack}, {@link CellImgToImagePlus} or
+	 * {@link ArrayImgToImagePlus}. Returns {@code null}
+	 * for any other {@link ImagePlus}, or if slices were deleted from the
+	 * stack.
+	 * <p>
+	 * For an {@link ImageJVirtualStack} this is
+	 * {@link ImageJVirtualStack#getSource()}, i.e. the wrapped image already
+	 * converted to the pixel type of the {@link ImagePlus}.
+	 *
+	 * @param imp an {@link ImagePlus}
+	 * @return the wrapped image or {@code null}
+	 */
+	public static RandomAccessibleInterval< ? > unwrap( final ImagePlus imp )
+	{
+		final ImageStack stack = imp.getStack();
+		final RandomAccessibleInterval< ? > source;
+		if ( stack instanceof ImageJVirtualStack )
+			source = ( ( ImageJVirtualStack< ? > ) stack ).getSource();
+		else if ( stack instanceof PlanarImgToImagePlus )
+			source = ( ( PlanarImgToImagePlus ) stack ).getSource();
+		else if ( stack instanceof ArrayImgToImagePlus )
+			source = ( ( ArrayImgToImagePlus ) stack ).getSource();
+		else if ( stack instanceof CellImgToImagePlus )
+			source = ( ( CellImgToImagePlus ) stack ).getSource();
+		else if ( stack instanceof PlanarImgStack )
+			source = ( ( PlanarImgStack ) stack ).getSource();
+		else
+			return null;
+		return numPlanes( source ) == stack.getSize() ? source : null;
+	}
+
 	/**
 	 * Wraps an {@link ImagePlus} into a {@link PlanarImg}.
 	 * <p>
@@ -83,6 +162,9 @@ public class ImagePlusToImg
 	 */
 	public static PlanarImg< ?, ? > wrapDirect(final ImagePlus imp )
 	{
+		final PlanarImg< ?, ? > unwrapped = unwrapPlanarImg( imp, NativeType.class );
+		if ( unwrapped != null )
+			return unwrapped;
 		switch ( imp.getType() )
 		{
 		case ImagePlus.GRAY8:
@@ -114,6 +196,10 @@ public class ImagePlusToImg
 		if ( imp.getType() != ImagePlus.GRAY8 )
 			throw new IllegalArgumentException(imp + " does not contain unsigned bytes!");
 
+		final PlanarImg< UnsignedByteType, ? > unwrapped = unwrapPlanarImg( imp, UnsignedByteType.class );
+		if ( unwrapped != null )
+			return unwrapped;
+
 		final ByteImagePlus< UnsignedByteType > container = new ByteImagePlus<>( imp );
 
 		// create a Type that is linked to the container
@@ -141,6 +227,10 @@ public class ImagePlusToImg
 		if ( imp.getType() != ImagePlus.GRAY16 )
 			throw new IllegalArgumentException(imp + " does not contain unsigned shorts!");
 
+		final PlanarImg< UnsignedShortType, ? > unwrapped = unwrapPlanarImg( imp, UnsignedShortType.class );
+		if ( unwrapped != null )
+			return unwrapped;
+
 		final ShortImagePlus< UnsignedShortType > container = new ShortImagePlus<>( imp );
 
 		// create a Type that is linked to the container
@@ -168,6 +258,10 @@ public class ImagePlusToImg
 		if ( imp.getType() != ImagePlus.COLOR_RGB )
 			throw new IllegalArgumentException(imp + " does not contain RGB tuples!");
 
+		final PlanarImg< ARGBType, ? > unwrapped = unwrapPlanarImg( imp, ARGBType.class );
+		if ( unwrapped != null )
+			return unwrapped;
+
 		final IntImagePlus< ARGBType > container = new IntImagePlus<>( imp );
 
 		// create a Type that is linked to the container
@@ -179,6 +273,29 @@ public class ImagePlusToImg
 		return container;
 	}
 
+	/**
+	 * Wraps an RGB {@link ImagePlus} into an image of unsigned bytes, with the
+	 * red, green and blue channel as dimension 2. The other dimensions follow
+	 * in the order of {@link #wrapRGBADirect(ImagePlus)}, e.g. a 2D RGB image
+	 * becomes an image of size {@code width x height x 3}.
+	 * <p>
+	 * No pixels are copied, the bytes are read from and written to the
+	 * {@code int[]} planes of {@link #wrapRGBADirect(ImagePlus)} by a
+	 * {@link net.imglib2.converter.readwrite.SamplerConverter}, see
+	 * {@link Converters#argbChannels(RandomAccessibleInterval, int...)}.
+	 * Writing different channels of the same pixel concurrently is not
+	 * thread-safe.
+	 *
+	 * @param imp the {@link ImagePlus} to wrap. Must contain RGB tuples.
+	 * @return a writable view of the channels of {@code imp}
+	 */
+	public static RandomAccessibleInterval< UnsignedByteType > wrapRGBChannels( final ImagePlus imp )
+	{
+		final PlanarImg< ARGBType, ? > argb = wrapRGBADirect( imp );
+		final RandomAccessibleInterval< UnsignedByteType > channels = Converters.argbChannels( argb, 1, 2, 3 );
+		return Views.moveAxis( channels, channels.numDimensions() - 1, 2 );
+	}
+
 	/**
 	 * Wraps an {@link ImagePlus} into a {@link PlanarImg} of floats.
 	 * <p>
@@ -195,6 +312,10 @@ public class ImagePlusToImg
 		if ( imp.getType() != ImagePlus.GRAY32 )
 			throw new IllegalArgumentException(imp + " does not contain floats!");
 
+		final PlanarImg< FloatType, ? > unwrapped = unwrapPlanarImg( imp, FloatType.class );
+		if ( unwrapped != null )
+			return unwrapped;
+
 		final FloatImagePlus< FloatType > container = new FloatImagePlus<>( imp );
 
 		// create a Type that is linked to the container
@@ -215,7 +336,7 @@ public class ImagePlusToImg
 	 */
 	public static PlanarImg< UnsignedByteType, ByteArray > wrapByteCached(final ImagePlus image )
 	{
-		return internWrap( image, ImagePlus.GRAY8, new UnsignedByteType(), array -> new ByteArray( ( byte[] ) array ) );
+		return internWrap( image, ImagePlus.GRAY8, new UnsignedByteType(), array -> new ByteArray( ( byte[] ) array ), PlaneCachePolicy.soft() );
 	}
 
 	/**
@@ -227,7 +348,7 @@ public class ImagePlusToImg
 	 */
 	public static PlanarImg< UnsignedShortType, ShortArray > wrapShortCached(final ImagePlus image )
 	{
-		return internWrap( image, ImagePlus.GRAY16, new UnsignedShortType(), array -> new ShortArray( ( short[] ) array ) );
+		return internWrap( image, ImagePlus.GRAY16, new UnsignedShortType(), array -> new ShortArray( ( short[] ) array ), PlaneCachePolicy.soft() );
 	}
 
 	/**
@@ -239,7 +360,7 @@ public class ImagePlusToImg
 	 */
 	public static PlanarImg< FloatType, FloatArray > wrapFloatCached(final ImagePlus image )
 	{
-		return internWrap( image, ImagePlus.GRAY32, new FloatType(), array -> new FloatArray( ( float[] ) array ) );
+		return internWrap( image, ImagePlus.GRAY32, new FloatType(), array -> new FloatArray( ( float[] ) array ), PlaneCachePolicy.soft() );
 	}
 
 	/**
@@ -251,7 +372,7 @@ public class ImagePlusToImg
 	 */
 	public static PlanarImg< ARGBType, IntArray > wrapRGBACached(final ImagePlus image )
 	{
-		return internWrap( image, ImagePlus.COLOR_RGB, new ARGBType(), array -> new IntArray( ( int[] ) array ) );
+		return internWrap( image, ImagePlus.COLOR_RGB, new ARGBType(), array -> new IntArray( ( int[] ) array ), PlaneCachePolicy.soft() );
 	}
 
 	/**
@@ -263,82 +384,283 @@ public class ImagePlusToImg
 	 * @return a {@link PlanarImg} wrapping {@code image}.
 	 */
 	public static PlanarImg< ?, ? > wrapCached(final ImagePlus image )
+	{
+		return wrapCached( image, PlaneCachePolicy.soft() );
+	}
+
+	/**
+	 * Wraps an {@link ImagePlus}, into a {@link CachedPlanarImg}. The planes
+	 * are loaded only if needed, and cached according to the given
+	 * {@link PlaneCachePolicy}. {@link CachedPlanarImg#getCacheStatistics()}
+	 * reports the hits, misses and evictions of the cache. The pixel type of
+	 * the returned image depends on the type of the ImagePlus.
+	 * @param image the {@link ImagePlus} to wrap
+	 * @param policy determines which planes are kept in memory
+	 * @return a {@link CachedPlanarImg} wrapping {@code image}.
+	 */
+	public static CachedPlanarImg< ?, ? > wrapCached(final ImagePlus image, final PlaneCachePolicy policy )
+	{
+		switch ( image.getType() )
+		{
+			case ImagePlus.GRAY8:
+				return internWrap( image, ImagePlus.GRAY8, new UnsignedByteType(), array -> new ByteArray( ( byte[] ) array ), policy );
+			case ImagePlus.GRAY16:
+				return internWrap( image, ImagePlus.GRAY16, new UnsignedShortType(), array -> new ShortArray( ( short[] ) array ), policy );
+			case ImagePlus.GRAY32:
+				return internWrap( image, ImagePlus.GRAY32, new FloatType(), array -> new FloatArray( ( float[] ) array ), policy );
+			case ImagePlus.COLOR_RGB:
+				return internWrap( image, ImagePlus.COLOR_RGB, new ARGBType(), array -> new IntArray( ( int[] ) array ), policy );
+		}
+		throw new RuntimeException( "Only 8, 16, 32-bit and RGB supported!" );
+	}
+
+	/**
+	 * Wraps an {@link ImagePlus}, into a writable {@link CachedPlanarImg}. The
+	 * planes are loaded only if needed, and cached according to the given
+	 * {@link PlaneCachePolicy}, which must be bounded. Modified planes are
+	 * pinned in the cache. They are written back to the {@link ImagePlus} with
+	 * {@link ij.ImageStack#setPixels(Object, int)} when
+	 * {@link CachedPlanarImg#flush()} is called, or when the cache has to
+	 * evict them because it holds no clean planes anymore. The cache should be
+	 * large enough to hold all planes that are accessed concurrently, changes
+	 * to a plane that is written back and evicted while it is still being
+	 * modified are lost.
+	 * @param image the {@link ImagePlus} to wrap
+	 * @param policy a policy created by {@link PlaneCachePolicy#boundedByCount}
+	 *               or {@link PlaneCachePolicy#boundedByBytes}
+	 * @return a writable {@link CachedPlanarImg} wrapping {@code image}.
+	 */
+	public static CachedPlanarImg< ?, ? > wrapCachedWritable(final ImagePlus image, final PlaneCachePolicy policy )
 	{
 		switch ( image.getType() )
 		{
 			case ImagePlus.GRAY8:
-				return wrapByteCached( image );
+				return internWrap( image, ImagePlus.GRAY8, new UnsignedByteType(), array -> new DirtyByteArray( ( byte[] ) array ), policy, true );
 			case ImagePlus.GRAY16:
-				return wrapShortCached( image );
+				return internWrap( image, ImagePlus.GRAY16, new UnsignedShortType(), array -> new DirtyShortArray( ( short[] ) array ), policy, true );
 			case ImagePlus.GRAY32:
-				return wrapFloatCached( image );
+				return internWrap( image, ImagePlus.GRAY32, new FloatType(), array -> new DirtyFloatArray( ( float[] ) array ), policy, true );
 			case ImagePlus.COLOR_RGB:
-				return wrapRGBACached( image );
+				return internWrap( image, ImagePlus.COLOR_RGB, new ARGBType(), array -> new DirtyIntArray( ( int[] ) array ), policy, true );
 		}
 		throw new RuntimeException( "Only 8, 16, 32-bit and RGB supported!" );
 	}
 
-	private static < T extends NativeType< T >, A extends ArrayDataAccess< A > > PlanarImg< T, A > internWrap(
+	private static < T extends NativeType< T >, A extends ArrayDataAccess< A > > CachedPlanarImg< T, A > internWrap(
+			final ImagePlus image,
+			final int expectedType,
+			final T type,
+			final Function< Object, A > createArrayAccess,
+			final PlaneCachePolicy policy
+	) {
+		return internWrap( image, expectedType, type, createArrayAccess, policy, false );
+	}
+
+	private static < T extends NativeType< T >, A extends ArrayDataAccess< A > > CachedPlanarImg< T, A > internWrap(
 			final ImagePlus image,
 			final int expectedType,
 			final T type,
-			final Function< Object, A > createArrayAccess
+			final Function< Object, A > createArrayAccess,
+			final PlaneCachePolicy policy,
+			final boolean writable
 	) {
 		if ( image.getType() != expectedType )
 			throw new IllegalArgumentException();
-		final ImagePlusLoader< A > loader = new ImagePlusLoader<>( image, createArrayAccess );
+		final ImagePlusLoader< A > loader = new ImagePlusLoader<>( image, createArrayAccess, policy, writable );
 		final long[] dimensions = getNonTrivialDimensions( image );
-		final PlanarImg< T, A > cached = new PlanarImg<>( loader, dimensions, new Fraction() );
+		final CachedPlanarImg< T, A > cached = new CachedPlanarImg<>( loader, dimensions );
         //noinspection unchecked
         cached.setLinkedType( ( (NativeTypeFactory< T, A >) type.getNativeTypeFactory() ).createLinkedType( cached ) );
 		// TODO: Preserve metadata
 		return cached;
 	}
 
-	private static long[] getNonTrivialDimensions(final ImagePlus image )
+	/**
+	 * Copies the pixels of an {@link ImagePlus} into {@code target}, see
+	 * {@link #copy(ImagePlus, RandomAccessibleInterval, TaskExecutor)}. The
+	 * planes are copied by the {@link TaskExecutor} of
+	 * {@link Parallelization#getTaskExecutor()}, or multi-threaded if that is
+	 * single-threaded.
+	 *
+	 * @param imp the {@link ImagePlus} to copy
+	 * @param target the image to write the pixels to
+	 */
+	public static void copy( final ImagePlus imp, final RandomAccessibleInterval< ? > target )
 	{
-		final LongStream xy = LongStream.of( image.getWidth(), image.getHeight() );
-		final LongStream czt = LongStream.of( image.getNChannels(), image.getNSlices(), image.getNFrames() );
-		return LongStream.concat( xy, czt.filter( x -> x > 1 ) ).toArray();
+		final TaskExecutor ambient = Parallelization.getTaskExecutor();
+		copy( imp, target, ambient.getParallelism() > 1 ? ambient : TaskExecutors.multiThreaded() );
 	}
 
-	private static class ImagePlusLoader< A extends ArrayDataAccess< A >> extends AbstractList< A >
+	/**
+	 * Copies the pixels of an {@link ImagePlus} into {@code target}, which must
+	 * have the same dimensions as the image returned by
+	 * {@link #wrapDirect(ImagePlus)}.
+	 * <p>
+	 * If {@code target} is an {@link net.imglib2.img.array.ArrayImg},
+	 * {@link PlanarImg} or {@link net.imglib2.img.cell.CellImg} of the pixel
+	 * type of {@link #wrapDirect(ImagePlus)}, each plane of the
+	 * {@link ImagePlus} is copied with {@link System#arraycopy} (row by row for
+	 * cells), and the planes are copied in parallel. Otherwise, the pixels are
+	 * converted with {@link RealTypeConverters#copyFromTo}, or copied pixel by
+	 * pixel for {@link ARGBType}, again in parallel.
+	 * <p>
+	 * NB: For virtual stacks, {@link ImageStack#getPixels(int)} is called
+	 * concurrently.
+	 *
+	 * @param imp the {@link ImagePlus} to copy
+	 * @param target the image to write the pixels to
+	 * @param executor the {@link TaskExecutor} used to copy the planes
+	 * @throws IllegalArgumentException if the dimensions don't match, or the
+	 *             pixel type can't be converted
+	 */
+	public static void copy( final ImagePlus imp, final RandomAccessibleInterval< ? > target, final TaskExecutor executor )
 	{
-		private final ImagePlus image;
+		final long[] dimensions = getNonTrivialDimensions( imp );
+		if ( !Arrays.equals( dimensions, Intervals.dimensionsAsLongArray( target ) ) )
+			throw new IllegalArgumentException( "Dimensions of target " + Arrays.toString( Intervals.dimensionsAsLongArray( target ) )
+					+ " don't match " + imp + " " + Arrays.toString( dimensions ) );
+		if ( ImagePlusPlaneCopier.isSupported( imp, target ) )
+		{
+			ImagePlusPlaneCopier.copy( imp, target, executor );
+			return;
+		}
+		final RandomAccessibleInterval< ? > source = wrapDirect( imp );
+		final Object sourceType = source.getType();
+		final Object targetType = target.getType();
+		if ( sourceType instanceof RealType && targetType instanceof RealType )
+			Parallelization.runWithExecutor( executor, () -> RealTypeConverters.copyFromTo(
+					Cast.< RandomAccessibleInterval< RealType< ? > > >unchecked( source ),
+					Cast.< RandomAccessibleInterval< RealType< ? > > >unchecked( target ) ) );
+		else if ( sourceType instanceof ARGBType && targetType instanceof ARGBType )
+			LoopBuilder.setImages( Cast.< RandomAccessibleInterval< ARGBType > >unchecked( source ), Cast.< RandomAccessibleInterval< ARGBType > >unchecked( target ) )
+					.multiThreaded( executor )
+					.forEachPixel( ( s, t ) -> t.set( s ) );
+		else
+			throw new IllegalArgumentException( "Cannot copy " + imp + " into an image of " + targetType.getClass().getSimpleName() );
+	}
 
-		private final Cache< Integer, A > cache;
+	/**
+	 * Returns a {@link Stream} of all planes of an {@link ImagePlus}, in the
+	 * order of the stack, see {@link #planeSpliterator(ImagePlus, int, int, int)}.
+	 *
+	 * @param imp the {@link ImagePlus}
+	 * @return a sequential {@link Stream} of 2D images, one per plane
+	 */
+	public static Stream< Img< ? > > planes( final ImagePlus imp )
+	{
+		return planes( imp, 0, 0, 0 );
+	}
 
-		private final Function< Object, A > arrayFactory;
+	/**
+	 * Returns a {@link Stream} of the planes of an {@link ImagePlus} with the
+	 * given channel, slice and frame, see
+	 * {@link #planeSpliterator(ImagePlus, int, int, int)}. Call
+	 * {@link Stream#parallel()} to process the planes in parallel.
+	 *
+	 * @param imp the {@link ImagePlus}
+	 * @param channel one-based channel, or 0 for all channels
+	 * @param slice one-based slice, or 0 for all slices
+	 * @param frame one-based frame, or 0 for all frames
+	 * @return a sequential {@link Stream} of 2D images, one per plane
+	 */
+	public static Stream< Img< ? > > planes( final ImagePlus imp, final int channel, final int slice, final int frame )
+	{
+		return StreamSupport.stream( planeSpliterator( imp, channel, slice, frame ), false );
+	}
 
-		public ImagePlusLoader( final ImagePlus image, final Function< Object, A > arrayFactory )
-		{
-			this.arrayFactory = arrayFactory;
-			this.image = image;
-			cache = new SoftRefLoaderCache< Integer, A >().withLoader( this::load );
-		}
+	/**
+	 * Returns a {@link Spliterator} over the planes of an {@link ImagePlus}
+	 * with the given channel, slice and frame. For example,
+	 * {@code planeSpliterator( imp, 2, 0, 0 )} traverses all planes of the
+	 * second channel. Planes are ordered by channel, then slice, then frame,
+	 * like in the {@link ImageStack}.
+	 * <p>
+	 * Each plane is wrapped into a 2D {@link net.imglib2.img.array.ArrayImg}
+	 * when it is traversed, see
+	 * {@link net.imglib2.imagej.img.ImageProcessorUtils#createImg}. The
+	 * {@link net.imglib2.img.array.ArrayImg} shares the pixel array returned
+	 * by {@link ImageStack#getPixels(int)}, so for virtual stacks the plane is
+	 * loaded by the thread that processes it. The {@link Spliterator} splits
+	 * the remaining planes into halves.
+	 *
+	 * @param imp the {@link ImagePlus}
+	 * @param channel one-based channel, or 0 for all channels
+	 * @param slice one-based slice, or 0 for all slices
+	 * @param frame one-based frame, or 0 for all frames
+	 * @return a {@link Spliterator} of 2D images, one per plane
+	 */
+	public static Spliterator< Img< ? > > planeSpliterator( final ImagePlus imp, final int channel, final int slice, final int frame )
+	{
+		final int[] channels = positions( "channel", channel, imp.getNChannels() );
+		final int[] slices = positions( "slice", slice, imp.getNSlices() );
+		final int[] frames = positions( "frame", frame, imp.getNFrames() );
+		final int[] stackIndices = new int[ channels.length * slices.length * frames.length ];
+		int i = 0;
+		for ( final int t : frames )
+			for ( final int z : slices )
+				for ( final int c : channels )
+					stackIndices[ i++ ] = imp.getStackIndex( c, z, t );
+		return new PlaneSpliterator( imp.getStack(), stackIndices );
+	}
 
-		@Override
-		public A get( final int key )
-		{
-			try
-			{
-				return cache.get( key );
-			}
-			catch ( final ExecutionException e )
-			{
-				throw new RuntimeException( e );
-			}
-		}
+	/**
+	 * Returns a {@link Flow.Publisher} of the planes of an {@link ImagePlus},
+	 * in the order of the stack. Each plane is wrapped into a 2D
+	 * {@link net.imglib2.img.array.ArrayImg}, like by
+	 * {@link #planes(ImagePlus)}. The planes are loaded with
+	 * {@link ImageStack#getPixels(int)} on the shared {@link PlaneScheduler},
+	 * but only as far ahead as the subscriber requested them, see
+	 * {@link PlanePublisher}.
+	 *
+	 * @param imp the {@link ImagePlus}
+	 * @param maxLookahead the maximum number of planes loaded ahead of the
+	 *            subscriber
+	 * @return a {@link Flow.Publisher} of 2D images, one per plane
+	 */
+	public static Flow.Publisher< Img< ? > > planePublisher( final ImagePlus imp, final int maxLookahead )
+	{
+		final ImageStack stack = imp.getStack();
+		return new PlanePublisher<>( stack.getSize(),
+				i -> ImageProcessorUtils.createImg( stack.getPixels( i + 1 ), stack.getWidth(), stack.getHeight() ),
+				maxLookahead );
+	}
 
-		private A load( final Integer key )
-		{
-			return arrayFactory.apply( image.getStack().getPixels( key + 1 ) );
-		}
+	private static int[] positions( final String axis, final int position, final int size )
+	{
+		if ( position == 0 )
+			return IntStream.rangeClosed( 1, size ).toArray();
+		if ( position < 0 || position > size )
+			throw new IllegalArgumentException( "The " + axis + " " + position + " is not in the range 1.." + size );
+		return new int[] { position };
+	}
 
-		@Override
-		public int size()
-		{
-			return image.getStackSize();
-		}
+	/**
+	 * Returns the {@link PlanarImg} wrapped by {@code imp}, if it has the
+	 * given pixel type and the same dimensions as the image that the
+	 * {@code wrap*Direct} methods return.
+	 */
+	private static < T > PlanarImg< T, ? > unwrapPlanarImg( final ImagePlus imp, final Class< ? super T > typeClass )
+	{
+		final RandomAccessibleInterval< ? > source = unwrap( imp );
+		if ( source instanceof PlanarImg
+				&& typeClass.isInstance( ( ( PlanarImg< ?, ? > ) source ).getType() )
+				&& Arrays.equals( Intervals.dimensionsAsLongArray( source ), getNonTrivialDimensions( imp ) ) )
+			return Cast.unchecked( source );
+		return null;
+	}
+
+	private static long numPlanes( final RandomAccessibleInterval< ? > image )
+	{
+		long n = 1;
+		for ( int d = 2; d < image.numDimensions(); d++ )
+			n *= image.dimension( d );
+		return n;
+	}
+
+	private static long[] getNonTrivialDimensions(final ImagePlus image )
+	{
+		final LongStream xy = LongStream.of( image.getWidth(), image.getHeight() );
+		final LongStream czt = LongStream.of( image.getNChannels(), image.getNSlices(), image.getNFrames() );
+		return LongStream.concat( xy, czt.filter( x -> x > 1 ) ).toArray();
 	}
 }
@@ -0,0 +1,226 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2025 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Gabriel Selzer, Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.imagej;
+
+import ij.ImageListener;
+import ij.ImagePlus;
+import net.imglib2.img.planar.PlanarImg;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Opt-in registry, that returns the same wrapper every time the same
+ * {@link ImagePlus} is wrapped. Repeated calls of {@link #wrapCached} on the
+ * same {@link ImagePlus} share a single {@link CachedPlanarImg} and thereby
+ * its warm plane cache.
+ * <p>
+ * The wrappers are stored as a property of the {@link ImagePlus} itself,
+ * instead of in a global map. They are therefore garbage collected together
+ * with the {@link ImagePlus}, and the registry never keeps an
+ * {@link ImagePlus} alive. The wrappers are removed when the {@link ImagePlus}
+ * is closed.
+ * <p>
+ * Wrappers are keyed by the kind of wrap, the {@link PlaneCachePolicy} and
+ * the type of the {@link ImagePlus}, so converting an image to another type
+ * creates a new wrapper. A wrapper is only returned while the
+ * {@link ImagePlus} still has the stack and the dimensions it was created
+ * for. After {@link ImagePlus#setStack}, adding or deleting slices or
+ * changing the dimensions, a new wrapper is created. The old one is not
+ * closed, it remains usable by those who hold it.
+ */
+public final class ImagePlusWrapRegistry
+{
+	private static final String PROPERTY_KEY = ImagePlusWrapRegistry.class.getName();
+
+	private static final ImageListener CLOSE_LISTENER = new ImageListener()
+	{
+		@Override
+		public void imageOpened( final ImagePlus imp )
+		{
+			// ignore
+		}
+
+		@Override
+		public void imageUpdated( final ImagePlus imp )
+		{
+			// ignore
+		}
+
+		@Override
+		public void imageClosed( final ImagePlus imp )
+		{
+			remove( imp );
+		}
+	};
+
+	static
+	{
+		ImagePlus.addImageListener( CLOSE_LISTENER );
+	}
+
+	private ImagePlusWrapRegistry()
+	{
+		// prevent from instantiation
+	}
+
+	/**
+	 * Same as {@link ImagePlusToImg#wrapDirect(ImagePlus)}, but returns the
+	 * existing wrapper if {@code imp} was wrapped before.
+	 */
+	public static PlanarImg< ?, ? > wrapDirect( final ImagePlus imp )
+	{
+		return getOrCreate( imp, "direct", ImagePlusToImg::wrapDirect );
+	}
+
+	/**
+	 * Same as {@link ImagePlusToImg#wrapCached(ImagePlus)}, but returns the
+	 * existing wrapper if {@code imp} was wrapped before.
+	 */
+	public static CachedPlanarImg< ?, ? > wrapCached( final ImagePlus imp )
+	{
+		return wrapCached( imp, PlaneCachePolicy.soft() );
+	}
+
+	/**
+	 * Same as {@link ImagePlusToImg#wrapCached(ImagePlus, PlaneCachePolicy)},
+	 * but returns the existing wrapper if {@code imp} was wrapped before with
+	 * an equal policy.
+	 */
+	public static CachedPlanarImg< ?, ? > wrapCached( final ImagePlus imp, final PlaneCachePolicy policy )
+	{
+		return getOrCreate( imp, "cached " + policy, i -> ImagePlusToImg.wrapCached( i, policy ) );
+	}
+
+	/**
+	 * Same as
+	 * {@link ImagePlusToImg#wrapCachedWritable(ImagePlus, PlaneCachePolicy)},
+	 * but returns the existing wrapper if {@code imp} was wrapped before with
+	 * an equal policy.
+	 */
+	public static CachedPlanarImg< ?, ? > wrapCachedWritable( final ImagePlus imp, final PlaneCachePolicy policy )
+	{
+		return getOrCreate( imp, "writable " + policy, i -> ImagePlusToImg.wrapCachedWritable( i, policy ) );
+	}
+
+	/**
+	 * Removes all wrappers of {@code imp} from the registry. Cached planes of
+	 * writable wrappers are not flushed.
+	 */
+	public static void remove( final ImagePlus imp )
+	{
+		synchronized ( imp )
+		{
+			imp.setProperty( PROPERTY_KEY, null );
+		}
+	}
+
+	private static < W extends PlanarImg< ?, ? > > W getOrCreate( final ImagePlus imp, final String kind, final Function< ImagePlus, W > wrap )
+	{
+		final Map< String, Entry > wrappers = wrappers( imp );
+		final Object stack = stackOf( imp );
+		final int size = imp.getStackSize();
+		final int[] dimensions = imp.getDimensions();
+		final Entry entry = wrappers.compute( kind + " type=" + imp.getType(),
+				( key, existing ) -> existing != null && existing.isValid( stack, size, dimensions )
+						? existing
+						: new Entry( wrap.apply( imp ), stack, size, dimensions ) );
+		@SuppressWarnings( "unchecked" )
+		final W wrapper = ( W ) entry.wrapper;
+		return wrapper;
+	}
+
+	/**
+	 * Returns an object that identifies the pixels of {@code imp}: its stack,
+	 * or the pixel array of its processor for a single image.
+	 */
+	private static Object stackOf( final ImagePlus imp )
+	{
+		// NB: ImagePlus.getStack() may create a new stack for every call, if
+		// the image has a single slice.
+		return imp.getStackSize() > 1 ? imp.getStack() : imp.getProcessor().getPixels();
+	}
+
+	private static Map< String, Entry > wrappers( final ImagePlus imp )
+	{
+		synchronized ( imp )
+		{
+			final Object property = imp.getProperty( PROPERTY_KEY );
+			// NB: The properties might have been copied from another ImagePlus, e.g. by duplicate().
+			if ( property instanceof Wrappers && ( ( Wrappers ) property ).owner == imp )
+				return ( ( Wrappers ) property ).wrappers;
+			final Wrappers wrappers = new Wrappers( imp );
+			imp.setProperty( PROPERTY_KEY, wrappers );
+			return wrappers.wrappers;
+		}
+	}
+
+	private static class Wrappers
+	{
+		private final ImagePlus owner;
+
+		private final Map< String, Entry > wrappers = new ConcurrentHashMap<>();
+
+		private Wrappers( final ImagePlus owner )
+		{
+			this.owner = owner;
+		}
+	}
+
+	private static class Entry
+	{
+		private final PlanarImg< ?, ? > wrapper;
+
+		private final Object stack;
+
+		private final int size;
+
+		private final int[] dimensions;
+
+		private Entry( final PlanarImg< ?, ? > wrapper, final Object stack, final int size, final int[] dimensions )
+		{
+			this.wrapper = wrapper;
+			this.stack = stack;
+			this.size = size;
+			this.dimensions = dimensions;
+		}
+
+		private boolean isValid( final Object stack, final int size, final int[] dimensions )
+		{
+			return this.stack == stack && this.size == size && Arrays.equals( this.dimensions, dimensions );
+		}
+	}
+}
@@ -0,0 +1,410 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2025 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Gabriel Selzer, Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.imagej;
+
+import net.imglib2.Dirty;
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Cache of planes used by {@link ImagePlusLoader}. Which planes are kept is
+ * determined by a {@link PlaneCachePolicy}.
+ * <p>
+ * The cache is thread-safe. Concurrent requests of a plane that is not cached
+ * load it only once, all requesting threads wait for the same load.
+ * <p>
+ * A cache with a writer supports write-back of {@link Dirty} planes. Dirty
+ * planes are pinned: they are never evicted, so the cache may exceed its
+ * bounds until {@link #flush()} writes them back. Clean planes evicted from
+ * such a cache are still referenced weakly. As long as an access to an evicted
+ * plane is in use, requests of the plane return that access instead of
+ * loading a copy, and {@link #flush()} writes it back if it was modified after
+ * the eviction. Write-back requires strong references, so a writer can only be
+ * used with a {@link PlaneCachePolicy.Kind#BOUNDED bounded} policy.
+ *
+ * @param <A> plane type
+ */
+class PlaneCache< A extends ArrayDataAccess< A > >
+{
+	private final PlaneCachePolicy policy;
+
+	private final ObjIntConsumer< A > writer;
+
+	// NB: access ordered, the least recently used plane comes first
+	private final LinkedHashMap< Integer, Entry< A > > entries = new LinkedHashMap<>( 16, 0.75f, true );
+
+	private final Map< Integer, CompletableFuture< A > > pending = new HashMap<>();
+
+	// NB: clean planes evicted from a cache with writer, see lookup(int)
+	private final Map< Integer, WeakReference< A > > released = new HashMap<>();
+
+	private final ReferenceQueue< A > queue = new ReferenceQueue<>();
+
+	private long bytes;
+
+	private long hits;
+
+	private long misses;
+
+	private long evictions;
+
+	PlaneCache( final PlaneCachePolicy policy )
+	{
+		this( policy, null );
+	}
+
+	/**
+	 * @param writer writes a dirty plane back to its source, may be null
+	 */
+	PlaneCache( final PlaneCachePolicy policy, final ObjIntConsumer< A > writer )
+	{
+		if ( writer != null && policy.kind() != PlaneCachePolicy.Kind.BOUNDED )
+			throw new IllegalArgumentException( "Write-back requires a bounded cache policy, but was: " + policy );
+		this.policy = policy;
+		this.writer = writer;
+	}
+
+	PlaneCachePolicy policy()
+	{
+		return policy;
+	}
+
+	/**
+	 * Returns the cached plane, or loads it with {@code loader}.
+	 */
+	A get( final int index, final IntFunction< A > loader )
+	{
+		final CompletableFuture< A > future;
+		final boolean load;
+		synchronized ( this )
+		{
+			purge();
+			final A cached = lookup( index );
+			if ( cached != null )
+			{
+				hits++;
+				return cached;
+			}
+			final CompletableFuture< A > loading = pending.get( index );
+			load = loading == null;
+			if ( load )
+			{
+				misses++;
+				future = new CompletableFuture<>();
+				pending.put( index, future );
+			}
+			else
+			{
+				hits++;
+				future = loading;
+			}
+		}
+		return load ? load( index, loader, future ) : join( future );
+	}
+
+	/**
+	 * Loads a plane and caches it, unless the plane was invalidated while it
+	 * was loaded. Invalidation removes the pending load of the plane, so loads
+	 * of other planes are not affected.
+	 */
+	private A load( final int index, final IntFunction< A > loader, final CompletableFuture< A > future )
+	{
+		final A plane;
+		try
+		{
+			plane = loader.apply( index );
+		}
+		catch ( final RuntimeException | Error e )
+		{
+			synchronized ( this )
+			{
+				pending.remove( index, future );
+			}
+			future.completeExceptionally( e );
+			throw e;
+		}
+		synchronized ( this )
+		{
+			if ( pending.remove( index, future ) )
+				put( index, plane );
+		}
+		future.complete( plane );
+		return plane;
+	}
+
+	private static < A > A join( final CompletableFuture< A > future )
+	{
+		try
+		{
+			return future.join();
+		}
+		catch ( final CompletionException e )
+		{
+			if ( e.getCause() instanceof RuntimeException )
+				throw ( RuntimeException ) e.getCause();
+			if ( e.getCause() instanceof Error )
+				throw ( Error ) e.getCause();
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns true if the plane is currently held by the cache.
+	 */
+	synchronized boolean contains( final int index )
+	{
+		final Entry< A > entry = entries.get( index );
+		return entry != null && entry.get() != null;
+	}
+
+	/**
+	 * Returns true if the plane is currently held by the cache or being
+	 * loaded.
+	 */
+	synchronized boolean containsOrLoading( final int index )
+	{
+		return pending.containsKey( index ) || contains( index );
+	}
+
+	/**
+	 * Writes back all dirty planes, including evicted planes that were
+	 * modified after their eviction, and then evicts planes until the cache
+	 * is within its bounds again.
+	 */
+	synchronized void flush()
+	{
+		if ( writer == null )
+			return;
+		entries.forEach( ( index, entry ) -> writeBackIfDirty( index, entry.get() ) );
+		released.forEach( ( index, reference ) -> writeBackIfDirty( index, reference.get() ) );
+		shrink( -1 );
+	}
+
+	/**
+	 * Removes the plane from the cache, the next request loads it again. The
+	 * source was modified, so a dirty copy of the plane is outdated and
+	 * discarded without writing it back. A load of the plane that is in
+	 * progress does not put its result into the cache.
+	 */
+	synchronized void invalidate( final int index )
+	{
+		pending.remove( index );
+		final Entry< A > entry = entries.remove( index );
+		if ( entry != null )
+			bytes -= entry.bytes;
+		released.remove( index );
+	}
+
+	/**
+	 * Removes all planes from the cache. Dirty planes are discarded without
+	 * writing them back, call {@link #flush()} first to keep them.
+	 */
+	synchronized void invalidateAll()
+	{
+		pending.clear();
+		entries.clear();
+		released.clear();
+		bytes = 0;
+	}
+
+	synchronized PlaneCacheStatistics statistics()
+	{
+		purge();
+		return new PlaneCacheStatistics( hits, misses, evictions, entries.size(), bytes );
+	}
+
+	private A lookup( final int index )
+	{
+		final Entry< A > entry = entries.get( index );
+		if ( entry == null )
+			return resurrect( index );
+		final A plane = entry.get();
+		if ( plane == null )
+			evict( index, entry );
+		return plane;
+	}
+
+	/**
+	 * Puts an evicted plane that is still in use back into the cache, such
+	 * that there is only one instance of the plane to write to.
+	 */
+	private A resurrect( final int index )
+	{
+		final WeakReference< A > reference = released.remove( index );
+		final A plane = reference == null ? null : reference.get();
+		if ( plane != null )
+			put( index, plane );
+		return plane;
+	}
+
+	private void put( final int index, final A plane )
+	{
+		if ( policy.kind() == PlaneCachePolicy.Kind.NONE )
+			return;
+		final long size = sizeInBytes( plane );
+		final Entry< A > entry = policy.kind() == PlaneCachePolicy.Kind.SOFT
+				? new Entry<>( null, new SoftPlaneReference<>( index, plane, queue ), size )
+				: new Entry<>( plane, null, size );
+		final Entry< A > previous = entries.put( index, entry );
+		if ( previous != null )
+			bytes -= previous.bytes;
+		bytes += size;
+		shrink( index );
+	}
+
+	/**
+	 * Evicts least recently used clean planes until the cache is within its
+	 * bounds. Dirty planes are pinned. The plane that was just added is kept,
+	 * even if it alone exceeds the bounds, because it is about to be used.
+	 */
+	private void shrink( final int added )
+	{
+		if ( writer != null )
+			released.values().removeIf( reference -> reference.get() == null );
+		final Iterator< Map.Entry< Integer, Entry< A > > > iterator = entries.entrySet().iterator();
+		while ( isOverBounds() && iterator.hasNext() )
+		{
+			final Map.Entry< Integer, Entry< A > > next = iterator.next();
+			if ( next.getKey() == added )
+				continue;
+			final Entry< A > entry = next.getValue();
+			final A plane = entry.get();
+			if ( isDirty( plane ) )
+				continue;
+			if ( writer != null && plane != null )
+				released.put( next.getKey(), new WeakReference<>( plane ) );
+			iterator.remove();
+			bytes -= entry.bytes;
+			evictions++;
+		}
+	}
+
+	private boolean isOverBounds()
+	{
+		return entries.size() > policy.maxPlanes() || bytes > policy.maxBytes();
+	}
+
+	private boolean isDirty( final A plane )
+	{
+		return writer != null && plane instanceof Dirty && ( ( Dirty ) plane ).isDirty();
+	}
+
+	private void writeBackIfDirty( final int index, final A plane )
+	{
+		if ( !isDirty( plane ) )
+			return;
+		writer.accept( plane, index );
+		( ( Dirty ) plane ).setDirty( false );
+	}
+
+	private void evict( final int index, final Entry< A > entry )
+	{
+		entries.remove( index );
+		bytes -= entry.bytes;
+		evictions++;
+	}
+
+	/**
+	 * Removes the entries whose soft references were cleared by the garbage
+	 * collector.
+	 */
+	private void purge()
+	{
+		Reference< ? extends A > reference;
+		while ( ( reference = queue.poll() ) != null )
+		{
+			final int index = ( ( SoftPlaneReference< ? > ) reference ).index;
+			final Entry< A > entry = entries.get( index );
+			if ( entry != null && entry.soft == reference )
+				evict( index, entry );
+		}
+	}
+
+	static long sizeInBytes( final ArrayDataAccess< ? > plane )
+	{
+		final Object array = plane.getCurrentStorageArray();
+		final long length = plane.getArrayLength();
+		if ( array instanceof byte[] || array instanceof boolean[] )
+			return length;
+		if ( array instanceof short[] || array instanceof char[] )
+			return 2 * length;
+		if ( array instanceof int[] || array instanceof float[] )
+			return 4 * length;
+		return 8 * length;
+	}
+
+	private static final class Entry< A >
+	{
+		private final A strong;
+
+		private final SoftPlaneReference< A > soft;
+
+		private final long bytes;
+
+		private Entry( final A strong, final SoftPlaneReference< A > soft, final long bytes )
+		{
+			this.strong = strong;
+			this.soft = soft;
+			this.bytes = bytes;
+		}
+
+		private A get()
+		{
+			return soft != null ? soft.get() : strong;
+		}
+	}
+
+	private static final class SoftPlaneReference< A > extends SoftReference< A >
+	{
+		private final int index;
+
+		private SoftPlaneReference( final int index, final A plane, final ReferenceQueue< ? super A > queue )
+		{
+			super( plane, queue );
+			this.index = index;
+		}
+	}
+}
@@ -0,0 +1,172 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2025 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Gabriel Selzer, Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.imagej;
+
+import ij.ImagePlus;
+
+/**
+ * Determines which planes a {@link CachedPlanarImg} keeps in memory, see
+ * {@link ImagePlusToImg#wrapCached(ImagePlus, PlaneCachePolicy)}.
+ * <ul>
+ * <li>{@link #soft()} keeps planes as long as the garbage collector permits,
+ * this is the default.</li>
+ * <li>{@link #none()} keeps no planes, every access to a plane loads it from
+ * the {@link ImagePlus} again.</li>
+ * <li>{@link #boundedByCount(int)} and {@link #boundedByBytes(long)} keep
+ * strong references to the least recently used planes, up to the given number
+ * of planes or bytes.</li>
+ * </ul>
+ * Additionally, {@link #withReadAhead(int)} enables loading planes ahead of
+ * sequential access, which is useful for {@link ImagePlus}es backed by file
+ * virtual stacks.
+ */
+public final class PlaneCachePolicy
+{
+	enum Kind
+	{
+		NONE, SOFT, BOUNDED
+	}
+
+	private static final PlaneCachePolicy NONE = new PlaneCachePolicy( Kind.NONE, Integer.MAX_VALUE, Long.MAX_VALUE, 0 );
+
+	private static final PlaneCachePolicy SOFT = new PlaneCachePolicy( Kind.SOFT, Integer.MAX_VALUE, Long.MAX_VALUE, 0 );
+
+	private final Kind kind;
+
+	private final int maxPlanes;
+
+	private final long maxBytes;
+
+	private final int readAhead;
+
+	private PlaneCachePolicy( final Kind kind, final int maxPlanes, final long maxBytes, final int readAhead )
+	{
+		this.kind = kind;
+		this.maxPlanes = maxPlanes;
+		this.maxBytes = maxBytes;
+		this.readAhead = readAhead;
+	}
+
+	/**
+	 * Planes are not cached.
+	 */
+	public static PlaneCachePolicy none()
+	{
+		return NONE;
+	}
+
+	/**
+	 * Planes are cached using soft references.
+	 */
+	public static PlaneCachePolicy soft()
+	{
+		return SOFT;
+	}
+
+	/**
+	 * At most {@code maxPlanes} planes are cached, the least recently used
+	 * plane is evicted first.
+	 */
+	public static PlaneCachePolicy boundedByCount( final int maxPlanes )
+	{
+		if ( maxPlanes < 0 )
+			throw new IllegalArgumentException( "maxPlanes must not be negative." );
+		return new PlaneCachePolicy( Kind.BOUNDED, maxPlanes, Long.MAX_VALUE, 0 );
+	}
+
+	/**
+	 * Planes are cached as long as their total size does not exceed
+	 * {@code maxBytes}, the least recently used plane is evicted first.
+	 */
+	public static PlaneCachePolicy boundedByBytes( final long maxBytes )
+	{
+		if ( maxBytes < 0 )
+			throw new IllegalArgumentException( "maxBytes must not be negative." );
+		return new PlaneCachePolicy( Kind.BOUNDED, Integer.MAX_VALUE, maxBytes, 0 );
+	}
+
+	/**
+	 * Returns a copy of this policy, that additionally detects sequential
+	 * access to the planes. When plane {@code i + 1} is requested right after
+	 * plane {@code i}, the next {@code planes} planes are loaded in the
+	 * background on the shared {@link net.imglib2.imagej.img.PlaneScheduler}.
+	 * Read-ahead is only useful if the cache is large enough to hold the
+	 * planes loaded ahead.
+	 *
+	 * @param planes number of planes to load ahead, 0 disables read-ahead
+	 */
+	public PlaneCachePolicy withReadAhead( final int planes )
+	{
+		if ( planes < 0 )
+			throw new IllegalArgumentException( "planes must not be negative." );
+		return new PlaneCachePolicy( kind, maxPlanes, maxBytes, planes );
+	}
+
+	Kind kind()
+	{
+		return kind;
+	}
+
+	int maxPlanes()
+	{
+		return maxPlanes;
+	}
+
+	long maxBytes()
+	{
+		return maxBytes;
+	}
+
+	int readAhead()
+	{
+		return readAhead;
+	}
+
+	@Override
+	public String toString()
+	{
+		final String suffix = readAhead > 0 ? ".withReadAhead(" + readAhead + ")" : "";
+		switch ( kind )
+		{
+		case NONE:
+			return "PlaneCachePolicy.none()" + suffix;
+		case SOFT:
+			return "PlaneCachePolicy.soft()" + suffix;
+		default:
+			return ( maxBytes == Long.MAX_VALUE
+					? "PlaneCachePolicy.boundedByCount(" + maxPlanes + ")"
+					: "PlaneCachePolicy.boundedByBytes(" + maxBytes + ")" ) + suffix;
+		}
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2025 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Gabriel Selzer, Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.imagej;
+
+/**
+ * Snapshot of the counters of the plane cache of a {@link CachedPlanarImg}.
+ */
+public final class PlaneCacheStatistics
+{
+	private final long hits;
+
+	private final long misses;
+
+	private final long evictions;
+
+	private final int cachedPlanes;
+
+	private final long cachedBytes;
+
+	PlaneCacheStatistics( final long hits, final long misses, final long evictions, final int cachedPlanes, final long cachedBytes )
+	{
+		this.hits = hits;
+		this.misses = misses;
+		this.evictions = evictions;
+		this.cachedPlanes = cachedPlanes;
+		this.cachedBytes = cachedBytes;
+	}
+
+	/** Number of plane requests that were served from the cache. */
+	public long getHits()
+	{
+		return hits;
+	}
+
+	/** Number of plane requests that required loading the plane. */
+	public long getMisses()
+	{
+		return misses;
+	}
+
+	/**
+	 * Number of planes removed from the cache, because of the cache bounds or
+	 * because the garbage collector cleared them.
+	 */
+	public long getEvictions()
+	{
+		return evictions;
+	}
+
+	/** Number of planes currently held by the cache. */
+	public int getCachedPlanes()
+	{
+		return cachedPlanes;
+	}
+
+	/** Total size in bytes of the planes currently held by the cache. */
+	public long getCachedBytes()
+	{
+		return cachedBytes;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "PlaneCacheStatistics{hits=" + hits + ", misses=" + misses + ", evictions=" + evictions
+				+ ", cachedPlanes=" + cachedPlanes + ", cachedBytes=" + cachedBytes + "}";
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2025 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Gabriel Selzer, Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.imagej;
+
+import ij.ImageStack;
+import net.imglib2.imagej.img.ImageProcessorUtils;
+import net.imglib2.img.Img;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A {@link Spliterator} over planes of an {@link ImageStack}, given by their
+ * stack indices. Each plane is wrapped into a 2D
+ * {@link net.imglib2.img.array.ArrayImg} without copying, when it is
+ * traversed. Splitting halves the range of remaining planes, such that
+ * parallel streams distribute the planes evenly, and each worker loads the
+ * planes of a virtual stack it processes.
+ */
+class PlaneSpliterator implements Spliterator< Img< ? > >
+{
+	private final ImageStack stack;
+
+	private final int[] stackIndices;
+
+	private int origin;
+
+	private final int fence;
+
+	PlaneSpliterator( final ImageStack stack, final int[] stackIndices )
+	{
+		this( stack, stackIndices, 0, stackIndices.length );
+	}
+
+	private PlaneSpliterator( final ImageStack stack, final int[] stackIndices, final int origin, final int fence )
+	{
+		this.stack = stack;
+		this.stackIndices = stackIndices;
+		this.origin = origin;
+		this.fence = fence;
+	}
+
+	@Override
+	public boolean tryAdvance( final Consumer< ? super Img< ? > > action )
+	{
+		if ( origin >= fence )
+			return false;
+		action.accept( plane( stackIndices[ origin++ ] ) );
+		return true;
+	}
+
+	@Override
+	public void forEachRemaining( final Consumer< ? super Img< ? > > action )
+	{
+		while ( origin < fence )
+			action.accept( plane( stackIndices[ origin++ ] ) );
+	}
+
+	@Override
+	public Spliterator< Img< ? > > trySplit()
+	{
+		final int mid = ( origin + fence ) >>> 1;
+		if ( mid <= origin )
+			return null;
+		final PlaneSpliterator prefix = new PlaneSpliterator( stack, stackIndices, origin, mid );
+		origin = mid;
+		return prefix;
+	}
+
+	@Override
+	public long estimateSize()
+	{
+		return fence - origin;
+	}
+
+	@Override
+	public int characteristics()
+	{
+		return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+	}
+
+	private Img< ? > plane( final int stackIndex )
+	{
+		return ImageProcessorUtils.createImg( stack.getPixels( stackIndex ), stack.getWidth(), stack.getHeight() );
+	}
+}
@@ -33,7 +33,9 @@
  */
 package net.imglib2.imagej;
 
+import ij.IJ;
 import ij.ImagePlus;
+import ij.ImageStack;
 import ij.VirtualStack;
 import net.imglib2.Dimensions;
 import net.imglib2.RandomAccessibleInterval;
@@ -42,8 +44,16 @@ import net.imglib2.converter.ComplexPowerGLogFloatConverter;
 import net.imglib2.converter.Converter;
 import net.imglib2.converter.Converters;
 import net.imglib2.converter.readwrite.SamplerConverter;
+import net.imglib2.exception.ImgLibException;
+import net.imglib2.imagej.imageplus.ImagePlusImg;
 import net.imglib2.imagej.img.*;
+import net.imglib2.img.array.ArrayImg;
 import net.imglib2.img.basictypeaccess.IntAccess;
+import net.imglib2.img.cell.CellImg;
+import net.imglib2.img.planar.PlanarImg;
+import net.imglib2.parallel.Parallelization;
+import net.imglib2.parallel.TaskExecutor;
+import net.imglib2.parallel.TaskExecutors;
 import net.imglib2.type.BooleanType;
 import net.imglib2.type.NativeType;
 import net.imglib2.type.logic.BitType;
@@ -56,8 +66,18 @@ import net.imglib2.view.Views;
 import net.imglib2.view.composite.Composite;
 import net.imglib2.view.composite.GenericComposite;
 
+import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
 import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Utilities for <b>wrapping</b> {@link RandomAccessibleInterval}s
@@ -65,6 +85,21 @@ import java.util.function.Function;
  * <p>
  * Under the hood, conversion utilizes {@link ImageJVirtualStack}, allowing
  * read/write operations to the backing {@link RandomAccessibleInterval}.
+ * {@link #wrap(RandomAccessibleInterval, String)} shares the pixel arrays of
+ * the image instead, where possible, see {@link WrapStrategy}.
+ * </p>
+ * <p>
+ * Methods accepting an {@link ExecutorService} project planes in parallel.
+ * Pass {@code PlaneScheduler.getInstance().executorService()} to share the
+ * library-wide thread budget of the {@link PlaneScheduler} fairly between all
+ * wrapped images, instead of creating an {@link ExecutorService} per image.
+ * Without an {@link ExecutorService}, each plane is projected with the
+ * {@link TaskExecutor} of the thread requesting it, see
+ * {@link Parallelization#getTaskExecutor()}. The executor of the thread that
+ * wrapped the image is not kept, it may be shut down by then. Converters
+ * passed without a {@code Supplier} need not be thread-safe, so their planes
+ * are projected by the requesting thread alone, and they are not moved to
+ * the {@link PlaneScheduler} implicitly.
  * </p>
  *
  * @author Tobis Pietzsch
@@ -77,23 +112,147 @@ public class RAIToImagePlus {
     // Prevent instantiation of utility class
     private RAIToImagePlus() {}
 
+    /**
+     * The ways {@link #wrap(RandomAccessibleInterval, String)} turns a
+     * {@link RandomAccessibleInterval} into an {@link ImagePlus}, see
+     * {@link #getWrapStrategy(RandomAccessibleInterval)}.
+     */
+    public enum WrapStrategy
+    {
+        /**
+         * The image is backed by an {@link ImagePlus}, which is returned as is.
+         */
+        IMAGE_PLUS,
+
+        /**
+         * The planes of a {@link PlanarImg} are shared, see
+         * {@link PlanarImgToImagePlus#wrap(PlanarImg, String)}.
+         */
+        PLANAR,
+
+        /**
+         * The planar cells of a {@link CellImg} are shared. For other cell
+         * shapes, planes are assembled from and split into the cells with
+         * {@link System#arraycopy}, see
+         * {@link CellImgToImagePlus#wrap(CellImg, String)}.
+         */
+        CELL,
+
+        /**
+         * The array of a two dimensional {@link ArrayImg} is shared. For more
+         * dimensions, planes are copied from and to the array with
+         * {@link System#arraycopy}, see
+         * {@link ArrayImgToImagePlus#wrap(ArrayImg, String)}.
+         */
+        ARRAY,
+
+        /**
+         * The planes of a view of a {@link PlanarImg} or {@link CellImg} are
+         * shared, see
+         * {@link PlanarImgToImagePlus#wrapView(RandomAccessibleInterval, String)}.
+         */
+        PLANAR_VIEW,
+
+        /**
+         * The planes are projected on demand by an {@link ImageJVirtualStack}.
+         */
+        VIRTUAL
+    }
+
+    /**
+     * Returns the {@link WrapStrategy} that
+     * {@link #wrap(RandomAccessibleInterval, String)} uses for {@code img}.
+     * Strategies that use the pixel arrays of {@code img} are preferred, in
+     * the order they are declared in {@link WrapStrategy}. They require
+     * {@link UnsignedByteType}, {@link UnsignedShortType}, {@link FloatType}
+     * or {@link ARGBType}, other pixel types are always projected.
+     *
+     * @param img the {@link RandomAccessibleInterval} to wrap
+     * @return how {@code img} would be wrapped
+     */
+    public static WrapStrategy getWrapStrategy( final RandomAccessibleInterval< ? > img )
+    {
+        if ( unwrapImagePlus( img ) != null )
+            return WrapStrategy.IMAGE_PLUS;
+        if ( !ImageProcessorUtils.isSupported( img.getType() ) || img.numDimensions() < 2 || img.numDimensions() > 5 )
+            return WrapStrategy.VIRTUAL;
+        if ( PlanarImgToImagePlus.isSupported( img ) )
+            return WrapStrategy.PLANAR;
+        if ( CellImgToImagePlus.isSupported( img ) )
+            return WrapStrategy.CELL;
+        if ( ArrayImgToImagePlus.isSupported( img ) )
+            return WrapStrategy.ARRAY;
+        if ( PlanarImgToImagePlus.isSupportedView( img ) )
+            return WrapStrategy.PLANAR_VIEW;
+        return WrapStrategy.VIRTUAL;
+    }
+
     /**
      * Create a single channel {@link ImagePlus} from a
      * {@link RandomAccessibleInterval}. The image type of the result
      * (ImagePlus.GRAY8, ImagePlus.GRAY16, ImagePlus.GRAY32, ImagePlus.COLOR_256
      * or ImagePlus.COLOR_RGB) is inferred from the generic type of the input
      * {@link RandomAccessibleInterval}.
+     * <p>
+     * If {@code img} is itself backed by an {@link ImagePlus}, i.e. it is an
+     * {@link ImagePlusImg} or a {@link CachedPlanarImg} created by
+     * {@link ImagePlusToImg}, that {@link ImagePlus} is returned instead of
+     * adding another adapter layer. Its title is left unchanged, so
+     * {@code title} is ignored in this case. Modified planes of a
+     * {@link CachedPlanarImg} are written back to it first, see
+     * {@link CachedPlanarImg#flush()}.
+     * <p>
+     * Otherwise, if the pixel arrays of {@code img} can be used by ImageJ
+     * directly, the {@link ImagePlus} shares them without converting any
+     * pixels, see {@link WrapStrategy}. Only if that is not possible, an
+     * {@link ImageJVirtualStack} projects the planes on demand. Use
+     * {@link #getWrapStrategy(RandomAccessibleInterval)} to find out which
+     * of these is used. In either case, writing to the {@link ImagePlus}
+     * modifies {@code img}.
+     * <p>
+     * Compatibility note: earlier versions always returned an
+     * {@link ImagePlus} backed by an {@link ImageJVirtualStack}. The stack of
+     * a zero-copy {@link ImagePlus} is a different class, and {@code service}
+     * is not used for it. Bit depth, dimensions and the initial display range
+     * are the same as before, e.g. 0 to 1 for {@link FloatType}. Callers that
+     * rely on an {@link ImageJVirtualStack}, e.g. to call
+     * {@link ImageJVirtualStack#setExecutorService(ExecutorService)}, should
+     * use {@link #wrapVirtualStack(RandomAccessibleInterval, String)} or the
+     * type specific methods like
+     * {@link #wrapUnsignedByte(RandomAccessibleInterval, String)}, which still
+     * project the planes.
      *
      * @param <T> element type in source image
      * @param img the {@link RandomAccessibleInterval} to wrap
      * @param title the name to assign to the wrapped {@link ImagePlus}
-     * @param service an {@link ExecutorService} to manage asynchronous tasks
-     * @return an {@link ImagePlus} wrapping {@code img} named {@code title}
+     * @param service an {@link ExecutorService} to manage asynchronous tasks,
+     *            only used if the planes are projected
+     * @return an {@link ImagePlus} wrapping {@code img} named {@code title},
+     *         or the {@link ImagePlus} backing {@code img} with its own title
      */
     @SuppressWarnings( { "unchecked", "rawtypes" } )
     public static < T extends NumericType< T > > ImagePlus wrap( final RandomAccessibleInterval< T > img, final String title,
                                                                  final ExecutorService service )
     {
+        switch ( getWrapStrategy( img ) )
+        {
+        case IMAGE_PLUS:
+            if ( img instanceof CachedPlanarImg )
+                // NB: make modifications visible in the ImagePlus
+                ( ( CachedPlanarImg< ?, ? > ) img ).flush();
+            return unwrapImagePlus( img );
+        case PLANAR:
+            return initZeroCopy( PlanarImgToImagePlus.wrap( ( PlanarImg< ?, ? > ) img, title ), img );
+        case CELL:
+            return initZeroCopy( CellImgToImagePlus.wrap( ( CellImg ) img, title ), img );
+        case ARRAY:
+            return initZeroCopy( ArrayImgToImagePlus.wrap( ( ArrayImg ) img, title ), img );
+        case PLANAR_VIEW:
+            return initZeroCopy( PlanarImgToImagePlus.wrapView( img, title ), img );
+        default:
+            break;
+        }
+
         ImagePlus target;
         final T t = img.getType();
 
@@ -127,18 +286,134 @@ public class RAIToImagePlus {
      * {@link RandomAccessibleInterval}. The image type of the result
      * (ImagePlus.GRAY8, ImagePlus.GRAY16, ImagePlus.GRAY32, ImagePlus.COLOR_256
      * or ImagePlus.COLOR_RGB) is inferred from the generic type of the input
-     * {@link RandomAccessibleInterval}.
+     * {@link RandomAccessibleInterval}. See
+     * {@link #wrap(RandomAccessibleInterval, String, ExecutorService)}.
      *
      * @param <T> element type in source image
      * @param img the {@link RandomAccessibleInterval} to wrap
      * @param title the name to assign to the wrapped {@link ImagePlus}
-     * @return an {@link ImagePlus} wrapping {@code img} named {@code title}
+     * @return an {@link ImagePlus} wrapping {@code img} named {@code title},
+     *         or the {@link ImagePlus} backing {@code img} with its own title
      */
     public static < T extends NumericType< T > > ImagePlus wrap( final RandomAccessibleInterval< T > img, final String title )
     {
         return wrap( img, title, null );
     }
 
+    /**
+     * Create an {@link ImagePlus} with a real, non-virtual {@link ImageStack}
+     * that contains a copy of {@code img}. The image type, dimensions and
+     * display range are the same as for {@link #wrap(RandomAccessibleInterval, String)}.
+     * <p>
+     * The planes are copied in parallel, using the {@link TaskExecutor} of
+     * {@link Parallelization#getTaskExecutor()}, or multi-threaded if that is
+     * single-threaded. Progress is shown with {@link IJ#showProgress(int, int)}.
+     *
+     * @param <T> element type in source image
+     * @param img the {@link RandomAccessibleInterval} to copy
+     * @param title the name to assign to the new {@link ImagePlus}
+     * @return an {@link ImagePlus} containing a copy of {@code img} named {@code title}
+     */
+    public static < T extends NumericType< T > > ImagePlus copy( final RandomAccessibleInterval< T > img, final String title )
+    {
+        final TaskExecutor ambient = Parallelization.getTaskExecutor();
+        final TaskExecutor executor = ambient.getParallelism() > 1 ? ambient : TaskExecutors.multiThreaded();
+        return copy( img, title, executor, IJ::showProgress, () -> false );
+    }
+
+    /**
+     * Create an {@link ImagePlus} with a real, non-virtual {@link ImageStack}
+     * that contains a copy of {@code img}. The image type, dimensions and
+     * display range are the same as for {@link #wrap(RandomAccessibleInterval, String)}.
+     * <p>
+     * The planes are filled in parallel by {@code executor}, one task per plane.
+     * If {@code img} is an {@link net.imglib2.img.array.ArrayImg},
+     * {@link net.imglib2.img.planar.PlanarImg} or
+     * {@link net.imglib2.img.cell.CellImg} whose pixel type is stored by
+     * ImageJ without conversion ({@link UnsignedByteType},
+     * {@link UnsignedShortType}, {@link FloatType} or {@link ARGBType}), the
+     * planes are copied with {@link System#arraycopy}, for cells row by row.
+     * Otherwise, each plane is projected with the converter used by
+     * {@link #wrap(RandomAccessibleInterval, String)}.
+     *
+     * @param <T> element type in source image
+     * @param img the {@link RandomAccessibleInterval} to copy
+     * @param title the name to assign to the new {@link ImagePlus}
+     * @param executor the {@link TaskExecutor} used to fill the planes
+     * @param progress called with the number of planes copied so far and the
+     *            total number of planes. It is called from the threads of
+     *            {@code executor}, but the calls are serialized and the
+     *            number of planes increases with every call.
+     * @param canceled polled before each plane is copied
+     * @return an {@link ImagePlus} containing a copy of {@code img} named {@code title}
+     * @throws CancellationException if {@code canceled} returned true
+     */
+    public static < T extends NumericType< T > > ImagePlus copy(
+            final RandomAccessibleInterval< T > img,
+            final String title,
+            final TaskExecutor executor,
+            final BiConsumer< Integer, Integer > progress,
+            final BooleanSupplier canceled )
+    {
+        // NB: An ImagePlus backing img belongs to the caller. It is neither
+        // flushed nor reconfigured, its planes are read from img instead.
+        final WrapStrategy strategy = getWrapStrategy( img );
+        final boolean owned = strategy != WrapStrategy.IMAGE_PLUS;
+        final ImagePlus wrapped = owned ? wrap( img, title ) : unwrapImagePlus( img );
+        if ( wrapped == null )
+            throw new IllegalArgumentException( "Cannot copy image of type " + img.getType().getClass().getSimpleName() );
+        final ImageStack source = wrapped.getStack();
+        final int imageType = wrapped.getType();
+        final int size = source.getSize();
+        final IntFunction< Object > planes;
+        final boolean planesOfImg;
+        if ( owned && source instanceof ImageJVirtualStack )
+        {
+            final ImageJVirtualStack< ? > virtual = ( ImageJVirtualStack< ? > ) source;
+            // NB: Planes are copied in parallel already.
+            virtual.setTaskExecutor( TaskExecutors.singleThreaded() );
+            planesOfImg = virtual.getSource() == img;
+        }
+        else
+            planesOfImg = strategy != WrapStrategy.PLANAR_VIEW && strategy != WrapStrategy.VIRTUAL;
+        if ( planesOfImg && ImagePlusPlaneCopier.isSupported( imageType, img ) )
+            planes = i -> ImagePlusPlaneCopier.readPlane( imageType, img, i );
+        else if ( owned && source instanceof ImageJVirtualStack )
+            planes = i -> source.getPixels( i + 1 ); // NB: returns a copy
+        else
+            planes = i -> source.getProcessor( i + 1 ).duplicate().getPixels();
+
+        final Object[] pixels = new Object[ size ];
+        final AtomicInteger done = new AtomicInteger();
+        final AtomicBoolean stopped = new AtomicBoolean();
+        final List< Integer > indices = IntStream.range( 0, size ).boxed().collect( Collectors.toList() );
+        executor.forEach( indices, i -> {
+            if ( stopped.get() || canceled.getAsBoolean() )
+            {
+                stopped.set( true );
+                return;
+            }
+            pixels[ i ] = planes.apply( i );
+            // NB: serialized, such that the reported count never decreases
+            synchronized ( done )
+            {
+                progress.accept( done.incrementAndGet(), size );
+            }
+        } );
+        if ( stopped.get() )
+            throw new CancellationException( "Copying " + title + " was canceled." );
+
+        final ImageStack stack = new ImageStack( source.getWidth(), source.getHeight() );
+        for ( int i = 0; i < size; i++ )
+            stack.addSlice( source.getSliceLabel( i + 1 ), pixels[ i ] );
+        final ImagePlus imp = new ImagePlus( title, stack );
+        imp.setDimensions( wrapped.getNChannels(), wrapped.getNSlices(), wrapped.getNFrames() );
+        imp.setOpenAsHyperStack( wrapped.getOpenAsHyperStack() );
+        imp.setCalibration( wrapped.getCalibration() );
+        imp.setDisplayRange( wrapped.getDisplayRangeMin(), wrapped.getDisplayRangeMax() );
+        return imp;
+    }
+
     /**
      * Create a single channel 32-bit float {@link ImagePlus} from a
      * {@link RandomAccessibleInterval} using a default {@link Converter}.
@@ -221,6 +496,53 @@ public class RAIToImagePlus {
         return wrapFloat( img, converter, title, null );
     }
 
+    /**
+     * Create a single channel 32-bit float {@link ImagePlus} from a
+     * {@link RandomAccessibleInterval} using converters created by
+     * {@code converterSupplier}. Every worker computing a plane uses its own
+     * {@link Converter} instance, so stateful converters are safe to use with
+     * a multi-threaded {@code service}.
+     *
+     * @param <T> element type in source image
+     * @param img the {@link RandomAccessibleInterval} to wrap
+     * @param converterSupplier creates {@link Converter}s turning {@link T} into a an {@link FloatType}
+     * @param title the name assigned to the resulting {@link ImagePlus}
+     * @param service the {@link ExecutorService} used for processing.
+     * @return an {@link ImagePlus} wrapping {@code img}
+     */
+    public static < T > ImagePlus wrapFloat(
+            final RandomAccessibleInterval< T > img,
+            final Supplier< ? extends Converter< T, FloatType > > converterSupplier,
+            final String title,
+            final ExecutorService service )
+    {
+        return internalWrap( //
+                img, //
+                rai -> new ImageJVirtualStackFloat( rai, converterSupplier, service ), //
+                title, //
+                service //
+        );
+    }
+
+    /**
+     * Create a single channel 32-bit float {@link ImagePlus} from a
+     * {@link RandomAccessibleInterval} using converters created by
+     * {@code converterSupplier}, one per worker.
+     *
+     * @param <T> element type in source image
+     * @param img the {@link RandomAccessibleInterval} to wrap
+     * @param converterSupplier creates {@link Converter}s turning {@link T} into a an {@link FloatType}
+     * @param title the name assigned to the resulting {@link ImagePlus}
+     * @return an {@link ImagePlus} wrapping {@code img}
+     */
+    public static < T > ImagePlus wrapFloat(
+            final RandomAccessibleInterval< T > img,
+            final Supplier< ? extends Converter< T, FloatType > > converterSupplier,
+            final String title )
+    {
+        return wrapFloat( img, converterSupplier, title, null );
+    }
+
     /**
      * Create a 24bit RGB {@link ImagePlus} from a
      * {@link RandomAccessibleInterval} with {@link ARGBType} elements.
@@ -253,9 +575,63 @@ public class RAIToImagePlus {
         return wrapRGB(img, title, null);
     }
 
+    /**
+     * Create a 24bit RGB {@link ImagePlus} from a
+     * {@link RandomAccessibleInterval} using converters created by
+     * {@code converterSupplier}. Every worker computing a plane uses its own
+     * {@link Converter} instance, so stateful converters are safe to use with
+     * a multi-threaded {@code service}.
+     *
+     * @param <T> element type in source image
+     * @param img the {@link RandomAccessibleInterval} to wrap
+     * @param converterSupplier creates {@link Converter}s turning {@link T} into a an {@link ARGBType}
+     * @param title the name assigned to the resulting {@link ImagePlus}
+     * @param service the {@link ExecutorService} used for processing.
+     * @return an RGB {@link ImagePlus} wrapping {@code img}
+     */
+    public static < T > ImagePlus wrapRGB(
+            final RandomAccessibleInterval< T > img,
+            final Supplier< ? extends Converter< T, ARGBType > > converterSupplier,
+            final String title,
+            final ExecutorService service )
+    {
+        return internalWrap( //
+                img, //
+                rai -> new ImageJVirtualStackARGB( rai, converterSupplier, service ), //
+                title, //
+                service //
+        );
+    }
+
+    /**
+     * Create a 24bit RGB {@link ImagePlus} from a
+     * {@link RandomAccessibleInterval} using converters created by
+     * {@code converterSupplier}, one per worker.
+     *
+     * @param <T> element type in source image
+     * @param img the {@link RandomAccessibleInterval} to wrap
+     * @param converterSupplier creates {@link Converter}s turning {@link T} into a an {@link ARGBType}
+     * @param title the name assigned to the resulting {@link ImagePlus}
+     * @return an RGB {@link ImagePlus} wrapping {@code img}
+     */
+    public static < T > ImagePlus wrapRGB(
+            final RandomAccessibleInterval< T > img,
+            final Supplier< ? extends Converter< T, ARGBType > > converterSupplier,
+            final String title )
+    {
+        return wrapRGB( img, converterSupplier, title, null );
+    }
+
     /**
      * Create a 24bit RGB {@link ImagePlus} from a
      * {@link RandomAccessibleInterval} a using a default {@link Converter}.
+     * Dimension 2 of {@code img} holds the red, green, blue and optionally
+     * alpha channel.
+     * <p>
+     * If {@code img} is a {@link net.imglib2.img.planar.PlanarImg} or
+     * {@link net.imglib2.img.array.ArrayImg} of {@link UnsignedByteType}, the
+     * channel planes are packed into {@code int[]} planes directly, see
+     * {@link RGBChannelsToImagePlus}.
      *
      * @param <T> element type in source image
      * @param img the {@link RandomAccessibleInterval} to wrap
@@ -264,6 +640,9 @@ public class RAIToImagePlus {
      */
     public static < T extends RealType<T>> ImagePlus convertRGB( final RandomAccessibleInterval< T > img, final String title )
     {
+        if ( RGBChannelsToImagePlus.isSupported( img ) )
+            return RGBChannelsToImagePlus.wrap( img, title );
+
         // Currently assumes 5d, XYCZT
         final boolean hasAlpha = img.dimension(2) != 3;
         RandomAccessibleInterval<T> permuted = Views.moveAxis(img, 2, img.numDimensions() - 1);
@@ -361,6 +740,49 @@ public class RAIToImagePlus {
         return wrapUnsignedByte( img, converter, title, null );
     }
 
+    /**
+     * Create a single channel 8-bit unsigned integer {@link ImagePlus} from a
+     * {@link RandomAccessibleInterval} using converters created by
+     * {@code converterSupplier}. Every worker computing a plane uses its own
+     * {@link Converter} instance, so stateful converters are safe to use with
+     * a multi-threaded {@code service}.
+     *
+     * @param <T> element type in source image
+     * @param img the {@link RandomAccessibleInterval} to wrap
+     * @param converterSupplier creates {@link Converter}s turning {@link T} into a an {@link UnsignedByteType}
+     * @param title the name assigned to the resulting {@link ImagePlus}
+     * @param service the {@link ExecutorService} used for processing.
+     * @return an {@link ImagePlus} wrapping {@code img}
+     */
+    public static < T > ImagePlus wrapUnsignedByte(
+            final RandomAccessibleInterval< T > img,
+            final Supplier< ? extends Converter< T, UnsignedByteType > > converterSupplier,
+            final String title,
+            final ExecutorService service )
+    {
+        final Supplier< Converter< ? super T, ? super UnsignedByteType > > supplier = converterSupplier::get;
+        return wrapUnsignedByte( Converters.convert( img, supplier, new UnsignedByteType() ), title, service );
+    }
+
+    /**
+     * Create a single channel 8-bit unsigned integer {@link ImagePlus} from a
+     * {@link RandomAccessibleInterval} using converters created by
+     * {@code converterSupplier}, one per worker.
+     *
+     * @param <T> element type in source image
+     * @param img the {@link RandomAccessibleInterval} to wrap
+     * @param converterSupplier creates {@link Converter}s turning {@link T} into a an {@link UnsignedByteType}
+     * @param title the name assigned to the resulting {@link ImagePlus}
+     * @return an {@link ImagePlus} wrapping {@code img}
+     */
+    public static < T > ImagePlus wrapUnsignedByte(
+            final RandomAccessibleInterval< T > img,
+            final Supplier< ? extends Converter< T, UnsignedByteType > > converterSupplier,
+            final String title )
+    {
+        return wrapUnsignedByte( img, converterSupplier, title, null );
+    }
+
     /**
      * Create a single channel 16-bit unsigned integer {@link ImagePlus} from a
      * {@link RandomAccessibleInterval} using a default {@link Converter} (clamp
@@ -440,6 +862,49 @@ public class RAIToImagePlus {
         return wrapUnsignedShort( img, converter, title, null );
     }
 
+    /**
+     * Create a single channel 16-bit unsigned integer {@link ImagePlus} from a
+     * {@link RandomAccessibleInterval} using converters created by
+     * {@code converterSupplier}. Every worker computing a plane uses its own
+     * {@link Converter} instance, so stateful converters are safe to use with
+     * a multi-threaded {@code service}.
+     *
+     * @param <T> element type in source image
+     * @param img the {@link RandomAccessibleInterval} to wrap
+     * @param converterSupplier creates {@link Converter}s turning {@link T} into a an {@link UnsignedShortType}
+     * @param title the name assigned to the resulting {@link ImagePlus}
+     * @param service the {@link ExecutorService} used for processing.
+     * @return an {@link ImagePlus} wrapping {@code img}
+     */
+    public static < T > ImagePlus wrapUnsignedShort(
+            final RandomAccessibleInterval< T > img,
+            final Supplier< ? extends Converter< T, UnsignedShortType > > converterSupplier,
+            final String title,
+            final ExecutorService service )
+    {
+        final Supplier< Converter< ? super T, ? super UnsignedShortType > > supplier = converterSupplier::get;
+        return wrapUnsignedShort( Converters.convert( img, supplier, new UnsignedShortType() ), title, service );
+    }
+
+    /**
+     * Create a single channel 16-bit unsigned integer {@link ImagePlus} from a
+     * {@link RandomAccessibleInterval} using converters created by
+     * {@code converterSupplier}, one per worker.
+     *
+     * @param <T> element type in source image
+     * @param img the {@link RandomAccessibleInterval} to wrap
+     * @param converterSupplier creates {@link Converter}s turning {@link T} into a an {@link UnsignedShortType}
+     * @param title the name assigned to the resulting {@link ImagePlus}
+     * @return an {@link ImagePlus} wrapping {@code img}
+     */
+    public static < T > ImagePlus wrapUnsignedShort(
+            final RandomAccessibleInterval< T > img,
+            final Supplier< ? extends Converter< T, UnsignedShortType > > converterSupplier,
+            final String title )
+    {
+        return wrapUnsignedShort( img, converterSupplier, title, null );
+    }
+
     /**
      * Create a single channel 8-bit unsigned integer {@link ImagePlus} from a
      * {@link BooleanType} {@link RandomAccessibleInterval} using a custom
@@ -546,6 +1011,46 @@ public class RAIToImagePlus {
         return imp;
     }
 
+    /**
+     * Sets the display range and hyperstack flag of an {@link ImagePlus}
+     * that shares the pixels of {@code img}, as {@link ImageJVirtualStack}
+     * and {@link #makeImagePlus} would.
+     */
+    private static ImagePlus initZeroCopy( final ImagePlus imp, final RandomAccessibleInterval< ? > img )
+    {
+        final Object type = img.getType();
+        if ( type instanceof UnsignedByteType )
+            imp.setDisplayRange( 0, 255 );
+        else if ( type instanceof UnsignedShortType )
+            imp.setDisplayRange( 0, 65535 );
+        else if ( type instanceof FloatType )
+            imp.setDisplayRange( 0, 1 );
+        if ( img.numDimensions() > 2 )
+            imp.setOpenAsHyperStack( true );
+        return imp;
+    }
+
+    /**
+     * Returns the {@link ImagePlus} that backs {@code img}, or {@code null}.
+     */
+    private static ImagePlus unwrapImagePlus( final RandomAccessibleInterval< ? > img )
+    {
+        if ( img instanceof CachedPlanarImg )
+            return ( ( CachedPlanarImg< ?, ? > ) img ).getImagePlus();
+        if ( img instanceof ImagePlusImg && ImageProcessorUtils.isSupported( ( ( ImagePlusImg< ?, ? > ) img ).getType() ) )
+        {
+            try
+            {
+                return ( ( ImagePlusImg< ?, ? > ) img ).getImagePlus();
+            }
+            catch ( final ImgLibException e )
+            {
+                return null;
+            }
+        }
+        return null;
+    }
+
     private static ImagePlus makeImagePlus( final Dimensions dims, final VirtualStack stack, final String title )
     {
         final ImagePlus imp = new ImagePlus( title, stack );
@@ -35,12 +35,16 @@
 package net.imglib2.imagej.imageplus;
 
 import net.imglib2.exception.ImgLibException;
+import net.imglib2.imagej.img.AbstractVirtualStack;
 import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
 import net.imglib2.img.planar.PlanarImg;
 import net.imglib2.type.NativeType;
 import net.imglib2.util.Fraction;
 
+import java.util.function.IntFunction;
+
 import ij.ImagePlus;
+import ij.ImageStack;
 
 /**
  * A container that stores data in an array of 2D slices each as a linear array
@@ -78,6 +82,30 @@ public class ImagePlusImg< T extends NativeType< T >, A extends ArrayDataAccess<
 				new Fraction() );
 	}
 
+	/**
+	 * Creates an {@link ImagePlusImg} with the dimensions of {@code imp},
+	 * whose planes are obtained lazily from {@code planeLoader} on first
+	 * access. The constructor takes constant time, and planes that are never
+	 * accessed are never loaded. Plane {@code i} corresponds to the one based
+	 * stack index {@code i + 1} of {@code imp}.
+	 *
+	 * @param imp the {@link ImagePlus} providing the dimensions
+	 * @param planeLoader returns the plane for a zero based plane index
+	 */
+	protected ImagePlusImg( final ImagePlus imp, final IntFunction< A > planeLoader )
+	{
+		super(
+				new LazyPlaneList<>( imp.getNChannels() * imp.getNSlices() * imp.getNFrames(), planeLoader ),
+				reduceDimensions( new long[] { imp.getWidth(), imp.getHeight(), imp.getNChannels(), imp.getNSlices(), imp.getNFrames() } ),
+				new Fraction() );
+
+		this.width = imp.getWidth();
+		this.height = imp.getHeight();
+		this.depth = imp.getNSlices();
+		this.frames = imp.getNFrames();
+		this.channels = imp.getNChannels();
+	}
+
 	protected ImagePlusImg(
 			final int width,
 			final int height,
@@ -154,6 +182,80 @@ public class ImagePlusImg< T extends NativeType< T >, A extends ArrayDataAccess<
 		throw new ImgLibException( this, "has no ImagePlus instance, it is not a standard type of ImagePlus" );
 	}
 
+	/**
+	 * Copies the pixels of {@code plane} into the plane with the given index.
+	 * Unlike {@link #setPlane(int, ArrayDataAccess)}, the arrays of this image
+	 * and its {@link ImagePlus} stay the same, and {@code plane} can be reused
+	 * by the caller.
+	 *
+	 * @param no zero based index of the plane
+	 * @param plane the new pixels of the plane
+	 */
+	public void setPlaneCopy( final int no, final A plane )
+	{
+		System.arraycopy( plane.getCurrentStorageArray(), 0, mirror.get( no ).getCurrentStorageArray(), 0, plane.getArrayLength() );
+	}
+
+	/**
+	 * Replaces the plane with the given index by {@code plane}, without
+	 * copying. The array of {@code plane} becomes the pixel array of the
+	 * corresponding slice of {@code imp}, and of the current processor of
+	 * {@code imp} if that slice is shown, such that both stay consistent with
+	 * the mirror of this image. If {@code imp} is {@code null}, only the mirror
+	 * is updated.
+	 * <p>
+	 * If the stack of {@code imp} is virtual, it can't take the array. The
+	 * pixels are copied into the plane of the mirror, see
+	 * {@link #setPlaneCopy(int, ArrayDataAccess)}, and written to the stack
+	 * with {@link ImageStack#setPixels(Object, int)}. The current processor
+	 * is reloaded if the slice is shown.
+	 * <p>
+	 * Concurrent calls are serialized on this image. Readers of the stack,
+	 * the processor and the mirror take no lock. The slice of the stack, the
+	 * processor and the mirror are updated in this order, so a concurrent
+	 * reader may see the new array in the stack and the old one in the
+	 * mirror, and pixels written to the old array meanwhile are lost. Only
+	 * threads that synchronize on this image, or otherwise happen after this
+	 * call, are guaranteed to see all three updated.
+	 *
+	 * @param no zero based index of the plane
+	 * @param plane the new plane, its array must have the length of a plane
+	 * @param imp the {@link ImagePlus} of this image, may be {@code null}
+	 * @throws UnsupportedOperationException if the stack of {@code imp} is
+	 *             virtual and not writable, see
+	 *             {@link AbstractVirtualStack#isWritableStack(ImageStack)}.
+	 *             Nothing is changed then.
+	 */
+	protected synchronized void swapPlane( final int no, final A plane, final ImagePlus imp )
+	{
+		if ( plane.getArrayLength() != numEntities( entitiesPerPixel ) )
+			throw new IllegalArgumentException( "Plane has " + plane.getArrayLength() + " entities, expected " + numEntities( entitiesPerPixel ) + "." );
+		if ( imp == null )
+		{
+			mirror.set( no, plane );
+			return;
+		}
+		final ImageStack stack = imp.getStack();
+		if ( stack.isVirtual() )
+		{
+			if ( !AbstractVirtualStack.isWritableStack( stack ) )
+				throw new UnsupportedOperationException( "The virtual stack of " + imp.getTitle() + " is not writable." );
+			setPlaneCopy( no, plane );
+			stack.setPixels( mirror.get( no ).getCurrentStorageArray(), no + 1 );
+			if ( imp.getCurrentSlice() == no + 1 )
+				imp.getProcessor().setPixels( stack.getPixels( no + 1 ) );
+			return;
+		}
+		final Object pixels = plane.getCurrentStorageArray();
+		stack.setPixels( pixels, no + 1 );
+		// NB: The processor of the current slice shares the array of the
+		// slice. It must be updated too, otherwise it keeps showing, and
+		// writing to, the replaced array.
+		if ( imp.getCurrentSlice() == no + 1 )
+			imp.getProcessor().setPixels( pixels );
+		mirror.set( no, plane );
+	}
+
 	/*
 	 * protected static long[] expandDimensions( final long[] dimensions ) {
 	 * if(dimensions.length >= 5) return dimensions;
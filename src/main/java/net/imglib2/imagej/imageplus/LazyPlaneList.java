@@ -0,0 +1,122 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2025 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Gabriel Selzer, Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.imagej.imageplus;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+
+/**
+ * A fixed size {@link java.util.List} of planes, that loads every plane on
+ * first access. Used as mirror of {@link ImagePlusImg}s that wrap an existing
+ * {@link ij.ImagePlus}, such that wrapping takes constant time and only planes
+ * that are actually used are requested from the {@link ij.ImageStack}.
+ * <p>
+ * The list is thread-safe. If two threads request the same plane
+ * concurrently, the plane may be loaded twice, but both threads get the same
+ * instance.
+ *
+ * @param <A> plane type
+ */
+class LazyPlaneList< A > extends AbstractList< A > implements RandomAccess
+{
+	private static final int CHUNK_BITS = 10;
+
+	private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	private final int size;
+
+	private final IntFunction< A > loader;
+
+	private final AtomicReferenceArray< AtomicReferenceArray< A > > chunks;
+
+	/**
+	 * @param size number of planes
+	 * @param loader returns the plane for a zero based index
+	 */
+	LazyPlaneList( final int size, final IntFunction< A > loader )
+	{
+		this.size = size;
+		this.loader = loader;
+		this.chunks = new AtomicReferenceArray<>( ( size + CHUNK_SIZE - 1 ) >>> CHUNK_BITS );
+	}
+
+	@Override
+	public A get( final int index )
+	{
+		final AtomicReferenceArray< A > chunk = chunk( index );
+		final int i = index & CHUNK_MASK;
+		final A plane = chunk.get( i );
+		if ( plane != null )
+			return plane;
+		final A loaded = loader.apply( index );
+		return chunk.compareAndSet( i, null, loaded ) ? loaded : chunk.get( i );
+	}
+
+	@Override
+	public A set( final int index, final A plane )
+	{
+		return chunk( index ).getAndSet( index & CHUNK_MASK, plane );
+	}
+
+	@Override
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Returns true if the plane has already been loaded.
+	 */
+	boolean isLoaded( final int index )
+	{
+		final AtomicReferenceArray< A > chunk = chunks.get( index >>> CHUNK_BITS );
+		return chunk != null && chunk.get( index & CHUNK_MASK ) != null;
+	}
+
+	private AtomicReferenceArray< A > chunk( final int index )
+	{
+		if ( index < 0 || index >= size )
+			throw new IndexOutOfBoundsException( "Index: " + index + ", Size: " + size );
+		final int c = index >>> CHUNK_BITS;
+		final AtomicReferenceArray< A > chunk = chunks.get( c );
+		if ( chunk != null )
+			return chunk;
+		chunks.compareAndSet( c, null, new AtomicReferenceArray<>( CHUNK_SIZE ) );
+		return chunks.get( c );
+	}
+}
@@ -87,29 +87,24 @@ public class ShortImagePlus< T extends NativeType< T > > extends ImagePlusImg< T
 
 	public ShortImagePlus( final ImagePlus imp )
 	{
-		super( imp );
+		// NB: planes are fetched from the stack on first access
+		super( imp, i -> new ShortArray( ( short[] ) imp.getStack().getPixels( i + 1 ) ) );
 
 		this.imp = imp;
-
-		mirror.clear();
-		for ( int t = 0; t < frames; ++t )
-			for ( int z = 0; z < depth; ++z )
-				for ( int c = 0; c < channels; ++c )
-					mirror.add( new ShortArray( ( short[] ) imp.getStack().getProcessor( imp.getStackIndex( c + 1, z + 1, t + 1 ) ).getPixels() ) );
 	}
 
 	/**
-	 * This has to be overwritten, otherwise two different instances exist (one
-	 * in the imageplus, one in the mirror)
+	 * Replaces the plane with the given index by {@code plane} without
+	 * copying. The array of {@code plane} is used by this image and by its
+	 * {@link ImagePlus}, otherwise two different instances would exist (one in
+	 * the imageplus, one in the mirror). Use
+	 * {@link #setPlaneCopy(int, net.imglib2.img.basictypeaccess.array.ArrayDataAccess)}
+	 * to copy the pixels instead.
 	 */
 	@Override
 	public void setPlane( final int no, final ShortArray plane )
 	{
-		// TODO: this should work, but does not for plane 0, why???
-		// mirror.set( no, plane );
-		// imp.getStack().setPixels( plane.getCurrentStorageArray(), no + 1 );
-
-		System.arraycopy( plane.getCurrentStorageArray(), 0, mirror.get( no ).getCurrentStorageArray(), 0, plane.getCurrentStorageArray().length );
+		swapPlane( no, plane, imp );
 	}
 
 	@Override
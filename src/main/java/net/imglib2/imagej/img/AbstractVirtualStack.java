@@ -36,6 +36,9 @@ package net.imglib2.imagej.img;
 
 import java.awt.Rectangle;
 import java.awt.image.ColorModel;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
 import java.util.function.BiConsumer;
 import java.util.stream.IntStream;
 
@@ -57,6 +60,18 @@ import net.imglib2.view.Views;
  * Abstract class to simplify the implementation of an {@link VirtualStack}.
  * <p>
  * This class is intended to be used in {@link ImageJVirtualStack} and {@link PlanarImgToImagePlus}.
+ * <p>
+ * Concurrency: ImageJ's multi-threaded filters request and write back
+ * different planes from different threads. Writing ({@link #setPixels},
+ * {@link #setProcessor}, {@link #setVoxels}) holds the lock of the plane
+ * being written, so concurrent writes to the same plane never interleave,
+ * while writes to different planes mostly proceed in parallel. The locks are
+ * striped: a fixed number of locks is shared by all planes. Reading a plane
+ * ({@link #getPixels}, {@link #getProcessor}) is optimistic and doesn't take
+ * the lock: if a write to the plane overlapped the read, the read is
+ * repeated while holding the lock, such that it never returns a partially
+ * written plane. {@link #getVoxels} doesn't lock and may observe a
+ * partially written plane.
  *
  * @author Matthias Arzt
  */
@@ -78,6 +93,13 @@ public abstract class AbstractVirtualStack extends VirtualStack
 
 	private double min = 0.0, max = 1.0;
 
+	private static final int NUM_LOCK_STRIPES = 64;
+
+	private final ReentrantLock[] planeLocks;
+
+	// NB: Only used to detect writes that overlap an optimistic read.
+	private final StampedLock[] planeVersions;
+
 	public AbstractVirtualStack( final int width, final int height, final int size, final int bitDepth )
 	{
 		super( 10, 10, null, "" );
@@ -88,6 +110,13 @@ public abstract class AbstractVirtualStack extends VirtualStack
 		this.bitDepth = bitDepth;
 		this.colorModel = null;
 		this.roi = new Rectangle( 0, 0, width, height );
+		this.planeLocks = new ReentrantLock[ NUM_LOCK_STRIPES ];
+		this.planeVersions = new StampedLock[ NUM_LOCK_STRIPES ];
+		for ( int i = 0; i < NUM_LOCK_STRIPES; i++ )
+		{
+			planeLocks[ i ] = new ReentrantLock();
+			planeVersions[ i ] = new StampedLock();
+		}
 	}
 
 	protected void setMinAndMax( final double min, final double max )
@@ -99,17 +128,73 @@ public abstract class AbstractVirtualStack extends VirtualStack
 	@Override
 	public final Object getPixels( int n )
 	{
-		return getPixelsZeroBasedIndex( toZeroBasedIndex( n ) );
+		final int index = toZeroBasedIndex( n );
+		final StampedLock version = planeVersions[ stripe( index ) ];
+		final long stamp = version.tryOptimisticRead();
+		if ( stamp != 0 )
+		{
+			final Object pixels = getPixelsZeroBasedIndex( index );
+			if ( version.validate( stamp ) )
+				return pixels;
+		}
+		final Lock lock = getPlaneLock( index );
+		lock.lock();
+		try
+		{
+			return getPixelsZeroBasedIndex( index );
+		}
+		finally
+		{
+			lock.unlock();
+		}
 	}
 
 	@Override
 	public final void setPixels( final Object pixels, final int n )
 	{
 		if( isWritable() )
-			setPixelsZeroBasedIndex( toZeroBasedIndex( n ), pixels );
+		{
+			final int index = toZeroBasedIndex( n );
+			final Lock lock = getPlaneLock( index );
+			lock.lock();
+			final long stamp = planeVersions[ stripe( index ) ].writeLock();
+			try
+			{
+				setPixelsZeroBasedIndex( index, pixels );
+			}
+			finally
+			{
+				planeVersions[ stripe( index ) ].unlockWrite( stamp );
+				lock.unlock();
+			}
+		}
 	}
 
-	private int toZeroBasedIndex( int n )
+	/**
+	 * Returns the lock that guards writing to the specified XY-plane. The lock
+	 * is held while {@link #setPixels} and {@link #setVoxels} write to the
+	 * plane. Subclasses that modify a plane by other means should hold it too.
+	 * Several planes share the same lock.
+	 *
+	 * @param index Zero based index of the plane.
+	 * @return the lock of the plane
+	 */
+	protected Lock getPlaneLock( final int index )
+	{
+		return planeLocks[ stripe( index ) ];
+	}
+
+	private static int stripe( final int index )
+	{
+		return Math.floorMod( index, NUM_LOCK_STRIPES );
+	}
+
+	/**
+	 * Converts the one based slice number used by {@link VirtualStack} into
+	 * the zero based plane index used by the methods of this class. The index
+	 * differs from {@code n - 1} after the first slice was deleted.
+	 */
+	protected int toZeroBasedIndex( int n )
 	{
 		return ( n - 1 ) + offset;
 	}
@@ -122,6 +207,20 @@ public abstract class AbstractVirtualStack extends VirtualStack
 		return true;
 	}
 
+	/**
+	 * Returns true if {@link ImageStack#setPixels} changes the content of the
+	 * given virtual stack, that is if it is an {@link AbstractVirtualStack}
+	 * that {@link #isWritable() is writable}. Other virtual stacks may ignore
+	 * the pixels.
+	 *
+	 * @param stack a virtual {@link ImageStack}
+	 * @return true if {@code stack} stores the pixels set on it
+	 */
+	public static boolean isWritableStack( final ImageStack stack )
+	{
+		return stack instanceof AbstractVirtualStack && ( ( AbstractVirtualStack ) stack ).isWritable();
+	}
+
 	/**
 	 * This method is used internally by {@link AbstractVirtualStack} to implement {@link #getPixels}.
 	 * <p>
@@ -428,7 +527,7 @@ public abstract class AbstractVirtualStack extends VirtualStack
 		if( ! setVoxel )
 			voxels = checkResultArray( w, h, d, voxels );
 		BiConsumer< Object, FloatType > action = ( BiConsumer< Object, FloatType > ) voxelAccessAction( optionalChannel, setVoxel );
-		loopOverVoxels( x0, y0, z0, w, h, d, voxels, action );
+		loopOverVoxels( x0, y0, z0, w, h, d, voxels, action, setVoxel );
 		return voxels;
 	}
 
@@ -446,15 +545,33 @@ public abstract class AbstractVirtualStack extends VirtualStack
 		return voxels;
 	}
 
-	private void loopOverVoxels( int x0, int y0, int z0, int w, int h, int d, float[] voxels, BiConsumer< Object, FloatType > action )
+	private void loopOverVoxels( int x0, int y0, int z0, int w, int h, int d, float[] voxels, BiConsumer< Object, FloatType > action, boolean lockPlanes )
 	{
 		FinalInterval interval = Intervals.createMinSize( x0, y0, w, h );
 		Cursor< FloatType > output = ArrayImgs.floats( voxels, w, h, d ).cursor();
 		for ( int z = z0 + offset; z < z0 + offset + d; z++ )
 		{
-			Cursor< ? > cursor = Views.flatIterable( Views.interval( getSliceZeroBasedIndex( z ), interval ) ).cursor();
-			while ( cursor.hasNext() ) {
-				action.accept( cursor.next(), output.next() );
+			final Lock lock = lockPlanes ? getPlaneLock( z ) : null;
+			long stamp = 0;
+			if ( lock != null )
+			{
+				lock.lock();
+				stamp = planeVersions[ stripe( z ) ].writeLock();
+			}
+			try
+			{
+				Cursor< ? > cursor = Views.flatIterable( Views.interval( getSliceZeroBasedIndex( z ), interval ) ).cursor();
+				while ( cursor.hasNext() ) {
+					action.accept( cursor.next(), output.next() );
+				}
+			}
+			finally
+			{
+				if ( lock != null )
+				{
+					planeVersions[ stripe( z ) ].unlockWrite( stamp );
+					lock.unlock();
+				}
 			}
 		}
 	}
@@ -36,19 +36,34 @@ package net.imglib2.imagej.img;
 
 import ij.ImagePlus;
 import ij.process.ImageProcessor;
+import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.img.array.ArrayImg;
 import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
 import net.imglib2.type.numeric.ARGBType;
 import net.imglib2.type.numeric.integer.UnsignedByteType;
 import net.imglib2.type.numeric.integer.UnsignedShortType;
 import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Intervals;
 
-public class ArrayImgToImagePlus
+import java.lang.reflect.Array;
+
+/**
+ * Utility class to convert an {@link ArrayImg} to an {@link ImagePlus}. It is
+ * restricted to certain pixel types: UnsignedByteType, UnsignedShortType,
+ * ARGBType and FloatType.
+ * <p>
+ * A two dimensional {@link ArrayImg} shares its array with the
+ * {@link ImagePlus}. For more dimensions, each XY-plane is a contiguous range
+ * of the array. The {@link ImagePlus} is then backed by a virtual stack that
+ * reads and writes a plane with a single {@link System#arraycopy}.
+ *
+ * @see PlanarImgToImagePlus
+ * @see CellImgToImagePlus
+ */
+public class ArrayImgToImagePlus extends AbstractVirtualStack
 {
-	private ArrayImgToImagePlus()
-	{
-		// prevent from instantiation
-	}
+
+	// static
 
 	/**
 	 * Indicates if {@link #wrap(net.imglib2.img.array.ArrayImg, String)} wrap} supports the image.
@@ -66,21 +81,24 @@ public class ArrayImgToImagePlus
 		Object storageArray = img.update(null);
 		if (! (storageArray instanceof ArrayDataAccess))
 			return false;
-		return img.numDimensions() == 2 &&
+		return img.numDimensions() >= 2 && img.numDimensions() <= 5 &&
 				ImageProcessorUtils.isSupported( img.getType() );
 	}
 
 	/**
 	 * Takes an {@link ArrayImg} and wraps it into an {@link ImagePlus}
-	 * (IJ1). This only works when {@link ArrayImg} is backed by a two
-	 * dimensional {@link ArrayImg}. Type of the image must be
-	 * {@link UnsignedByteType}, {@link UnsignedShortType}, {@link ARGBType} or
-	 * {@link FloatType}.
+	 * (IJ1). Type of the image must be {@link UnsignedByteType},
+	 * {@link UnsignedShortType}, {@link ARGBType} or {@link FloatType}. Only
+	 * up to five dimensions are supported. Axes are presumed to start with X,
+	 * Y. Channel, Z, and Time axes are assumed to map to any following
+	 * dimensions, in that order.
 	 * <p>
-	 * The returned {@link ImagePlus} uses the same pixel buffer as the given
-	 * image. Changes to the {@link ImagePlus} are therefore correctly reflected
-	 * in the {@link ArrayImg}. The title and calibration are derived from the
-	 * given image.
+	 * If the {@link ArrayImg} is two dimensional, the returned
+	 * {@link ImagePlus} uses the same pixel buffer as the given image.
+	 * Otherwise, its stack copies the planes from and to the pixel buffer of
+	 * the given image. Changes to the {@link ImagePlus} are in both cases
+	 * correctly reflected in the {@link ArrayImg}, for a stack as soon as
+	 * they are written back with {@link ij.ImageStack#setPixels(Object, int)}.
 	 * <p>
 	 * Use {@link #isSupported(Object)} to check if an {@link ImagePlus} is
 	 * supported.
@@ -96,8 +114,67 @@ public class ArrayImgToImagePlus
 		final int sizeX = ( int ) img.dimension( 0 );
 		final int sizeY = ( int ) img.dimension( 1 );
 		final Object pixels = img.update( null ).getCurrentStorageArray();
-		final ImageProcessor processor = ImageProcessorUtils.createImageProcessor( pixels, sizeX, sizeY, null );
-        return new ImagePlus( name, processor );
+		if ( img.numDimensions() == 2 )
+		{
+			final ImageProcessor processor = ImageProcessorUtils.createImageProcessor( pixels, sizeX, sizeY, null );
+			return new ImagePlus( name, processor );
+		}
+		final ImagePlus imp = new ImagePlus( name, new ArrayImgToImagePlus( img, pixels ) );
+		ImageStackUtils.setDimensions( imp, img );
+		return imp;
+	}
+
+	// fields
+
+	private final ArrayImg< ?, ? > img;
+
+	private final Object pixels;
+
+	private final int planeSize;
+
+	// constructor
+
+	private ArrayImgToImagePlus( final ArrayImg< ?, ? > img, final Object pixels )
+	{
+		super( ( int ) img.dimension( 0 ), ( int ) img.dimension( 1 ), ( int ) ( Intervals.numElements( img ) / ( img.dimension( 0 ) * img.dimension( 1 ) ) ),
+				PlanarImgToImagePlus.getBitDepth( img.getType() ) );
+		this.img = img;
+		this.pixels = pixels;
+		this.planeSize = ( int ) ( img.dimension( 0 ) * img.dimension( 1 ) );
+	}
+
+	// public methods
+
+	/**
+	 * Returns the {@link ArrayImg} given to {@link #wrap(ArrayImg, String)}.
+	 * <p>
+	 * NB: The image still contains all planes, even if slices were deleted
+	 * from this stack.
+	 */
+	public ArrayImg< ?, ? > getSource()
+	{
+		return img;
+	}
+
+	@Override
+	protected Object getPixelsZeroBasedIndex( final int index )
+	{
+		final Object plane = Array.newInstance( pixels.getClass().getComponentType(), planeSize );
+		System.arraycopy( pixels, index * planeSize, plane, 0, planeSize );
+		return plane;
+	}
+
+	@Override
+	protected void setPixelsZeroBasedIndex( final int index, final Object plane )
+	{
+		System.arraycopy( plane, 0, pixels, index * planeSize, planeSize );
+	}
+
+	@Override
+	protected RandomAccessibleInterval< ? > getSliceZeroBasedIndex( final int index )
+	{
+		// NB: A view of the plane, such that setVoxels writes to the image.
+		return CellImgToImagePlus.planeView( img, index );
 	}
 
 }
@@ -0,0 +1,409 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2025 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Gabriel Selzer, Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.imagej.img;
+
+import ij.ImageListener;
+import ij.ImagePlus;
+import ij.process.ImageProcessor;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.cache.img.CachedCellImg;
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
+import net.imglib2.img.basictypeaccess.volatiles.VolatileAccess;
+import net.imglib2.img.cell.Cell;
+import net.imglib2.img.cell.CellGrid;
+import net.imglib2.util.IntervalIndexer;
+import net.imglib2.util.Intervals;
+
+import java.awt.EventQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Wraps a {@link CachedCellImg} into an {@link ImagePlus} without blocking
+ * the display on cells that are not loaded yet.
+ * <p>
+ * A plane is assembled from the cells that are already in the cache of the
+ * image. Regions of cells that are missing, or that are {@link VolatileAccess
+ * volatile} and not yet valid, are left zero, and the missing cells are loaded
+ * in the background by the {@link PlaneScheduler}. Cells of the slice that
+ * is shown by the {@link ImagePlus} are loaded with
+ * {@link PlaneScheduler.Priority#VISIBLE} priority, cells of other planes,
+ * e.g. requested by a plugin, with {@link PlaneScheduler.Priority#BACKGROUND}
+ * priority. Whenever cells of the shown slice arrive, they are copied into
+ * its {@link ImageProcessor} and the slice is redrawn. Only the regions of
+ * the arrived cells are replaced, so edits elsewhere in the slice are kept.
+ * When a different slice is shown, loads that did not start yet are dropped,
+ * such that scrolling through a stack loads the slice that is shown first.
+ * <p>
+ * When the {@link ImagePlus} is closed, or the stack is {@link #close()
+ * closed}, pending loads are cancelled.
+ * <p>
+ * NB: Plugins that process the stack see the placeholder values of cells that
+ * are not loaded. Use {@link #setBlocking(boolean)} to load all cells of a
+ * plane before it is returned.
+ *
+ * @see CellImgToImagePlus
+ */
+public class CachedCellImgToImagePlus extends AbstractVirtualStack
+{
+
+	// static
+
+	/**
+	 * Returns true, if {@link #wrap(CachedCellImg, String)} supports the given image.
+	 * @param obj an {@link Object} that may be supported by {@code wrap}
+	 * @return {@code true} iff {@code obj} can be converted into an {@link ImagePlus}.
+	 */
+	public static boolean isSupported( Object obj )
+	{
+		if ( !( obj instanceof CachedCellImg ) )
+			return false;
+		final CachedCellImg< ?, ? > img = ( CachedCellImg< ?, ? > ) obj;
+		return img.getAccessType() instanceof ArrayDataAccess &&
+				img.numDimensions() >= 2 && img.numDimensions() <= 5 &&
+				ImageProcessorUtils.isSupported( img.getType() );
+	}
+
+	/**
+	 * Wraps a {@link CachedCellImg} into an {@link ImagePlus}, whose planes
+	 * are assembled from the loaded cells without waiting for the missing
+	 * ones. The pixel type must be UnsignedByte-, UnsignedShort-, ARGB- or
+	 * FloatType. Axes are presumed to start with X, Y. Channel, Z, and Time
+	 * axes are assumed to map to any following dimensions, in that order.
+	 * <p>
+	 * Planes written to the stack are copied into the cells, loading them if
+	 * necessary.
+	 *
+	 * @param img the {@link CachedCellImg} to convert
+	 * @param name the {@link String} title to assign to the result
+	 * @return an {@link ImagePlus} showing the data in {@code img}
+	 * @see #isSupported(Object)
+	 */
+	public static ImagePlus wrap( CachedCellImg< ?, ? > img, String name )
+	{
+		return wrap( img, name, PlaneScheduler.getInstance() );
+	}
+
+	/**
+	 * Same as {@link #wrap(CachedCellImg, String)}, but loads the missing cells
+	 * with the given {@link PlaneScheduler}.
+	 *
+	 * @param img the {@link CachedCellImg} to convert
+	 * @param name the {@link String} title to assign to the result
+	 * @param scheduler the {@link PlaneScheduler} used to load cells
+	 * @return an {@link ImagePlus} showing the data in {@code img}
+	 */
+	public static ImagePlus wrap( CachedCellImg< ?, ? > img, String name, PlaneScheduler scheduler )
+	{
+		if ( !isSupported( img ) )
+			throw new IllegalArgumentException( "Image is not supported: " + img );
+		final CachedCellImgToImagePlus stack = new CachedCellImgToImagePlus( img, scheduler );
+		final ImagePlus imp = new ImagePlus( name, stack );
+		ImageStackUtils.setDimensions( imp, img );
+		stack.imp = imp;
+		ImagePlus.addImageListener( stack.listener );
+		// NB: The constructor of the ImagePlus already requested the first
+		// plane. Cells that arrived before imp was set were not redrawn.
+		stack.repaint();
+		return imp;
+	}
+
+	// fields
+
+	private final CachedCellImg< ?, ? > img;
+
+	private final PlaneScheduler scheduler;
+
+	private final Set< Long > loading = ConcurrentHashMap.newKeySet();
+
+	private final AtomicBoolean repaintPending = new AtomicBoolean();
+
+	// NB: zero based index of the slice shown by imp, see load()
+	private volatile int shownPlane = -1;
+
+	// NB: grid positions of the cells of shownPlane that arrived, see repaint()
+	private final Queue< long[] > arrived = new ConcurrentLinkedQueue<>();
+
+	private volatile boolean blocking = false;
+
+	private volatile ImagePlus imp;
+
+	private final Listener listener = new Listener( this );
+
+	// constructor
+
+	private CachedCellImgToImagePlus( final CachedCellImg< ?, ? > img, final PlaneScheduler scheduler )
+	{
+		super( ( int ) img.dimension( 0 ), ( int ) img.dimension( 1 ), ( int ) ( Intervals.numElements( img ) / ( img.dimension( 0 ) * img.dimension( 1 ) ) ),
+				PlanarImgToImagePlus.getBitDepth( img.getType() ) );
+		this.img = img;
+		this.scheduler = scheduler;
+	}
+
+	// public methods
+
+	/**
+	 * Returns the {@link CachedCellImg} given to {@link #wrap(CachedCellImg, String)}.
+	 */
+	public CachedCellImg< ?, ? > getSource()
+	{
+		return img;
+	}
+
+	/**
+	 * If {@code blocking} is true, all cells of a plane are loaded before it
+	 * is returned, like {@link CellImgToImagePlus} does. By default, missing
+	 * cells are loaded in the background.
+	 *
+	 * @param blocking true to wait for missing cells
+	 */
+	public void setBlocking( final boolean blocking )
+	{
+		this.blocking = blocking;
+	}
+
+	/**
+	 * @return the number of cells that are scheduled or being loaded in the
+	 *         background
+	 */
+	public int getNumLoading()
+	{
+		return loading.size();
+	}
+
+	/**
+	 * Cancels pending loads and unregisters the listener that does so when
+	 * the {@link ImagePlus} is closed. Call this if the stack is no longer
+	 * shown, but the {@link ImagePlus} isn't closed. The stack can still be
+	 * used, but it no longer redraws the {@link ImagePlus}.
+	 */
+	public void close()
+	{
+		ImagePlus.removeImageListener( listener );
+		imp = null;
+		scheduler.cancelPending( this );
+		loading.clear();
+		arrived.clear();
+	}
+
+	@Override
+	protected Object getPixelsZeroBasedIndex( final int index )
+	{
+		final Object pixels = ImageProcessorUtils.newPlane( getBitDepth(), getWidth() * getHeight() );
+		final List< long[] > missing = copyCells( pixels, index, blocking, false );
+		if ( !missing.isEmpty() )
+			load( index, missing );
+		return pixels;
+	}
+
+	@Override
+	protected void setPixelsZeroBasedIndex( final int index, final Object pixels )
+	{
+		copyCells( pixels, index, true, true );
+	}
+
+	@Override
+	protected RandomAccessibleInterval< ? > getSliceZeroBasedIndex( final int index )
+	{
+		// NB: A view of the plane, such that setVoxels writes to the image.
+		return CellImgToImagePlus.planeView( img, index );
+	}
+
+	// Helper methods
+
+	/**
+	 * Copies the given plane from the cells that intersect it, or into them if
+	 * {@code toCells} is true. If {@code load} is false, only cells that are
+	 * in the cache and valid are copied, and the grid positions of the others
+	 * are returned.
+	 */
+	private List< long[] > copyCells( final Object pixels, final int plane, final boolean load, final boolean toCells )
+	{
+		final int n = img.numDimensions();
+		final CellGrid grid = img.getCellGrid();
+		final long[] gridDimensions = grid.getGridDimensions();
+		final long[] position = ImageProcessorUtils.planePosition( img, plane );
+		final long[] gridPosition = new long[ n ];
+		for ( int d = 2; d < n; d++ )
+			gridPosition[ d ] = position[ d ] / grid.cellDimension( d );
+
+		final RandomAccess< ? extends Cell< ? > > cells = img.getCells().randomAccess();
+		final List< long[] > missing = new ArrayList<>();
+		for ( long gy = 0; gy < gridDimensions[ 1 ]; gy++ )
+		{
+			for ( long gx = 0; gx < gridDimensions[ 0 ]; gx++ )
+			{
+				gridPosition[ 0 ] = gx;
+				gridPosition[ 1 ] = gy;
+				final Cell< ? > cell = load ?
+						cells.setPositionAndGet( gridPosition ) :
+						img.getCache().getIfPresent( IntervalIndexer.positionToIndex( gridPosition, gridDimensions ) );
+				if ( cell == null || !isValid( cell ) && !load )
+					missing.add( gridPosition.clone() );
+				else
+					ImageProcessorUtils.copyCell( pixels, getWidth(), position, cell, toCells );
+			}
+		}
+		return missing;
+	}
+
+	private static boolean isValid( final Cell< ? > cell )
+	{
+		final Object access = cell.getData();
+		return !( access instanceof VolatileAccess ) || ( ( VolatileAccess ) access ).isValid();
+	}
+
+	/**
+	 * Schedules loading the given cells of a plane. If the plane is shown,
+	 * the cells are loaded with {@link PlaneScheduler.Priority#VISIBLE}
+	 * priority and redrawn when they arrive. If a different slice is shown
+	 * than before, pending loads are dropped.
+	 */
+	private void load( final int plane, final List< long[] > gridPositions )
+	{
+		final ImagePlus imp = this.imp;
+		// NB: While the ImagePlus is constructed, it requests the plane to show.
+		final boolean shown = imp == null ? shownPlane < 0 : plane == toZeroBasedIndex( imp.getCurrentSlice() );
+		if ( shown && shownPlane != plane )
+		{
+			shownPlane = plane;
+			scheduler.cancelPending( this );
+			loading.clear();
+			arrived.clear();
+		}
+		final PlaneScheduler.Priority priority = shown ? PlaneScheduler.Priority.VISIBLE : PlaneScheduler.Priority.BACKGROUND;
+		final long[] gridDimensions = img.getCellGrid().getGridDimensions();
+		for ( final long[] gridPosition : gridPositions )
+		{
+			final long key = IntervalIndexer.positionToIndex( gridPosition, gridDimensions );
+			if ( loading.add( key ) )
+				scheduler.submit( this, priority, () -> {
+					try
+					{
+						img.getCells().randomAccess().setPositionAndGet( gridPosition );
+					}
+					finally
+					{
+						loading.remove( key );
+					}
+					if ( shown && shownPlane == plane )
+					{
+						arrived.add( gridPosition );
+						repaint();
+					}
+				} );
+		}
+	}
+
+	/**
+	 * Copies the cells that arrived into the processor of the shown slice and
+	 * redraws it. Other regions of the slice are not touched, such that edits
+	 * are kept. Repaints are coalesced on the event dispatch thread.
+	 */
+	private void repaint()
+	{
+		if ( imp == null || !repaintPending.compareAndSet( false, true ) )
+			return;
+		EventQueue.invokeLater( () -> {
+			repaintPending.set( false );
+			final ImagePlus imp = this.imp;
+			if ( imp == null )
+				return;
+			final int plane = toZeroBasedIndex( imp.getCurrentSlice() );
+			final ImageProcessor processor = imp.getProcessor();
+			if ( plane != shownPlane || processor == null )
+			{
+				// NB: The slice that is shown now is requested by ImageJ anyway.
+				arrived.clear();
+				return;
+			}
+			final long[] position = ImageProcessorUtils.planePosition( img, plane );
+			final RandomAccess< ? extends Cell< ? > > cells = img.getCells().randomAccess();
+			long[] gridPosition;
+			while ( ( gridPosition = arrived.poll() ) != null )
+				ImageProcessorUtils.copyCell( processor.getPixels(), getWidth(), position, cells.setPositionAndGet( gridPosition ), false );
+			imp.updateAndDraw();
+		} );
+	}
+
+	void imageClosed()
+	{
+		close();
+	}
+
+	private static class Listener implements ImageListener
+	{
+		private final WeakReference< CachedCellImgToImagePlus > stack;
+
+		private Listener( final CachedCellImgToImagePlus stack )
+		{
+			this.stack = new WeakReference<>( stack );
+		}
+
+		@Override
+		public void imageOpened( final ImagePlus imp )
+		{
+			removeIfCollected();
+		}
+
+		@Override
+		public void imageUpdated( final ImagePlus imp )
+		{
+			removeIfCollected();
+		}
+
+		@Override
+		public void imageClosed( final ImagePlus imp )
+		{
+			final CachedCellImgToImagePlus s = stack.get();
+			if ( s != null && imp == s.imp )
+				s.imageClosed();
+			removeIfCollected();
+		}
+
+		private void removeIfCollected()
+		{
+			if ( stack.get() == null )
+				ImagePlus.removeImageListener( this );
+		}
+	}
+}
@@ -39,35 +39,57 @@ import net.imglib2.Dimensions;
 import net.imglib2.FinalDimensions;
 import net.imglib2.RandomAccess;
 import net.imglib2.RandomAccessible;
+import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.img.Img;
-import net.imglib2.img.array.ArrayImg;
 import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
 import net.imglib2.img.cell.AbstractCellImg;
 import net.imglib2.img.cell.Cell;
 import net.imglib2.img.cell.CellGrid;
 import net.imglib2.img.cell.CellImg;
 import net.imglib2.img.planar.PlanarImg;
+import net.imglib2.parallel.Parallelization;
+import net.imglib2.parallel.TaskExecutor;
 import net.imglib2.type.NativeType;
 import net.imglib2.type.NativeTypeFactory;
 import net.imglib2.util.Fraction;
 import net.imglib2.util.IntervalIndexer;
 import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
 
+import java.lang.reflect.Array;
 import java.util.AbstractList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 /**
  * Utility class to convert a {@link net.imglib2.img.cell.CellImg} (and SCIFIOCellImg,
- * CachedCellImg) to ImagePlus. It is restricted to planar cells (where each
- * cells contains exactly one image plane), and certain pixel types:
+ * CachedCellImg) to ImagePlus. It is restricted to certain pixel types:
  * UnsignedByteType, UnsignedShortType, ARGBType and FloatType.
+ * <p>
+ * Planar cells (where each cells contains exactly one image plane) are shared
+ * with the {@link ImagePlus}. For any other cell shape, the {@link ImagePlus}
+ * is backed by a virtual stack that assembles each plane from the cells that
+ * intersect it, copying one row of a cell at a time, and splits the planes
+ * written to the stack back into the cells.
  *
  * @see PlanarImgToImagePlus
  * @see ArrayImgToImagePlus
  */
-public class CellImgToImagePlus
+public class CellImgToImagePlus extends AbstractVirtualStack
 {
 
+	// static
+
+	/**
+	 * Number of assembled planes that are cached by default, see
+	 * {@link #setCacheSize(int)}.
+	 */
+	public static final int DEFAULT_CACHE_SIZE = 8;
+
 	/**
 	 * Returns true, if {@link #wrap(CellImg, String)} supports the given image.
 	 * @param obj an {@link Object} that may be supported by {@code wrap}
@@ -80,8 +102,19 @@ public class CellImgToImagePlus
 		CellImg<?, ?> img = (CellImg<?, ?>) obj;
 		if (!(img.update(img.cursor()) instanceof ArrayDataAccess))
 			return false;
-		return isCellImgWithPlanarCells( img ) &&
-				PlanarImgToImagePlus.isSupported( toPlanarImgPlus( (CellImg<? extends NativeType, ? extends ArrayDataAccess>) img ) );
+		if ( isCellImgWithPlanarCells( img ) )
+			return PlanarImgToImagePlus.isSupported( toPlanarImgPlus( (CellImg<? extends NativeType, ? extends ArrayDataAccess>) img ) );
+		return img.numDimensions() >= 2 && img.numDimensions() <= 5 &&
+				ImageProcessorUtils.isSupported( img.getType() );
+	}
+
+	/**
+	 * Returns true, if the given image is supported and has planar cells,
+	 * such that {@link #toPlanarImg(CellImg)} can be used.
+	 */
+	static boolean isSupportedPlanar( Object obj )
+	{
+		return isSupported( obj ) && isCellImgWithPlanarCells( ( Img< ? > ) obj );
 	}
 
 	private static boolean isCellImgWithPlanarCells( Img< ? > img )
@@ -102,17 +135,34 @@ public class CellImgToImagePlus
 	}
 
 	/**
-	 * Wraps the given image as {@link ImagePlus}. The given image must be backed
-	 * by an {@link AbstractCellImg} with planar cells. The pixel type must be
+	 * Wraps the given image as {@link ImagePlus}. The pixel type must be
 	 * UnsignedByte-, UnsignedShort-, ARGB- or FloatType. First two axes must be
-	 * X and Y (or unknown).
+	 * X and Y (or unknown). Only up to five dimensions are supported.
+	 * <p>
+	 * If the cells of the image are planar, the {@link ImagePlus} uses the same
+	 * pixel buffers as the image. Otherwise, the planes of the {@link ImagePlus}
+	 * are copies, which are written back into the cells by
+	 * {@link ij.ImageStack#setPixels(Object, int)}.
 	 * @param img the {@link CellImg} to convert
 	 * @param name the {@link String} title to assign to the result
 	 * @return an {@link ImagePlus} wrapping the data in {@code img}
 	 */
 	public static <T extends NativeType<T>, A extends ArrayDataAccess<A>> ImagePlus wrap( CellImg< T, A > img, String name )
 	{
-		return PlanarImgToImagePlus.wrap( toPlanarImgPlus( img ), name );
+		if ( isCellImgWithPlanarCells( img ) )
+			return PlanarImgToImagePlus.wrap( toPlanarImgPlus( img ), img, name );
+		final ImagePlus imp = new ImagePlus( name, new CellImgToImagePlus( img ) );
+		ImageStackUtils.setDimensions( imp, img );
+		return imp;
+	}
+
+	/**
+	 * Returns a {@link PlanarImg} that shares the planar cells of the given
+	 * image, see {@link #isSupportedPlanar(Object)}.
+	 */
+	static < T extends NativeType<T>, A extends ArrayDataAccess<A>> PlanarImg< T, A > toPlanarImg( CellImg< T, A > cellImage )
+	{
+		return toPlanarImgPlus( cellImage );
 	}
 
 	private static < T extends NativeType<T>, A extends ArrayDataAccess<A>> PlanarImg< T, A > toPlanarImgPlus(CellImg< T, A > cellImage )
@@ -126,6 +176,218 @@ public class CellImgToImagePlus
 		return ts;
 	}
 
+	// fields
+
+	private final CellImg< ?, ? extends ArrayDataAccess< ? > > img;
+
+	private final Map< Integer, Object > cache = new LinkedHashMap<>( 16, 0.75f, true );
+
+	private int cacheSize = DEFAULT_CACHE_SIZE;
+
+	private TaskExecutor taskExecutor;
+
+	// constructor
+
+	private CellImgToImagePlus( final CellImg< ?, ? extends ArrayDataAccess< ? > > img )
+	{
+		super( ( int ) img.dimension( 0 ), ( int ) img.dimension( 1 ), ( int ) ( Intervals.numElements( img ) / ( img.dimension( 0 ) * img.dimension( 1 ) ) ),
+				PlanarImgToImagePlus.getBitDepth( img.getType() ) );
+		this.img = img;
+	}
+
+	// public methods
+
+	/**
+	 * Returns the {@link CellImg} given to {@link #wrap(CellImg, String)}.
+	 * <p>
+	 * NB: The image still contains all planes, even if slices were deleted
+	 * from this stack.
+	 */
+	public CellImg< ?, ? > getSource()
+	{
+		return img;
+	}
+
+	/**
+	 * Sets the number of assembled planes that are kept, least recently used
+	 * planes are dropped first. {@link #getPixels(int)} returns a copy of a
+	 * cached plane. Planes written to this stack replace the cached plane.
+	 * If the image is modified by other means, call {@link #invalidateCache()}.
+	 *
+	 * @param cacheSize the maximal number of cached planes, 0 disables caching
+	 */
+	public void setCacheSize( final int cacheSize )
+	{
+		synchronized ( cache )
+		{
+			this.cacheSize = cacheSize;
+			trimCache();
+		}
+	}
+
+	/**
+	 * Drops all cached planes, such that they are assembled from the cells
+	 * again.
+	 */
+	public void invalidateCache()
+	{
+		synchronized ( cache )
+		{
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Set the {@link TaskExecutor} used to copy the cells of a plane in
+	 * parallel. If {@code null}, the {@link TaskExecutor} of the calling thread
+	 * is used, see {@link Parallelization#getTaskExecutor()}.
+	 *
+	 * @param taskExecutor the {@link TaskExecutor} to use, may be {@code null}
+	 */
+	public void setTaskExecutor( final TaskExecutor taskExecutor )
+	{
+		this.taskExecutor = taskExecutor;
+	}
+
+	@Override
+	protected Object getPixelsZeroBasedIndex( final int index )
+	{
+		Object plane = getCached( index );
+		if ( plane == null )
+		{
+			// NB: Hold the lock of the plane, such that a concurrent write
+			// can't leave an outdated plane in the cache.
+			final Lock lock = getPlaneLock( index );
+			lock.lock();
+			try
+			{
+				plane = getCached( index );
+				if ( plane == null )
+				{
+					plane = ImageProcessorUtils.newPlane( getBitDepth(), getWidth() * getHeight() );
+					copyCells( plane, index, false );
+					putCached( index, plane );
+				}
+			}
+			finally
+			{
+				lock.unlock();
+			}
+		}
+		return copyOf( plane );
+	}
+
+	@Override
+	protected void setPixelsZeroBasedIndex( final int index, final Object pixels )
+	{
+		copyCells( pixels, index, true );
+		putCached( index, copyOf( pixels ) );
+	}
+
+	@Override
+	protected RandomAccessibleInterval< ? > getSliceZeroBasedIndex( final int index )
+	{
+		// NB: A view of the plane, such that setVoxels writes to the image.
+		return planeView( img, index );
+	}
+
+	@Override
+	public void setVoxels( final int x0, final int y0, final int z0, final int w, final int h, final int d, final float[] voxels )
+	{
+		super.setVoxels( x0, y0, z0, w, h, d, voxels );
+		invalidateCache();
+	}
+
+	@Override
+	public void setVoxels( final int x0, final int y0, final int z0, final int w, final int h, final int d, final float[] voxels, final int channel )
+	{
+		super.setVoxels( x0, y0, z0, w, h, d, voxels, channel );
+		invalidateCache();
+	}
+
+	// Helper methods
+
+	private Object getCached( final int index )
+	{
+		synchronized ( cache )
+		{
+			return cache.get( index );
+		}
+	}
+
+	private void putCached( final int index, final Object plane )
+	{
+		synchronized ( cache )
+		{
+			if ( cacheSize <= 0 )
+				return;
+			cache.put( index, plane );
+			trimCache();
+		}
+	}
+
+	private void trimCache()
+	{
+		while ( cache.size() > Math.max( cacheSize, 0 ) )
+		{
+			final Integer eldest = cache.keySet().iterator().next();
+			cache.remove( eldest );
+		}
+	}
+
+	private static Object copyOf( final Object plane )
+	{
+		final int length = Array.getLength( plane );
+		final Object copy = Array.newInstance( plane.getClass().getComponentType(), length );
+		System.arraycopy( plane, 0, copy, 0, length );
+		return copy;
+	}
+
+	/**
+	 * Copies one plane into all the cells that intersect it, or back if
+	 * {@code toCells} is false. Each row of cells is copied by a separate task
+	 * of the {@link TaskExecutor}.
+	 */
+	private void copyCells( final Object pixels, final int plane, final boolean toCells )
+	{
+		final int n = img.numDimensions();
+		final CellGrid grid = img.getCellGrid();
+
+		// position of the plane, and of the cells containing it, in dimensions 2 and above
+		final long[] position = ImageProcessorUtils.planePosition( img, plane );
+		final long[] gridPosition = new long[ n ];
+		for ( int d = 2; d < n; d++ )
+			gridPosition[ d ] = position[ d ] / grid.cellDimension( d );
+
+		final TaskExecutor executor = taskExecutor == null ? Parallelization.getTaskExecutor() : taskExecutor;
+		final List< Long > gridRows = LongStream.range( 0, grid.gridDimension( 1 ) ).boxed().collect( Collectors.toList() );
+		executor.forEach( gridRows, gy -> copyCellRow( pixels, position, gridPosition.clone(), gy, toCells ) );
+	}
+
+	private void copyCellRow( final Object pixels, final long[] position, final long[] gridPosition, final long gy, final boolean toCells )
+	{
+		final RandomAccess< ? extends Cell< ? extends ArrayDataAccess< ? > > > cells = img.getCells().randomAccess();
+		gridPosition[ 1 ] = gy;
+		for ( long gx = 0; gx < img.getCellGrid().gridDimension( 0 ); gx++ )
+		{
+			gridPosition[ 0 ] = gx;
+			ImageProcessorUtils.copyCell( pixels, getWidth(), position, cells.setPositionAndGet( gridPosition ), toCells );
+		}
+	}
+
+	/**
+	 * Returns the plane of {@code image} with the given index as a two
+	 * dimensional view.
+	 */
+	static RandomAccessibleInterval< ? > planeView( final RandomAccessibleInterval< ? > image, final int plane )
+	{
+		final long[] position = ImageProcessorUtils.planePosition( image, plane );
+		RandomAccessibleInterval< ? > slice = image;
+		for ( int d = position.length - 1; d >= 2; d-- )
+			slice = Views.hyperSlice( slice, d, position[ d ] );
+		return slice;
+	}
+
 	private static class SlicesList< A extends ArrayDataAccess< ? > > extends AbstractList< A >
 	{
 		final RandomAccessible< ? extends Cell< A > > cells;
@@ -152,7 +414,8 @@ public class CellImgToImagePlus
 		@Override
 		public A get( int index )
 		{
-			RandomAccess< ? extends Cell< A > > ra = cells.randomAccess();
+			// NB: PlanarImg.getPlane(...) may be called concurrently.
+			final RandomAccess< ? extends Cell< A > > ra = cells.randomAccess();
 			IntervalIndexer.indexToPosition( index, gridDim, ra );
 			return ra.get().getData();
 		}
@@ -48,6 +48,9 @@ import net.imglib2.img.Img;
 import net.imglib2.img.array.ArrayImg;
 import net.imglib2.img.array.ArrayImgFactory;
 import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
+import net.imglib2.parallel.Parallelization;
+import net.imglib2.parallel.TaskExecutor;
+import net.imglib2.parallel.TaskExecutors;
 import net.imglib2.type.NativeType;
 import net.imglib2.type.Type;
 import net.imglib2.type.numeric.ARGBType;
@@ -58,6 +61,8 @@ import net.imglib2.util.IntervalIndexer;
 import net.imglib2.view.Views;
 
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.function.Supplier;
 import java.util.stream.IntStream;
 import java.util.stream.LongStream;
 
@@ -77,6 +82,14 @@ import java.util.stream.LongStream;
  * wraps around a copy of the pixels of the image plane too. So methods like
  * {@link ImageProcessor#set(int, int, int)} will not change the content of
  * wrapped {@link RandomAccessibleInterval}.
+ * <p>
+ * Planes are projected using the {@link TaskExecutor} set by
+ * {@link #setTaskExecutor(TaskExecutor)} or
+ * {@link #setExecutorService(ExecutorService)}. If neither is set, the
+ * {@link TaskExecutor} of the thread requesting the plane is used, see
+ * {@link Parallelization#getTaskExecutor()}, unless the stack was created
+ * with a single {@link Converter}. Such a converter need not be thread-safe,
+ * so these planes are projected by the requesting thread alone.
  */
 public class ImageJVirtualStack< T extends NativeType< T > > extends AbstractVirtualStack
 {
@@ -91,11 +104,17 @@ public class ImageJVirtualStack< T extends NativeType< T > > extends AbstractVir
 
 	protected ExecutorService service;
 
+	private TaskExecutor taskExecutor;
+
+	// NB: false if the source uses a converter that may not be thread-safe
+	private boolean threadSafe = true;
+
 	/* old constructor -> non-multithreaded projector */
 	protected < S > ImageJVirtualStack( final RandomAccessibleInterval< S > source, final Converter< ? super S, T > converter,
 			final T type, final int bitDepth )
 	{
 		this( Converters.convert( source, converter, type ), bitDepth );
+		threadSafe = false;
 	}
 
 	protected < S > ImageJVirtualStack( final RandomAccessibleInterval< S > source, final Converter< ? super S, T > converter,
@@ -105,6 +124,19 @@ public class ImageJVirtualStack< T extends NativeType< T > > extends AbstractVir
 		setExecutorService(service);
 	}
 
+	/**
+	 * Creates a stack that converts the pixels of {@code source} with
+	 * converters obtained from {@code converterSupplier}. Every worker
+	 * projecting a plane gets its own {@link Converter} instance, so the
+	 * converters need not be thread-safe.
+	 */
+	protected < S > ImageJVirtualStack( final RandomAccessibleInterval< S > source, final Supplier< ? extends Converter< ? super S, T > > converterSupplier,
+			final T type, final int bitDepth, final ExecutorService service )
+	{
+		this( convert( source, converterSupplier, type ), bitDepth );
+		setExecutorService( service );
+	}
+
 	protected ImageJVirtualStack( final RandomAccessibleInterval< T > source, final int bitDepth )
 	{
 		super( ( int ) source.dimension( 0 ), ( int ) source.dimension( 1 ), multiply( initHigherDimensions( source ) ), bitDepth );
@@ -117,6 +149,13 @@ public class ImageJVirtualStack< T extends NativeType< T > > extends AbstractVir
 		this.higherSourceDimensions = initHigherDimensions( source );
 	}
 
+	private static < S, T extends NativeType< T > > RandomAccessibleInterval< T > convert( final RandomAccessibleInterval< S > source,
+			final Supplier< ? extends Converter< ? super S, T > > converterSupplier, final T type )
+	{
+		final Supplier< Converter< ? super S, ? super T > > supplier = converterSupplier::get;
+		return Converters.convert( source, supplier, type );
+	}
+
 	private static int multiply( final long[] higherSourceDimensions )
 	{
 		return ( int ) LongStream.of( higherSourceDimensions ).reduce( 1, ( a, b ) -> a * b );
@@ -134,9 +173,85 @@ public class ImageJVirtualStack< T extends NativeType< T > > extends AbstractVir
 		return Views.isZeroMin( source ) ? source : Views.zeroMin( source );
 	}
 
+	/**
+	 * Set the {@link ExecutorService} used to project planes in parallel. If
+	 * {@code null}, planes are projected by the calling thread.
+	 * <p>
+	 * If the service was obtained from a {@link PlaneScheduler}, it is
+	 * re-bound to this stack, such that the scheduler shares its threads
+	 * fairly between all stacks.
+	 *
+	 * @param service the {@link ExecutorService} used for projection, may be {@code null}
+	 */
 	public void setExecutorService( ExecutorService service )
 	{
-		this.service = service;
+		final PlaneScheduler scheduler = PlaneScheduler.schedulerOf( service );
+		this.service = ( scheduler == null ) ? service : scheduler.executorService( this, PlaneScheduler.Priority.VISIBLE );
+		this.taskExecutor = ( this.service == null ) ? null : TaskExecutors.forExecutorService( this.service );
+	}
+
+	/**
+	 * Set the {@link TaskExecutor} used to project planes and to compute
+	 * statistics in parallel. If {@code null}, the {@link TaskExecutor} of the
+	 * calling thread is used, see {@link Parallelization#getTaskExecutor()},
+	 * or a single thread if the stack was created with a {@link Converter}
+	 * instead of a {@link Supplier} of converters.
+	 *
+	 * @param taskExecutor the {@link TaskExecutor} to use, may be {@code null}
+	 */
+	public void setTaskExecutor( final TaskExecutor taskExecutor )
+	{
+		this.service = ( taskExecutor == null ) ? null : taskExecutor.getExecutorService();
+		this.taskExecutor = taskExecutor;
+	}
+
+	/**
+	 * @return the {@link TaskExecutor} used by the calling thread to project
+	 *         planes of this stack.
+	 */
+	public TaskExecutor getTaskExecutor()
+	{
+		final TaskExecutor executor = taskExecutor;
+		if ( executor != null )
+			return executor;
+		return threadSafe ? Parallelization.getTaskExecutor() : TaskExecutors.singleThreaded();
+	}
+
+	/**
+	 * Use the given {@link PlaneScheduler} to project planes in parallel.
+	 *
+	 * @param scheduler the {@link PlaneScheduler} to use, may be {@code null}
+	 */
+	public void setPlaneScheduler( final PlaneScheduler scheduler )
+	{
+		setExecutorService( scheduler == null ? null : scheduler.executorService( this, PlaneScheduler.Priority.VISIBLE ) );
+	}
+
+	/**
+	 * @return the {@link PlaneScheduler} used by this stack, or {@code null}
+	 *         if planes are not computed by a {@link PlaneScheduler}.
+	 */
+	public PlaneScheduler getPlaneScheduler()
+	{
+		return PlaneScheduler.schedulerOf( service );
+	}
+
+	/**
+	 * Returns a {@link Flow.Publisher} of the planes of this stack, as 2D
+	 * {@link ArrayImg}s in the order of the stack. Planes are computed ahead
+	 * on the {@link PlaneScheduler} of this stack (or the shared one) with
+	 * {@link PlaneScheduler.Priority#PREFETCH} priority, but only as far as
+	 * the subscriber requested them, see {@link PlanePublisher}.
+	 *
+	 * @param maxLookahead the maximum number of planes computed ahead of the
+	 *            subscriber
+	 * @return a {@link Flow.Publisher} of the planes of this stack
+	 */
+	public Flow.Publisher< ArrayImg< T, ? > > planePublisher( final int maxLookahead )
+	{
+		final PlaneScheduler scheduler = getPlaneScheduler();
+		return new PlanePublisher<>( getSize(), this::getSlice, maxLookahead,
+				scheduler == null ? PlaneScheduler.getInstance() : scheduler, PlaneScheduler.Priority.PREFETCH );
 	}
 
 	/**
@@ -174,9 +289,10 @@ public class ImageJVirtualStack< T extends NativeType< T > > extends AbstractVir
 
 	private void project( int index, Img< T > img, Converter< T, T > converter )
 	{
-		final AbstractProjector2D projector = ( service == null )
+		final TaskExecutor executor = getTaskExecutor();
+		final AbstractProjector2D projector = ( executor.getParallelism() <= 1 )
 				? new IterableIntervalProjector2D<>( 0, 1, source, img, converter )
-				: new MultithreadedIterableIntervalProjector2D<>( 0, 1, source, img, converter, service );
+				: new MultithreadedIterableIntervalProjector2D<>( 0, 1, source, img, converter, executor );
 		setPosition( index, projector );
 		projector.map();
 	}
@@ -35,6 +35,7 @@
 package net.imglib2.imagej.img;
 
 import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
 
 import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.converter.Converter;
@@ -62,6 +63,26 @@ public class ImageJVirtualStackARGB extends ImageJVirtualStack< ARGBType >
 		setMinAndMax( 0, 255 );
 	}
 
+	/**
+	 * Creates a stack that converts the pixels of {@code source} with
+	 * converters obtained from {@code converterSupplier}, one per worker.
+	 */
+	public < S > ImageJVirtualStackARGB( final RandomAccessibleInterval< S > source, final Supplier< ? extends Converter< ? super S, ARGBType > > converterSupplier )
+	{
+		this( source, converterSupplier, null );
+	}
+
+	/**
+	 * Creates a stack that converts the pixels of {@code source} with
+	 * converters obtained from {@code converterSupplier}. Planes are projected
+	 * in parallel using {@code service}, every worker gets its own converter.
+	 */
+	public < S > ImageJVirtualStackARGB( final RandomAccessibleInterval< S > source, final Supplier< ? extends Converter< ? super S, ARGBType > > converterSupplier, final ExecutorService service )
+	{
+		super( source, converterSupplier, new ARGBType(), 24, service );
+		setMinAndMax( 0, 255 );
+	}
+
 	private ImageJVirtualStackARGB( final RandomAccessibleInterval< ARGBType > source )
 	{
 		super( source, 24 );
@@ -34,13 +34,11 @@
 
 package net.imglib2.imagej.img;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.Sampler;
@@ -48,8 +46,11 @@ import net.imglib2.converter.Converter;
 import net.imglib2.converter.Converters;
 import net.imglib2.converter.readwrite.SamplerConverter;
 import net.imglib2.img.basictypeaccess.FloatAccess;
+import net.imglib2.parallel.TaskExecutor;
+import net.imglib2.parallel.TaskExecutors;
 import net.imglib2.type.numeric.RealType;
 import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Intervals;
 import net.imglib2.util.Util;
 import net.imglib2.view.RandomAccessibleIntervalCursor;
 import net.imglib2.view.Views;
@@ -85,32 +86,69 @@ public class ImageJVirtualStackFloat extends ImageJVirtualStack< FloatType >
 		setMinAndMax( 0, 1 );
 	}
 
+	/**
+	 * Creates a stack that converts the pixels of {@code source} with
+	 * converters obtained from {@code converterSupplier}, one per worker.
+	 */
+	public < S > ImageJVirtualStackFloat( final RandomAccessibleInterval< S > source, final Supplier< ? extends Converter< ? super S, FloatType > > converterSupplier )
+	{
+		this( source, converterSupplier, null );
+	}
+
+	/**
+	 * Creates a stack that converts the pixels of {@code source} with
+	 * converters obtained from {@code converterSupplier}. Planes are projected
+	 * in parallel using {@code service}, every worker gets its own converter.
+	 */
+	public < S > ImageJVirtualStackFloat( final RandomAccessibleInterval< S > source, final Supplier< ? extends Converter< ? super S, FloatType > > converterSupplier, final ExecutorService service )
+	{
+		super( source, converterSupplier, new FloatType(), 32, service );
+		setMinAndMax( 0, 1 );
+	}
+
 	private ImageJVirtualStackFloat( final RandomAccessibleInterval< FloatType > source )
 	{
 		super( source, 32 );
 		setMinAndMax( 0, 1 );
 	}
 
+	/**
+	 * Sets the display range to the minimum and maximum of the given image.
+	 * <p>
+	 * The image is split into portions that are reduced in parallel by the
+	 * {@link TaskExecutor} of this stack, see {@link #getTaskExecutor()}. If
+	 * the stack is bound to a {@link PlaneScheduler}, the reduction runs with
+	 * {@link PlaneScheduler.Priority#BACKGROUND} priority.
+	 *
+	 * @param source the image to compute the display range from
+	 * @param converter converts the pixels of {@code source} to {@link FloatType}
+	 * @param <S> pixel type of {@code source}
+	 */
 	public < S > void setMinMax( final RandomAccessibleInterval< S > source, final Converter< S, FloatType > converter )
 	{
-		if ( service != null )
-		{
-			setMinMaxMT( source, converter );
-			return;
-		}
-
-		final RandomAccessibleIntervalCursor< S > cursor = new RandomAccessibleIntervalCursor<>(
-				Views.isZeroMin( source ) ? source : Views.zeroMin( source ) );
-		final FloatType t = new FloatType();
+		final PlaneScheduler scheduler = getPlaneScheduler();
+		// NB: statistics must not delay the computation of visible planes
+		final TaskExecutor executor = ( scheduler != null )
+				? TaskExecutors.forExecutorService( scheduler.executorService( this, PlaneScheduler.Priority.BACKGROUND ) )
+				: getTaskExecutor();
+
+		final RandomAccessibleInterval< S > zeroMin = Views.isZeroMin( source ) ? source : Views.zeroMin( source );
+		final long size = Intervals.numElements( source );
+		final int nTasks = ( int ) Math.max( 1, Math.min( size, executor.suggestNumberOfTasks() ) );
+		final long portionSize = size / nTasks;
 
-		if ( cursor.hasNext() )
-		{
-			converter.convert( cursor.next(), t );
+		final List< Integer > tasks = IntStream.range( 0, nTasks ).boxed().collect( Collectors.toList() );
+		final List< float[] > minMaxs = executor.forEachApply( tasks, i -> {
+			final RandomAccessibleIntervalCursor< S > cursor = new RandomAccessibleIntervalCursor<>( zeroMin );
+			final FloatType t = new FloatType();
+			cursor.jumpFwd( i * portionSize );
 
-			float min = t.get();
-			float max = min;
+			float min = Float.MAX_VALUE;
+			float max = -Float.MAX_VALUE;
 
-			while ( cursor.hasNext() )
+			// either map a portion or (for the last portion) go until the end
+			final long steps = ( i == nTasks - 1 ) ? size - i * portionSize : portionSize;
+			for ( long step = 0; step < steps; ++step )
 			{
 				converter.convert( cursor.next(), t );
 				final float value = t.get();
@@ -121,96 +159,21 @@ public class ImageJVirtualStackFloat extends ImageJVirtualStack< FloatType >
 				if ( value > max )
 					max = value;
 			}
+			return new float[] { min, max };
+		} );
 
-			setMinAndMax( min, max );
-		}
-	}
-
-	private < S > void setMinMaxMT( final RandomAccessibleInterval< S > source, final Converter< S, FloatType > converter )
-	{
-		final long nTasks = Runtime.getRuntime().availableProcessors();
-		long size = 1;
-		for ( int d = 0; d < source.numDimensions(); ++d )
-			size *= source.dimension( d );
-
-		final long portionSize = size / nTasks;
-
-		final List< Callable< Void > > tasks = new ArrayList<>();
-		final AtomicInteger ai = new AtomicInteger();
-
-		final ArrayList< Float > mins = new ArrayList<>( ( int ) nTasks );
-		final ArrayList< Float > maxs = new ArrayList<>( ( int ) nTasks );
-
-		for ( int t = 0; t < nTasks; ++t )
-		{
-			tasks.add( new Callable< Void >()
-			{
-
-				@Override
-				public Void call() throws Exception
-				{
-					final int i = ai.getAndIncrement();
-					final RandomAccessibleIntervalCursor< S > cursor = new RandomAccessibleIntervalCursor<>(
-							Views.isZeroMin( source ) ? source : Views.zeroMin( source ) );
-					final FloatType t = new FloatType();
-					long stepsTaken = 0;
-
-					cursor.jumpFwd( i * portionSize );
-
-					float min = Float.MAX_VALUE;
-					float max = -Float.MAX_VALUE;
-
-					// either map a portion or (for the last portion) go
-					// until the end
-					while ( ( i != nTasks - 1 && stepsTaken < portionSize ) || ( i == nTasks - 1 && cursor.hasNext() ) )
-					{
-						stepsTaken++;
-						converter.convert( cursor.next(), t );
-
-						final float value = t.get();
-
-						if ( value < min )
-							min = value;
-
-						if ( value > max )
-							max = value;
-
-					}
-
-					mins.add( min );
-					maxs.add( max );
-
-					return null;
-				}
-
-			} );
-		}
-
-		try
-		{
-			final List< Future< Void > > futures = service.invokeAll( tasks );
-			for ( final Future< Void > f : futures )
-				f.get();
-		}
-		catch ( InterruptedException | ExecutionException e )
-		{
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		}
+		if ( size == 0 )
+			return;
 
 		float min = Float.MAX_VALUE;
 		float max = -Float.MAX_VALUE;
-
-		for ( int t = 0; t < nTasks; t++ )
+		for ( final float[] minMax : minMaxs )
 		{
-			if ( min > mins.get( t ) )
-				min = mins.get( t );
-			if ( max < maxs.get( t ) )
-				max = maxs.get( t );
+			min = Math.min( min, minMax[ 0 ] );
+			max = Math.max( max, minMax[ 1 ] );
 		}
 
 		setMinAndMax( min, max );
-
 	}
 
 	private static class ToFloatSamplerConverter<S extends RealType<S>> implements SamplerConverter<S, FloatType>
@@ -45,6 +45,7 @@ import net.imglib2.type.numeric.RealType;
 import net.imglib2.type.numeric.integer.UnsignedByteType;
 
 import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
 
 /**
  * TODO
@@ -80,6 +81,26 @@ public class ImageJVirtualStackUnsignedByte extends ImageJVirtualStack< Unsigned
 		setMinAndMax( 0, 255 );
 	}
 
+	/**
+	 * Creates a stack that converts the pixels of {@code source} with
+	 * converters obtained from {@code converterSupplier}, one per worker.
+	 */
+	public < S > ImageJVirtualStackUnsignedByte( final RandomAccessibleInterval< S > source, final Supplier< ? extends Converter< ? super S, UnsignedByteType > > converterSupplier )
+	{
+		this( source, converterSupplier, null );
+	}
+
+	/**
+	 * Creates a stack that converts the pixels of {@code source} with
+	 * converters obtained from {@code converterSupplier}. Planes are projected
+	 * in parallel using {@code service}, every worker gets its own converter.
+	 */
+	public < S > ImageJVirtualStackUnsignedByte( final RandomAccessibleInterval< S > source, final Supplier< ? extends Converter< ? super S, UnsignedByteType > > converterSupplier, final ExecutorService service )
+	{
+		super( source, converterSupplier, new UnsignedByteType(), 8, service );
+		setMinAndMax( 0, 255 );
+	}
+
 	private ImageJVirtualStackUnsignedByte( final RandomAccessibleInterval< UnsignedByteType > source )
 	{
 		super( source, 8 );
@@ -35,6 +35,7 @@
 package net.imglib2.imagej.img;
 
 import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
 
 import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.Sampler;
@@ -79,6 +80,26 @@ public class ImageJVirtualStackUnsignedShort extends ImageJVirtualStack< Unsigne
 		initMinMax( source.getType() );
 	}
 
+	/**
+	 * Creates a stack that converts the pixels of {@code source} with
+	 * converters obtained from {@code converterSupplier}, one per worker.
+	 */
+	public < S > ImageJVirtualStackUnsignedShort( final RandomAccessibleInterval< S > source, final Supplier< ? extends Converter< ? super S, UnsignedShortType > > converterSupplier )
+	{
+		this( source, converterSupplier, null );
+	}
+
+	/**
+	 * Creates a stack that converts the pixels of {@code source} with
+	 * converters obtained from {@code converterSupplier}. Planes are projected
+	 * in parallel using {@code service}, every worker gets its own converter.
+	 */
+	public < S > ImageJVirtualStackUnsignedShort( final RandomAccessibleInterval< S > source, final Supplier< ? extends Converter< ? super S, UnsignedShortType > > converterSupplier, final ExecutorService service )
+	{
+		super( source, converterSupplier, new UnsignedShortType(), 16, service );
+		initMinMax( source.getType() );
+	}
+
 	private ImageJVirtualStackUnsignedShort( final RandomAccessibleInterval< UnsignedShortType > source )
 	{
 		super( source, 16 );
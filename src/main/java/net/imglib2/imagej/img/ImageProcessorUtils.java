@@ -39,8 +39,12 @@ import ij.process.ColorProcessor;
 import ij.process.FloatProcessor;
 import ij.process.ImageProcessor;
 import ij.process.ShortProcessor;
+import net.imglib2.Interval;
 import net.imglib2.img.Img;
 import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.Dirty;
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
+import net.imglib2.img.cell.Cell;
 import net.imglib2.type.Type;
 import net.imglib2.type.numeric.ARGBType;
 import net.imglib2.type.numeric.integer.UnsignedByteType;
@@ -116,4 +120,88 @@ public class ImageProcessorUtils
 			return ArrayImgs.floats( ( float[] ) pixels, width, height );
 		throw new IllegalArgumentException( "unsupported pixel type" );
 	}
+
+	/**
+	 * Creates the pixel array of an image plane.
+	 *
+	 * @param bitDepth Bit depth of the plane, 8, 16, 24 or 32, see {@link ImageProcessor#getBitDepth()}.
+	 * @param size     Number of pixels, width * height.
+	 * @return Will return a byte[], short[], int[] or float[].
+	 */
+	public static Object newPlane( final int bitDepth, final int size )
+	{
+		switch ( bitDepth )
+		{
+		case 8:
+			return new byte[ size ];
+		case 16:
+			return new short[ size ];
+		case 24:
+			return new int[ size ];
+		case 32:
+			return new float[ size ];
+		default:
+			throw new IllegalArgumentException( "unsupported bit depth: " + bitDepth );
+		}
+	}
+
+	/**
+	 * Returns the position of the plane with the given index in dimensions 2
+	 * and above. Dimensions 0 and 1 are zero.
+	 */
+	public static long[] planePosition( final Interval interval, final long plane )
+	{
+		final long[] position = new long[ interval.numDimensions() ];
+		long remainder = plane;
+		for ( int d = 2; d < position.length; d++ )
+		{
+			position[ d ] = remainder % interval.dimension( d );
+			remainder /= interval.dimension( d );
+		}
+		return position;
+	}
+
+	/**
+	 * Copies the part of a plane that intersects the given cell into the
+	 * cell, or back if {@code toCells} is false. A modified cell is marked as
+	 * {@link Dirty}, if it supports that.
+	 *
+	 * @param pixels   The plane: byte[], short[], int[] or float[].
+	 * @param width    Width of the plane.
+	 * @param position Dimensions 2 and above specify the plane, see {@link #planePosition(Interval, long)}.
+	 * @param cell     A cell with an {@link ArrayDataAccess}, that intersects the plane.
+	 * @param toCells  true to copy the plane into the cell, false to copy it back.
+	 */
+	public static void copyCell( final Object pixels, final int width, final long[] position, final Cell< ? > cell, final boolean toCells )
+	{
+		final int n = cell.numDimensions();
+		final long[] cellMin = new long[ n ];
+		final long[] cellDimensions = new long[ n ];
+		cell.min( cellMin );
+		cell.dimensions( cellDimensions );
+		final Object access = cell.getData();
+		final Object data = ( ( ArrayDataAccess< ? > ) access ).getCurrentStorageArray();
+
+		// offset of the plane within the cell
+		long offset = 0;
+		long stride = cellDimensions[ 0 ] * cellDimensions[ 1 ];
+		for ( int d = 2; d < n; d++ )
+		{
+			offset += ( position[ d ] - cellMin[ d ] ) * stride;
+			stride *= cellDimensions[ d ];
+		}
+
+		final int rowLength = ( int ) cellDimensions[ 0 ];
+		for ( int y = 0; y < cellDimensions[ 1 ]; y++ )
+		{
+			final int planeOffset = ( int ) ( ( cellMin[ 1 ] + y ) * width + cellMin[ 0 ] );
+			final int cellOffset = ( int ) offset + y * rowLength;
+			if ( toCells )
+				System.arraycopy( pixels, planeOffset, data, cellOffset, rowLength );
+			else
+				System.arraycopy( data, cellOffset, pixels, planeOffset, rowLength );
+		}
+		if ( toCells && access instanceof Dirty )
+			( ( Dirty ) access ).setDirty();
+	}
 }
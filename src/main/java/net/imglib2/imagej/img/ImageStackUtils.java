@@ -33,11 +33,14 @@
  */
 package net.imglib2.imagej.img;
 
+import ij.ImagePlus;
 import ij.ImageStack;
 import ij.process.ImageProcessor;
+import net.imglib2.Dimensions;
 
 /**
- * Utility functions for the implementation of {@link AbstractVirtualStack}.
+ * Utility functions for the implementation of {@link AbstractVirtualStack}
+ * and the other stacks of this package.
  *
  * @author Matthias Arzt
  */
@@ -48,6 +51,19 @@ class ImageStackUtils
 		// prevent from instantiation
 	}
 
+	/**
+	 * Sets the number of channels, slices and frames of the {@link ImagePlus}
+	 * to the sizes of dimensions 2, 3 and 4 of the image it wraps.
+	 */
+	public static void setDimensions( ImagePlus imp, Dimensions dimensions )
+	{
+		final int n = dimensions.numDimensions();
+		final int c = n > 2 ? ( int ) dimensions.dimension( 2 ) : 1;
+		final int z = n > 3 ? ( int ) dimensions.dimension( 3 ) : 1;
+		final int t = n > 4 ? ( int ) dimensions.dimension( 4 ) : 1;
+		imp.setDimensions( c, z, t );
+	}
+
 	/**
 	 * Creates a copy of a given {@link ImageStack}.
 	 */
@@ -33,13 +33,10 @@
  */
 package net.imglib2.imagej.img;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import net.imglib2.Cursor;
 import net.imglib2.FinalInterval;
@@ -49,6 +46,8 @@ import net.imglib2.RandomAccess;
 import net.imglib2.RandomAccessible;
 import net.imglib2.converter.Converter;
 import net.imglib2.display.projector.IterableIntervalProjector2D;
+import net.imglib2.parallel.TaskExecutor;
+import net.imglib2.parallel.TaskExecutors;
 import net.imglib2.view.RandomAccessibleIntervalCursor;
 import net.imglib2.view.Views;
 
@@ -61,7 +60,7 @@ import net.imglib2.view.Views;
  * 
  * The output
  * {@link IterableInterval} will be divided into approximately equally sized
- * portions that are filled by separate threads.
+ * portions that are filled by separate tasks of a {@link TaskExecutor}.
  *
  * @author David Hoerl
  *
@@ -73,7 +72,7 @@ import net.imglib2.view.Views;
 class MultithreadedIterableIntervalProjector2D<A, B> extends IterableIntervalProjector2D< A, B >
 {
 
-	final ExecutorService service;
+	final TaskExecutor executor;
 
 	private final int dimX;
 
@@ -82,16 +81,28 @@ class MultithreadedIterableIntervalProjector2D<A, B> extends IterableIntervalPro
 	private final int nTasks;
 
 	public MultithreadedIterableIntervalProjector2D(int dimX, int dimY, RandomAccessible< A > source,
-			IterableInterval< B > target, Converter< ? super A, B > converter, ExecutorService service, int nTasks)
+			IterableInterval< B > target, Converter< ? super A, B > converter, TaskExecutor executor, int nTasks)
 	{
 		super( dimX, dimY, source, target, converter );
 
-		this.service = service;
+		this.executor = executor;
 		this.dimX = dimX;
 		this.dimY = dimY;
 		this.nTasks = nTasks;
 	}
 
+	public MultithreadedIterableIntervalProjector2D(int dimX, int dimY, RandomAccessible< A > source,
+			IterableInterval< B > target, Converter< ? super A, B > converter, TaskExecutor executor)
+	{
+		this( dimX, dimY, source, target, converter, executor, executor.suggestNumberOfTasks() );
+	}
+
+	public MultithreadedIterableIntervalProjector2D(int dimX, int dimY, RandomAccessible< A > source,
+			IterableInterval< B > target, Converter< ? super A, B > converter, ExecutorService service, int nTasks)
+	{
+		this( dimX, dimY, source, target, converter, TaskExecutors.forExecutorService( service ), nTasks );
+	}
+
 	public MultithreadedIterableIntervalProjector2D(int dimX, int dimY, RandomAccessible< A > source,
 			IterableInterval< B > target, Converter< ? super A, B > converter, ExecutorService service)
 	{
@@ -114,104 +125,83 @@ class MultithreadedIterableIntervalProjector2D<A, B> extends IterableIntervalPro
 
 		final long portionSize = target.size() / nTasks;
 
-		final List< Callable< Void > > tasks = new ArrayList<>();
-		final AtomicInteger ai = new AtomicInteger();
-
-		for ( int t = 0; t < nTasks; ++t )
-		{
-			tasks.add(() -> {
-                int i = ai.getAndIncrement();
-
-                final Cursor< B > targetCursor = target.localizingCursor();
-
-                // we might need either a cursor or a RandomAccess
-                final RandomAccess< A > sourceRandomAccess = source.randomAccess();
-                sourceRandomAccess.setPosition( position );
-
-                final Cursor< A > sourceCursor = ii.cursor();
-
-                // jump to correct starting point
-                targetCursor.jumpFwd( i * portionSize );
-                sourceCursor.jumpFwd( i * portionSize );
-                long stepsTaken = 0;
-
-                if ( target.iterationOrder().equals( ii.iterationOrder() )
-                        && !( sourceCursor instanceof RandomAccessibleIntervalCursor ) )
-                {
-                    // either map a portion or (for the last portion) go
-                    // until the end
-                    while ( ( i != nTasks - 1 && stepsTaken < portionSize )
-                            || ( i == nTasks - 1 && targetCursor.hasNext() ) )
-                    {
-                        stepsTaken++;
-                        converter.convert( sourceCursor.next(), targetCursor.next() );
-                    }
-                }
-
-                else if ( target.iterationOrder() instanceof FlatIterationOrder )
-                {
-
-                    final long cr = -target.dimension( 0 );
-                    final long width = target.dimension( 0 );
-                    final long height = target.dimension( 1 );
-
-                    final long initX = ( i * portionSize ) % width;
-                    final long initY = ( i * portionSize ) / width;
-                    // either map a portion or (for the last portion) go
-                    // until the end
-                    final long endX = ( i == nTasks - 1 ) ? width : ( initX + ( i + 1 ) * portionSize ) % width;
-                    final long endY = ( i == nTasks - 1 ) ? height - 1
-                            : ( initX + ( i + 1 ) * portionSize ) / width;
-
-                    sourceRandomAccess.setPosition( initX, dimX );
-                    sourceRandomAccess.setPosition( initY, dimY );
-
-                    for ( long y = initY; y <= endY; ++y )
-                    {
-                        for ( long x = ( y == initY ? initX : 0 ); x < ( y == endY ? endX : width ); ++x )
-                        {
-                            targetCursor.fwd();
-                            converter.convert( sourceRandomAccess.get(), targetCursor.get() );
-                            sourceRandomAccess.fwd( dimX );
-
-                        }
-                        sourceRandomAccess.move( cr, dimX );
-                        sourceRandomAccess.fwd( dimY );
-                    }
-                }
-
-                else
-                {
-                    // either map a portion or (for the last portion) go
-                    // until the end
-                    while ( ( i != nTasks - 1 && stepsTaken < portionSize )
-                            || ( i == nTasks - 1 && targetCursor.hasNext() ) )
-                    {
-                        stepsTaken++;
-
-                        final B b = targetCursor.next();
-                        sourceRandomAccess.setPosition( targetCursor.getLongPosition( 0 ), dimX );
-                        sourceRandomAccess.setPosition( targetCursor.getLongPosition( 1 ), dimY );
-
-                        converter.convert( sourceRandomAccess.get(), b );
-                    }
-                }
-
-                return null;
-            });
-		}
-
-		try
-		{
-			List< Future< Void > > futures = service.invokeAll( tasks );
-			for ( Future< Void > f : futures )
-				f.get();
-		}
-		catch ( InterruptedException | ExecutionException e )
-		{
-			e.printStackTrace();
-		}
-
+		final List< Integer > tasks = IntStream.range( 0, nTasks ).boxed().collect( Collectors.toList() );
+
+		executor.forEach( tasks, i -> {
+			final Cursor< B > targetCursor = target.localizingCursor();
+
+			// we might need either a cursor or a RandomAccess
+			final RandomAccess< A > sourceRandomAccess = source.randomAccess();
+			sourceRandomAccess.setPosition( position );
+
+			final Cursor< A > sourceCursor = ii.cursor();
+
+			// jump to correct starting point
+			targetCursor.jumpFwd( i * portionSize );
+			sourceCursor.jumpFwd( i * portionSize );
+			long stepsTaken = 0;
+
+			if ( target.iterationOrder().equals( ii.iterationOrder() )
+					&& !( sourceCursor instanceof RandomAccessibleIntervalCursor ) )
+			{
+				// either map a portion or (for the last portion) go
+				// until the end
+				while ( ( i != nTasks - 1 && stepsTaken < portionSize )
+						|| ( i == nTasks - 1 && targetCursor.hasNext() ) )
+				{
+					stepsTaken++;
+					converter.convert( sourceCursor.next(), targetCursor.next() );
+				}
+			}
+
+			else if ( target.iterationOrder() instanceof FlatIterationOrder )
+			{
+
+				final long cr = -target.dimension( 0 );
+				final long width = target.dimension( 0 );
+				final long height = target.dimension( 1 );
+
+				final long initX = ( i * portionSize ) % width;
+				final long initY = ( i * portionSize ) / width;
+				// either map a portion or (for the last portion) go
+				// until the end
+				final long endX = ( i == nTasks - 1 ) ? width : ( ( i + 1 ) * portionSize ) % width;
+				final long endY = ( i == nTasks - 1 ) ? height - 1 : ( ( i + 1 ) * portionSize ) / width;
+
+				sourceRandomAccess.setPosition( min[ dimX ] + initX, dimX );
+				sourceRandomAccess.setPosition( min[ dimY ] + initY, dimY );
+
+				for ( long y = initY; y <= endY; ++y )
+				{
+					for ( long x = ( y == initY ? initX : 0 ); x < ( y == endY ? endX : width ); ++x )
+					{
+						targetCursor.fwd();
+						converter.convert( sourceRandomAccess.get(), targetCursor.get() );
+						sourceRandomAccess.fwd( dimX );
+
+					}
+					sourceRandomAccess.move( cr, dimX );
+					sourceRandomAccess.fwd( dimY );
+				}
+			}
+
+			else
+			{
+				// either map a portion or (for the last portion) go
+				// until the end
+				while ( ( i != nTasks - 1 && stepsTaken < portionSize )
+						|| ( i == nTasks - 1 && targetCursor.hasNext() ) )
+				{
+					stepsTaken++;
+
+					final B b = targetCursor.next();
+					sourceRandomAccess.setPosition( targetCursor.getLongPosition( 0 ), dimX );
+					sourceRandomAccess.setPosition( targetCursor.getLongPosition( 1 ), dimY );
+
+					converter.convert( sourceRandomAccess.get(), b );
+				}
+			}
+		} );
 	}
 
 }
@@ -0,0 +1,239 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2025 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Gabriel Selzer, Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.imagej.img;
+
+import ij.ImagePlus;
+import ij.ImageStack;
+import ij.process.ImageProcessor;
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
+import net.imglib2.img.planar.PlanarImg;
+import net.imglib2.util.Cast;
+
+/**
+ * A real, non-virtual {@link ImageStack} whose slices are the plane arrays of
+ * a {@link PlanarImg}. Unlike {@link PlanarImgToImagePlus}, this stack
+ * returns its pixel arrays from {@link #getImageArray()} and is not
+ * {@link #isVirtual() virtual}, such that ImageJ commands like Duplicate,
+ * Reslice or the stack calculator take their in-memory code paths. No pixels
+ * are copied.
+ * <p>
+ * The plane arrays are obtained from the {@link PlanarImg} lazily, when a
+ * slice is accessed for the first time, or all at once by
+ * {@link #getImageArray()} and {@link #materialize()}. This avoids loading
+ * all planes of a {@link PlanarImg} whose planes are loaded on demand.
+ * {@link ImageStack#getVoxel(int, int, int)} and
+ * {@link ImageStack#setVoxel(int, int, int, double)} can't trigger this, call
+ * {@link #materialize()} before using them.
+ * <p>
+ * Arrays set by {@link #setPixels(Object, int)} or
+ * {@link #setProcessor(ImageProcessor, int)} replace the planes of the
+ * {@link PlanarImg}. After slices were added or deleted, the stack no longer
+ * corresponds to the {@link PlanarImg}, and it is not modified any more.
+ *
+ * @see PlanarImgToImagePlus#wrapNonVirtual(PlanarImg, String)
+ */
+public class PlanarImgStack extends ImageStack
+{
+
+	private final PlanarImg< ?, ? > img;
+
+	private boolean detached = false;
+
+	/**
+	 * Creates a stack with one slice per plane of {@code img}. The pixel type
+	 * must be {@link net.imglib2.type.numeric.integer.UnsignedByteType},
+	 * {@link net.imglib2.type.numeric.integer.UnsignedShortType},
+	 * {@link net.imglib2.type.numeric.ARGBType} or
+	 * {@link net.imglib2.type.numeric.real.FloatType}, see
+	 * {@link PlanarImgToImagePlus#isSupported(Object)}.
+	 *
+	 * @param img the {@link PlanarImg} to wrap
+	 */
+	public PlanarImgStack( final PlanarImg< ?, ? > img )
+	{
+		super( ( int ) img.dimension( 0 ), ( int ) img.dimension( 1 ), img.numSlices() );
+		if ( !PlanarImgToImagePlus.isSupported( img ) )
+			throw new IllegalArgumentException( "Image is not supported: " + img );
+		this.img = img;
+	}
+
+	/**
+	 * Returns the {@link PlanarImg} whose planes are the slices of this stack.
+	 * <p>
+	 * NB: The image still contains all planes, even if slices were deleted
+	 * from this stack.
+	 */
+	public PlanarImg< ?, ? > getSource()
+	{
+		return img;
+	}
+
+	/**
+	 * Obtains the arrays of all planes that were not accessed yet.
+	 */
+	public synchronized void materialize()
+	{
+		for ( int n = 1; n <= getSize(); n++ )
+			materialize( n );
+	}
+
+	@Override
+	public Object getPixels( final int n )
+	{
+		materialize( n );
+		return super.getPixels( n );
+	}
+
+	@Override
+	public void setPixels( final Object pixels, final int n )
+	{
+		super.setPixels( pixels, n );
+		setPlane( pixels, n );
+	}
+
+	@Override
+	public ImageProcessor getProcessor( final int n )
+	{
+		materialize( n );
+		return super.getProcessor( n );
+	}
+
+	@Override
+	public void setProcessor( final ImageProcessor ip, final int n )
+	{
+		super.setProcessor( ip, n );
+		setPlane( ip.getPixels(), n );
+	}
+
+	@Override
+	public Object[] getImageArray()
+	{
+		materialize();
+		return super.getImageArray();
+	}
+
+	@Override
+	public float[] getVoxels( final int x0, final int y0, final int z0, final int w, final int h, final int d, final float[] voxels )
+	{
+		materialize();
+		return super.getVoxels( x0, y0, z0, w, h, d, voxels );
+	}
+
+	@Override
+	public float[] getVoxels( final int x0, final int y0, final int z0, final int w, final int h, final int d, final float[] voxels, final int channel )
+	{
+		materialize();
+		return super.getVoxels( x0, y0, z0, w, h, d, voxels, channel );
+	}
+
+	@Override
+	public void setVoxels( final int x0, final int y0, final int z0, final int w, final int h, final int d, final float[] voxels )
+	{
+		materialize();
+		super.setVoxels( x0, y0, z0, w, h, d, voxels );
+	}
+
+	@Override
+	public void setVoxels( final int x0, final int y0, final int z0, final int w, final int h, final int d, final float[] voxels, final int channel )
+	{
+		materialize();
+		super.setVoxels( x0, y0, z0, w, h, d, voxels, channel );
+	}
+
+	@Override
+	public ImageStack duplicate()
+	{
+		materialize();
+		return super.duplicate();
+	}
+
+	@Override
+	public ImageStack crop( final int x, final int y, final int z, final int width, final int height, final int depth )
+	{
+		materialize();
+		return super.crop( x, y, z, width, height, depth );
+	}
+
+	@Override
+	public ImageStack convertToFloat()
+	{
+		materialize();
+		return super.convertToFloat();
+	}
+
+	@Override
+	public synchronized void addSlice( final String sliceLabel, final ImageProcessor ip, final int n )
+	{
+		materialize();
+		detached = true;
+		super.addSlice( sliceLabel, ip, n );
+	}
+
+	@Override
+	public synchronized void deleteSlice( final int n )
+	{
+		materialize();
+		detached = true;
+		super.deleteSlice( n );
+	}
+
+	@Override
+	public synchronized void deleteLastSlice()
+	{
+		materialize();
+		detached = true;
+		super.deleteLastSlice();
+	}
+
+	private synchronized void materialize( final int n )
+	{
+		if ( !detached && n >= 1 && n <= img.numSlices() && super.getPixels( n ) == null )
+			super.setPixels( ( ( ArrayDataAccess< ? > ) img.getPlane( n - 1 ) ).getCurrentStorageArray(), n );
+	}
+
+	private synchronized void setPlane( final Object pixels, final int n )
+	{
+		if ( detached || pixels == null || n < 1 || n > img.numSlices() )
+			return;
+		try
+		{
+			img.setPlane( n - 1, Cast.unchecked( PlanarImgToImagePlus.wrapPixelsToAccess( pixels ) ) );
+		}
+		catch ( final UnsupportedOperationException e )
+		{
+			// NB: The stack keeps the array, see PlanarImgToImagePlus.setPixelsZeroBasedIndex.
+		}
+	}
+}
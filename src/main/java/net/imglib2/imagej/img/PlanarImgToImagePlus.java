@@ -37,6 +37,7 @@ package net.imglib2.imagej.img;
 import ij.ImagePlus;
 import ij.VirtualStack;
 import net.imglib2.Interval;
+import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.img.basictypeaccess.PlanarAccess;
 import net.imglib2.img.basictypeaccess.array.*;
 import net.imglib2.img.cell.CellImg;
@@ -98,12 +99,84 @@ public class PlanarImgToImagePlus extends AbstractVirtualStack
 	 */
 	public static ImagePlus wrap(PlanarImg< ?, ? > img, String name )
 	{
-		final VirtualStack stack = new PlanarImgToImagePlus( img, x -> x );
+		return wrap( img, img, name );
+	}
+
+	static ImagePlus wrap( PlanarImg< ?, ? > img, RandomAccessibleInterval< ? > source, String name )
+	{
+		return wrap( img, source, x -> x, name );
+	}
+
+	/**
+	 * Wraps a {@link PlanarImg} into an {@link ImagePlus} with a real,
+	 * non-virtual {@link PlanarImgStack}, whose slices are the plane arrays of
+	 * the image. Like {@link #wrap(PlanarImg, String)}, no pixels are copied,
+	 * but ImageJ commands that process stacks take their faster code paths for
+	 * in-memory stacks.
+	 * <p>
+	 * The requirements on the image are the same as for
+	 * {@link #wrap(PlanarImg, String)}.
+	 *
+	 * @param img the {@link PlanarImg} to convert
+	 * @param name the {@link String} title to assign to the result
+	 * @return an {@link ImagePlus} sharing the planes of {@code img}
+	 * @see #isSupported(Object)
+	 */
+	public static ImagePlus wrapNonVirtual( PlanarImg< ?, ? > img, String name )
+	{
+		final ImagePlus imp = new ImagePlus( name, new PlanarImgStack( img ) );
+		ImageStackUtils.setDimensions( imp, img );
+		return imp;
+	}
+
+	/**
+	 * Returns true, if {@link #wrapView(RandomAccessibleInterval, String)}
+	 * supports the given image. That's the case for a {@link PlanarImg} or a
+	 * {@link CellImg} with planar cells, and for views of them that select,
+	 * subsample, reorder or slice dimensions 2 and higher, e.g.
+	 * {@link net.imglib2.view.Views#hyperSlice},
+	 * {@link net.imglib2.view.Views#interval},
+	 * {@link net.imglib2.view.Views#subsample} or
+	 * {@link net.imglib2.view.Views#moveAxis}. The XY-planes of the view must
+	 * be complete planes of the image.
+	 *
+	 * @param obj an {@link Object} that may be supported by {@code wrapView}
+	 * @return {@code true} iff {@code obj} can be converted into an {@link ImagePlus}.
+	 */
+	public static boolean isSupportedView( Object obj )
+	{
+		return obj instanceof RandomAccessibleInterval && PlanarView.analyze( ( RandomAccessibleInterval< ? > ) obj ) != null;
+	}
+
+	/**
+	 * Wraps a view of a {@link PlanarImg} or of a {@link CellImg} with planar
+	 * cells into an {@link ImagePlus}, without copying data. Each plane of the
+	 * {@link ImagePlus} is a plane of the underlying image, chosen by
+	 * composing the transformations of the view. This allows to show a single
+	 * channel, a range of slices or every n-th slice of a large image, or to
+	 * reorder its axes, e.g. XYZCT to XYCZT.
+	 * <p>
+	 * Dimensions 2, 3 and 4 of the view are mapped to channel, Z and time.
+	 * Use {@link #isSupportedView(Object)} to check if the view is supported.
+	 *
+	 * @param view the view to convert
+	 * @param name the {@link String} title to assign to the result
+	 * @return an {@link ImagePlus} wrapping the data of {@code view}
+	 * @see #isSupportedView(Object)
+	 */
+	public static ImagePlus wrapView( RandomAccessibleInterval< ? > view, String name )
+	{
+		final PlanarView planarView = PlanarView.analyze( view );
+		if ( planarView == null )
+			throw new IllegalArgumentException( "View is not supported: " + view );
+		return wrap( planarView.getImg(), view, planarView.getIndexer(), name );
+	}
+
+	private static ImagePlus wrap( PlanarImg< ?, ? > img, RandomAccessibleInterval< ? > source, IntUnaryOperator indexer, String name )
+	{
+		final VirtualStack stack = new PlanarImgToImagePlus( img, source, indexer );
 		final ImagePlus imp = new ImagePlus(name, stack);
-		final int c = img.numDimensions() > 2 ? (int) img.dimension(2) : 1;
-		final int z = img.numDimensions() > 3 ? (int) img.dimension(3) : 1;
-		final int t = img.numDimensions() > 4 ? (int) img.dimension(4) : 1;
-		imp.setDimensions(c, z, t);
+		ImageStackUtils.setDimensions( imp, source );
 		return imp;
 	}
 
@@ -113,12 +186,15 @@ public class PlanarImgToImagePlus extends AbstractVirtualStack
 
 	private final IntUnaryOperator indexer;
 
+	private final RandomAccessibleInterval< ? > source;
+
 	// constructor
 
-	private PlanarImgToImagePlus(final PlanarImg< ?, ? > img, final IntUnaryOperator indexer )
+	private PlanarImgToImagePlus(final PlanarImg< ?, ? > img, final RandomAccessibleInterval< ? > source, final IntUnaryOperator indexer )
 	{
-		super( ( int ) img.dimension( 0 ), ( int ) img.dimension( 1 ), initSize( img ), getBitDepth( img.randomAccess().get() ) );
+		super( ( int ) img.dimension( 0 ), ( int ) img.dimension( 1 ), initSize( source ), getBitDepth( img.randomAccess().get() ) );
 		this.img = img;
+		this.source = source;
 		this.indexer = indexer;
 	}
 
@@ -129,6 +205,21 @@ public class PlanarImgToImagePlus extends AbstractVirtualStack
 
 	// public methods
 
+	/**
+	 * Returns the image wrapped by this stack, which shares its pixel buffers
+	 * with this stack. That's the {@link PlanarImg} given to
+	 * {@link #wrap(PlanarImg, String)}, the view given to
+	 * {@link #wrapView(RandomAccessibleInterval, String)} or the
+	 * {@link CellImg} given to {@link CellImgToImagePlus#wrap(CellImg, String)}.
+	 * <p>
+	 * NB: The image still contains all planes, even if slices were deleted
+	 * from this stack.
+	 */
+	public RandomAccessibleInterval< ? > getSource()
+	{
+		return source;
+	}
+
 	@Override
 	protected Object getPixelsZeroBasedIndex( final int index )
 	{
@@ -157,7 +248,7 @@ public class PlanarImgToImagePlus extends AbstractVirtualStack
 		}
 	}
 
-	private ArrayDataAccess< ? > wrapPixelsToAccess( Object pixels )
+	static ArrayDataAccess< ? > wrapPixelsToAccess( Object pixels )
 	{
 		if ( pixels instanceof byte[] )
 			return new ByteArray( ( byte[] ) pixels );
@@ -172,7 +263,7 @@ public class PlanarImgToImagePlus extends AbstractVirtualStack
 
 	// Helper methods
 
-	private static int getBitDepth( final Type< ? > type )
+	static int getBitDepth( final Type< ? > type )
 	{
 		if ( type instanceof UnsignedByteType )
 			return 8;
@@ -0,0 +1,230 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2025 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Gabriel Selzer, Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.imagej.img;
+
+import net.imglib2.RandomAccessible;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
+import net.imglib2.img.cell.CellImg;
+import net.imglib2.img.planar.PlanarImg;
+import net.imglib2.transform.integer.MixedTransform;
+import net.imglib2.type.NativeType;
+import net.imglib2.util.IntervalIndexer;
+import net.imglib2.view.IntervalView;
+import net.imglib2.view.MixedTransformView;
+import net.imglib2.view.SubsampleView;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Describes a view of a {@link PlanarImg} (or a {@link CellImg} with planar
+ * cells) whose XY-planes are complete planes of the underlying image. That's
+ * the case for {@link net.imglib2.view.Views#hyperSlice},
+ * {@link net.imglib2.view.Views#interval}, {@link net.imglib2.view.Views#subsample},
+ * {@link net.imglib2.view.Views#permute} and similar views, as long as they
+ * only affect dimensions 2 and higher.
+ * <p>
+ * The view is analysed by walking the chain of {@link IntervalView}s,
+ * {@link MixedTransformView}s and {@link SubsampleView}s down to the image,
+ * composing their transformations. Every coordinate of the image is then
+ * {@code offset + scale * x}, where {@code x} is a coordinate of the view
+ * (or a constant if {@code scale} is zero).
+ */
+class PlanarView
+{
+	private final PlanarImg< ?, ? > img;
+
+	private final IntUnaryOperator indexer;
+
+	private PlanarView( final PlanarImg< ?, ? > img, final IntUnaryOperator indexer )
+	{
+		this.img = img;
+		this.indexer = indexer;
+	}
+
+	/**
+	 * @return the {@link PlanarImg} that holds the planes of the view.
+	 */
+	PlanarImg< ?, ? > getImg()
+	{
+		return img;
+	}
+
+	/**
+	 * @return maps the zero-based plane index of the view to the plane index
+	 *         of {@link #getImg()}.
+	 */
+	IntUnaryOperator getIndexer()
+	{
+		return indexer;
+	}
+
+	/**
+	 * Returns a {@link PlanarView} for the given view, or {@code null} if its
+	 * XY-planes are not planes of an underlying {@link PlanarImg} or
+	 * {@link CellImg} with planar cells.
+	 */
+	static PlanarView analyze( final RandomAccessibleInterval< ? > view )
+	{
+		final int n = view.numDimensions();
+		if ( n < 2 || n > 5 )
+			return null;
+
+		// maps the coordinates of the view to the coordinates of "current"
+		long[] offset = new long[ n ];
+		long[] scale = new long[ n ];
+		int[] component = new int[ n ];
+		Arrays.fill( scale, 1 );
+		Arrays.setAll( component, d -> d );
+
+		RandomAccessible< ? > current = view;
+		final PlanarImg< ?, ? > img;
+		while ( true )
+		{
+			if ( current instanceof PlanarImg )
+			{
+				img = ( PlanarImg< ?, ? > ) current;
+				break;
+			}
+			if ( current instanceof CellImg && CellImgToImagePlus.isSupportedPlanar( current ) )
+			{
+				img = CellImgToImagePlus.toPlanarImg( cast( current ) );
+				break;
+			}
+			if ( current instanceof IntervalView )
+			{
+				current = ( ( IntervalView< ? > ) current ).getSource();
+			}
+			else if ( current instanceof MixedTransformView )
+			{
+				final MixedTransform transform = ( ( MixedTransformView< ? > ) current ).getTransformToSource();
+				final int m = transform.numTargetDimensions();
+				final long[] translation = new long[ m ];
+				final boolean[] zero = new boolean[ m ];
+				final boolean[] inversion = new boolean[ m ];
+				final int[] mapping = new int[ m ];
+				transform.getTranslation( translation );
+				transform.getComponentZero( zero );
+				transform.getComponentInversion( inversion );
+				transform.getComponentMapping( mapping );
+				final long[] nextOffset = new long[ m ];
+				final long[] nextScale = new long[ m ];
+				final int[] nextComponent = new int[ m ];
+				for ( int d = 0; d < m; d++ )
+				{
+					nextOffset[ d ] = translation[ d ];
+					if ( zero[ d ] )
+						continue;
+					final int c = mapping[ d ];
+					final long sign = inversion[ d ] ? -1 : 1;
+					nextOffset[ d ] += sign * offset[ c ];
+					nextScale[ d ] = sign * scale[ c ];
+					nextComponent[ d ] = component[ c ];
+				}
+				offset = nextOffset;
+				scale = nextScale;
+				component = nextComponent;
+				current = ( ( MixedTransformView< ? > ) current ).getSource();
+			}
+			else if ( current instanceof SubsampleView )
+			{
+				final long[] steps = ( ( SubsampleView< ? > ) current ).getSteps();
+				for ( int d = 0; d < steps.length; d++ )
+				{
+					offset[ d ] *= steps[ d ];
+					scale[ d ] *= steps[ d ];
+				}
+				current = ( ( SubsampleView< ? > ) current ).getSource();
+			}
+			else
+				return null;
+		}
+
+		if ( !isValid( view, img, offset, scale, component ) )
+			return null;
+		return new PlanarView( img, indexer( view, img, offset, scale, component ) );
+	}
+
+	private static boolean isValid( final RandomAccessibleInterval< ? > view, final PlanarImg< ?, ? > img, final long[] offset, final long[] scale, final int[] component )
+	{
+		if ( img.numDimensions() < 2 || !ImageProcessorUtils.isSupported( img.getType() ) )
+			return false;
+		// X and Y must be the complete, unmodified planes
+		for ( int d = 0; d < 2; d++ )
+			if ( scale[ d ] != 1 || component[ d ] != d || offset[ d ] + view.min( d ) != 0 || view.dimension( d ) != img.dimension( d ) )
+				return false;
+		for ( int d = 2; d < img.numDimensions(); d++ )
+		{
+			if ( scale[ d ] != 0 && component[ d ] < 2 )
+				return false;
+			final long a = offset[ d ] + scale[ d ] * view.min( component[ d ] );
+			final long b = offset[ d ] + scale[ d ] * view.max( component[ d ] );
+			if ( Math.min( a, b ) < 0 || Math.max( a, b ) >= img.dimension( d ) )
+				return false;
+		}
+		return true;
+	}
+
+	private static IntUnaryOperator indexer( final RandomAccessibleInterval< ? > view, final PlanarImg< ?, ? > img, final long[] offset, final long[] scale, final int[] component )
+	{
+		final int n = view.numDimensions();
+		final long[] min = new long[ n ];
+		final long[] dimensions = new long[ Math.max( 0, n - 2 ) ];
+		view.min( min );
+		for ( int d = 2; d < n; d++ )
+			dimensions[ d - 2 ] = view.dimension( d );
+		final long[] imgDimensions = img.dimensionsAsLongArray();
+		return index -> {
+			final long[] position = new long[ dimensions.length ];
+			IntervalIndexer.indexToPosition( index, dimensions, position );
+			long planeIndex = 0;
+			long stride = 1;
+			for ( int d = 2; d < imgDimensions.length; d++ )
+			{
+				final int c = component[ d ];
+				final long x = ( scale[ d ] == 0 ) ? 0 : min[ c ] + position[ c - 2 ];
+				planeIndex += ( offset[ d ] + scale[ d ] * x ) * stride;
+				stride *= imgDimensions[ d ];
+			}
+			return ( int ) planeIndex;
+		};
+	}
+
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
+	private static < T extends NativeType< T >, A extends ArrayDataAccess< A > > CellImg< T, A > cast( final RandomAccessible< ? > img )
+	{
+		return ( CellImg ) img;
+	}
+}
@@ -0,0 +1,304 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2025 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Gabriel Selzer, Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.imagej.img;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Flow;
+import java.util.function.IntFunction;
+
+/**
+ * A {@link Flow.Publisher} that delivers the planes of an image in order,
+ * e.g. the planes of an {@link ij.ImagePlus} or an {@link ImageJVirtualStack}.
+ * <p>
+ * Planes are loaded (or computed) on a {@link PlaneScheduler}, several planes
+ * in parallel, but only as far ahead as the subscriber requested them:
+ * at most {@code min( outstanding demand, maxLookahead )} planes are loading
+ * or waiting to be delivered at any time. This bounds the memory held by the
+ * publisher, while keeping the scheduler busy as long as the subscriber keeps
+ * up.
+ * <p>
+ * Every subscriber receives all planes, starting with the first one. The
+ * loads of a subscription are submitted on behalf of the subscription, such
+ * that cancelling it removes its pending loads from the scheduler.
+ *
+ * @param <T> plane type
+ */
+public class PlanePublisher< T > implements Flow.Publisher< T >
+{
+	private final int numPlanes;
+
+	private final IntFunction< ? extends T > loader;
+
+	private final int maxLookahead;
+
+	private final PlaneScheduler scheduler;
+
+	private final PlaneScheduler.Priority priority;
+
+	/**
+	 * Creates a publisher that loads planes on the shared
+	 * {@link PlaneScheduler} with {@link PlaneScheduler.Priority#BACKGROUND}
+	 * priority.
+	 *
+	 * @param numPlanes the number of planes
+	 * @param loader loads the plane with the given zero-based index. It is
+	 *            called concurrently for different planes.
+	 * @param maxLookahead the maximum number of planes loaded ahead of the
+	 *            subscriber
+	 */
+	public PlanePublisher( final int numPlanes, final IntFunction< ? extends T > loader, final int maxLookahead )
+	{
+		this( numPlanes, loader, maxLookahead, PlaneScheduler.getInstance(), PlaneScheduler.Priority.BACKGROUND );
+	}
+
+	/**
+	 * @param numPlanes the number of planes
+	 * @param loader loads the plane with the given zero-based index. It is
+	 *            called concurrently for different planes.
+	 * @param maxLookahead the maximum number of planes loaded ahead of the
+	 *            subscriber
+	 * @param scheduler the {@link PlaneScheduler} that runs the loads
+	 * @param priority the priority of the loads
+	 */
+	public PlanePublisher( final int numPlanes, final IntFunction< ? extends T > loader, final int maxLookahead, final PlaneScheduler scheduler, final PlaneScheduler.Priority priority )
+	{
+		if ( maxLookahead < 1 )
+			throw new IllegalArgumentException( "maxLookahead must be positive, but was " + maxLookahead );
+		this.numPlanes = numPlanes;
+		this.loader = loader;
+		this.maxLookahead = maxLookahead;
+		this.scheduler = scheduler;
+		this.priority = priority;
+	}
+
+	@Override
+	public void subscribe( final Flow.Subscriber< ? super T > subscriber )
+	{
+		final PlaneSubscription subscription = new PlaneSubscription( subscriber );
+		subscriber.onSubscribe( subscription );
+		subscription.drain();
+	}
+
+	private class PlaneSubscription implements Flow.Subscription
+	{
+		private final Flow.Subscriber< ? super T > subscriber;
+
+		private final Map< Integer, T > ready = new HashMap<>();
+
+		private long demand;
+
+		private int nextLoad;
+
+		private int nextEmit;
+
+		private boolean emitting;
+
+		private boolean terminated;
+
+		private Throwable failure;
+
+		private PlaneSubscription( final Flow.Subscriber< ? super T > subscriber )
+		{
+			this.subscriber = subscriber;
+		}
+
+		@Override
+		public void request( final long n )
+		{
+			synchronized ( this )
+			{
+				if ( n <= 0 )
+				{
+					if ( failure == null )
+						failure = new IllegalArgumentException( "Requested " + n + " planes, must be positive." );
+				}
+				else
+					demand = ( demand + n < 0 ) ? Long.MAX_VALUE : demand + n;
+			}
+			drain();
+		}
+
+		@Override
+		public void cancel()
+		{
+			synchronized ( this )
+			{
+				terminated = true;
+				ready.clear();
+			}
+			scheduler.cancelPending( this );
+		}
+
+		/**
+		 * Starts loads as allowed by demand and look-ahead, and delivers the
+		 * planes that are ready. Only one thread delivers at a time, the
+		 * others just start loads and return.
+		 */
+		private void drain()
+		{
+			final List< Integer > loads = new ArrayList<>();
+			synchronized ( this )
+			{
+				scheduleLoads( loads );
+				if ( emitting )
+				{
+					startLoads( loads );
+					return;
+				}
+				emitting = true;
+			}
+			while ( true )
+			{
+				startLoads( loads );
+				loads.clear();
+				final T plane;
+				final Throwable error;
+				synchronized ( this )
+				{
+					if ( terminated )
+					{
+						emitting = false;
+						return;
+					}
+					if ( failure != null )
+					{
+						error = failure;
+						plane = null;
+						terminate();
+					}
+					else if ( demand > 0 && ready.containsKey( nextEmit ) )
+					{
+						error = null;
+						plane = ready.remove( nextEmit++ );
+						demand--;
+						scheduleLoads( loads );
+					}
+					else if ( nextEmit >= numPlanes )
+					{
+						error = null;
+						plane = null;
+						terminate();
+					}
+					else
+					{
+						emitting = false;
+						return;
+					}
+				}
+				if ( plane != null )
+				{
+					subscriber.onNext( plane );
+					continue;
+				}
+				scheduler.cancelPending( this );
+				if ( error != null )
+					subscriber.onError( error );
+				else
+					subscriber.onComplete();
+				return;
+			}
+		}
+
+		private void terminate()
+		{
+			terminated = true;
+			emitting = false;
+			ready.clear();
+		}
+
+		/**
+		 * Reserves the indices of the planes to load next. Must be called
+		 * while holding the lock.
+		 */
+		private void scheduleLoads( final List< Integer > loads )
+		{
+			while ( !terminated && failure == null && nextLoad < numPlanes
+					&& nextLoad - nextEmit < Math.min( demand, maxLookahead ) )
+				loads.add( nextLoad++ );
+		}
+
+		private void startLoads( final List< Integer > loads )
+		{
+			for ( final int index : loads )
+			{
+				try
+				{
+					scheduler.submit( this, priority, () -> load( index ) );
+				}
+				catch ( final RuntimeException e )
+				{
+					fail( e );
+				}
+			}
+		}
+
+		private void load( final int index )
+		{
+			final T plane;
+			try
+			{
+				plane = loader.apply( index );
+			}
+			catch ( final Throwable e )
+			{
+				fail( e );
+				return;
+			}
+			if ( plane == null )
+			{
+				fail( new NullPointerException( "Plane " + index + " is null." ) );
+				return;
+			}
+			synchronized ( this )
+			{
+				if ( !terminated )
+					ready.put( index, plane );
+			}
+			drain();
+		}
+
+		private void fail( final Throwable e )
+		{
+			synchronized ( this )
+			{
+				if ( failure == null )
+					failure = e;
+			}
+			drain();
+		}
+	}
+}
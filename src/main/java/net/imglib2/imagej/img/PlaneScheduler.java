@@ -0,0 +1,643 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2025 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Gabriel Selzer, Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.imagej.img;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Library-wide scheduler for the computation of {@link ImageJVirtualStack}
+ * planes.
+ * <p>
+ * Tasks are submitted on behalf of an owner (typically the stack they compute
+ * planes for) with a {@link Priority}. Workers always pick a task of the most
+ * urgent non-empty priority class. Within a priority class, the owners are
+ * served round-robin, such that a stack with many queued tasks cannot starve
+ * the other stacks. The number of worker threads (the thread budget) is shared
+ * by all owners and can be changed at any time using
+ * {@link #setNumThreads(int)}.
+ * <p>
+ * Use {@link #executorService(Object, Priority)} to obtain an
+ * {@link ExecutorService} that can be passed wherever this library expects
+ * one, e.g. to {@link ImageJVirtualStack#setExecutorService(ExecutorService)}.
+ * Tasks submitted from within a worker thread are executed directly by the
+ * submitting thread, such that nested parallelism can not dead-lock the pool.
+ * <p>
+ * Exceptions thrown by tasks that are not observed through a {@link Future}
+ * are passed to the {@link Thread.UncaughtExceptionHandler} of the worker.
+ * <p>
+ * The shared scheduler is used by default for loading the planes of cached
+ * images ({@link Priority#PREFETCH}), for the cells of
+ * {@link CachedCellImgToImagePlus} and for
+ * {@link ImageJVirtualStack#planePublisher(int)} ({@link Priority#PREFETCH}).
+ * The projection of {@link ImageJVirtualStack} planes only runs here if the
+ * stack was given a service of this scheduler, see
+ * {@link ImageJVirtualStack#setPlaneScheduler(PlaneScheduler)}. Otherwise it
+ * uses the {@link ExecutorService} it was given, or the executor of the
+ * requesting thread, see
+ * {@link net.imglib2.parallel.Parallelization#getTaskExecutor()}.
+ *
+ * @see #getInstance()
+ */
+public class PlaneScheduler
+{
+
+	/**
+	 * Priority classes of the {@link PlaneScheduler}, from most to least
+	 * urgent.
+	 */
+	public enum Priority
+	{
+		/** Computation of a plane that is currently displayed. */
+		VISIBLE,
+		/** Computation of planes that are likely to be displayed soon. */
+		PREFETCH,
+		/** Statistics, materialization and other background work. */
+		BACKGROUND
+	}
+
+	private static final Object SHARED_OWNER = new Object();
+
+	private static PlaneScheduler instance;
+
+	/**
+	 * Returns the library-wide {@link PlaneScheduler}. It is created on first
+	 * use with one thread per available processor.
+	 *
+	 * @return the shared {@link PlaneScheduler}
+	 */
+	public static synchronized PlaneScheduler getInstance()
+	{
+		if ( instance == null )
+			instance = new PlaneScheduler( Runtime.getRuntime().availableProcessors(), "imglib2-imagej-planes" );
+		return instance;
+	}
+
+	/**
+	 * Returns the {@link PlaneScheduler} backing the given
+	 * {@link ExecutorService}, or {@code null} if it was not created by
+	 * {@link #executorService(Object, Priority)}.
+	 *
+	 * @param service an {@link ExecutorService}, may be {@code null}
+	 * @return the {@link PlaneScheduler} behind {@code service}, or {@code null}
+	 */
+	public static PlaneScheduler schedulerOf( final ExecutorService service )
+	{
+		return ( service instanceof OwnerExecutorService ) ? ( ( OwnerExecutorService ) service ).scheduler() : null;
+	}
+
+	private final String name;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final Condition notEmpty = lock.newCondition();
+
+	private final EnumMap< Priority, LinkedHashMap< Object, ArrayDeque< Runnable > > > queues = new EnumMap<>( Priority.class );
+
+	private final List< Thread > workers = new ArrayList<>();
+
+	private final ThreadLocal< Boolean > isWorker = ThreadLocal.withInitial( () -> false );
+
+	private int numThreads;
+
+	private int threadCounter = 0;
+
+	private boolean shutdown = false;
+
+	/**
+	 * Creates a new {@link PlaneScheduler}. Most code should use the shared
+	 * instance returned by {@link #getInstance()} instead.
+	 *
+	 * @param numThreads the number of worker threads
+	 * @param name prefix for the names of the worker threads
+	 */
+	public PlaneScheduler( final int numThreads, final String name )
+	{
+		this.name = name;
+		for ( final Priority priority : Priority.values() )
+			queues.put( priority, new LinkedHashMap<>() );
+		setNumThreads( numThreads );
+	}
+
+	/**
+	 * Sets the thread budget of this scheduler. Surplus workers finish their
+	 * current task before they terminate.
+	 *
+	 * @param numThreads the number of worker threads, at least 1
+	 */
+	public void setNumThreads( final int numThreads )
+	{
+		if ( numThreads < 1 )
+			throw new IllegalArgumentException( "numThreads must be positive" );
+		lock.lock();
+		try
+		{
+			if ( shutdown )
+				throw new IllegalStateException( "PlaneScheduler has been shut down." );
+			this.numThreads = numThreads;
+			while ( workers.size() < numThreads )
+			{
+				final Thread worker = new Thread( this::work, name + "-" + ( threadCounter++ ) );
+				worker.setDaemon( true );
+				workers.add( worker );
+				worker.start();
+			}
+			notEmpty.signalAll();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return the thread budget of this scheduler
+	 */
+	public int getNumThreads()
+	{
+		lock.lock();
+		try
+		{
+			return numThreads;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Stops this scheduler. Tasks that did not start yet are removed and
+	 * their {@link Future}s are cancelled, running tasks are completed. Further
+	 * submissions are rejected.
+	 *
+	 * @throws IllegalStateException if called on the shared instance returned
+	 *             by {@link #getInstance()}
+	 */
+	public void shutdown()
+	{
+		synchronized ( PlaneScheduler.class )
+		{
+			if ( this == instance )
+				throw new IllegalStateException( "The shared PlaneScheduler can not be shut down." );
+		}
+		final List< Runnable > removed = new ArrayList<>();
+		lock.lock();
+		try
+		{
+			shutdown = true;
+			for ( final LinkedHashMap< Object, ArrayDeque< Runnable > > queue : queues.values() )
+			{
+				for ( final ArrayDeque< Runnable > tasks : queue.values() )
+					removed.addAll( tasks );
+				queue.clear();
+			}
+			notEmpty.signalAll();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+		cancel( removed );
+	}
+
+	/**
+	 * @return true if the calling thread is a worker of this scheduler
+	 */
+	public boolean isWorkerThread()
+	{
+		return isWorker.get();
+	}
+
+	/**
+	 * Schedules a task on behalf of {@code owner}.
+	 *
+	 * @param owner the owner of the task, used for fair-sharing, may be {@code null}
+	 * @param priority the {@link Priority} class of the task
+	 * @param task the task to execute
+	 * @param <T> the result type of the task
+	 * @return a {@link Future} representing the pending result of {@code task}
+	 */
+	public < T > Future< T > submit( final Object owner, final Priority priority, final Callable< T > task )
+	{
+		final FutureTask< T > future = new FutureTask<>( task );
+		enqueue( owner, priority, future );
+		return future;
+	}
+
+	/**
+	 * Schedules a task on behalf of {@code owner}.
+	 *
+	 * @param owner the owner of the task, used for fair-sharing, may be {@code null}
+	 * @param priority the {@link Priority} class of the task
+	 * @param task the task to execute
+	 * @return a {@link Future} that completes when {@code task} finished
+	 */
+	public Future< ? > submit( final Object owner, final Priority priority, final Runnable task )
+	{
+		final FutureTask< Void > future = new FutureTask<>( task, null );
+		enqueue( owner, priority, future );
+		return future;
+	}
+
+	/**
+	 * Removes all tasks of the given owner that did not start yet. Their
+	 * {@link Future}s are cancelled.
+	 *
+	 * @param owner the owner whose tasks should be removed
+	 * @return the number of removed tasks
+	 */
+	public int cancelPending( final Object owner )
+	{
+		final List< Runnable > removed = new ArrayList<>();
+		lock.lock();
+		try
+		{
+			for ( final LinkedHashMap< Object, ArrayDeque< Runnable > > queue : queues.values() )
+			{
+				final ArrayDeque< Runnable > tasks = queue.remove( key( owner ) );
+				if ( tasks != null )
+					removed.addAll( tasks );
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+		cancel( removed );
+		return removed.size();
+	}
+
+	/**
+	 * @param priority a {@link Priority} class
+	 * @return the number of queued tasks in the given class
+	 */
+	public int getQueueLength( final Priority priority )
+	{
+		lock.lock();
+		try
+		{
+			int length = 0;
+			for ( final ArrayDeque< Runnable > tasks : queues.get( priority ).values() )
+				length += tasks.size();
+			return length;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns an {@link ExecutorService} that submits its tasks to this
+	 * scheduler, on behalf of the shared default owner with
+	 * {@link Priority#VISIBLE} priority.
+	 * <p>
+	 * {@link ImageJVirtualStack#setExecutorService(ExecutorService)} recognizes
+	 * such services, and re-binds them to the stack as owner.
+	 *
+	 * @return an {@link ExecutorService} backed by this scheduler
+	 */
+	public ExecutorService executorService()
+	{
+		return executorService( null, Priority.VISIBLE );
+	}
+
+	/**
+	 * Returns an {@link ExecutorService} that submits its tasks to this
+	 * scheduler, on behalf of {@code owner} with the given priority.
+	 * <p>
+	 * Shutting down the returned service only prevents further submissions
+	 * through it, the worker threads of the scheduler are not affected.
+	 *
+	 * @param owner the owner of the submitted tasks, may be {@code null}
+	 * @param priority the {@link Priority} class of the submitted tasks
+	 * @return an {@link ExecutorService} backed by this scheduler
+	 */
+	public ExecutorService executorService( final Object owner, final Priority priority )
+	{
+		return new OwnerExecutorService( owner, priority );
+	}
+
+	private static Object key( final Object owner )
+	{
+		return owner == null ? SHARED_OWNER : owner;
+	}
+
+	private static void cancel( final List< Runnable > tasks )
+	{
+		for ( final Runnable task : tasks )
+			if ( task instanceof Future )
+				( ( Future< ? > ) task ).cancel( false );
+	}
+
+	private static void report( final Throwable t )
+	{
+		final Thread thread = Thread.currentThread();
+		thread.getUncaughtExceptionHandler().uncaughtException( thread, t );
+	}
+
+	private void enqueue( final Object owner, final Priority priority, final Runnable task )
+	{
+		lock.lock();
+		try
+		{
+			if ( shutdown )
+				throw new RejectedExecutionException( "PlaneScheduler has been shut down." );
+			queues.get( priority ).computeIfAbsent( key( owner ), k -> new ArrayDeque<>() ).add( task );
+			notEmpty.signal();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Takes the next task: most urgent priority class first, owners
+	 * round-robin within a class. Returns {@code null} if the calling worker
+	 * exceeds the thread budget and should terminate.
+	 */
+	private Runnable take() throws InterruptedException
+	{
+		lock.lock();
+		try
+		{
+			while ( true )
+			{
+				if ( shutdown || workers.size() > numThreads )
+				{
+					workers.remove( Thread.currentThread() );
+					return null;
+				}
+				for ( final LinkedHashMap< Object, ArrayDeque< Runnable > > queue : queues.values() )
+				{
+					final Iterator< Map.Entry< Object, ArrayDeque< Runnable > > > it = queue.entrySet().iterator();
+					if ( !it.hasNext() )
+						continue;
+					final Map.Entry< Object, ArrayDeque< Runnable > > entry = it.next();
+					final ArrayDeque< Runnable > tasks = entry.getValue();
+					final Runnable task = tasks.poll();
+					it.remove();
+					// NB: re-insert the owner at the end to serve owners round-robin
+					if ( !tasks.isEmpty() )
+						queue.put( entry.getKey(), tasks );
+					return task;
+				}
+				notEmpty.await();
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	private void work()
+	{
+		isWorker.set( true );
+		try
+		{
+			Runnable task;
+			while ( ( task = take() ) != null )
+			{
+				try
+				{
+					task.run();
+				}
+				catch ( final RuntimeException e )
+				{
+					// NB: FutureTasks capture their exceptions, plain Runnables
+					// must not kill the worker.
+					report( e );
+				}
+			}
+		}
+		catch ( final InterruptedException e )
+		{
+			lock.lock();
+			try
+			{
+				workers.remove( Thread.currentThread() );
+			}
+			finally
+			{
+				lock.unlock();
+			}
+		}
+	}
+
+	private class OwnerExecutorService extends AbstractExecutorService
+	{
+		private final Object owner;
+
+		private final Priority priority;
+
+		private final Object monitor = new Object();
+
+		private boolean shutdown = false;
+
+		private int pending = 0;
+
+		OwnerExecutorService( final Object owner, final Priority priority )
+		{
+			this.owner = owner;
+			this.priority = priority;
+		}
+
+		PlaneScheduler scheduler()
+		{
+			return PlaneScheduler.this;
+		}
+
+		@Override
+		protected < T > RunnableFuture< T > newTaskFor( final Runnable runnable, final T value )
+		{
+			return new OwnerTask<>( Executors.callable( runnable, value ), false );
+		}
+
+		@Override
+		protected < T > RunnableFuture< T > newTaskFor( final Callable< T > callable )
+		{
+			return new OwnerTask<>( callable, false );
+		}
+
+		@Override
+		public void execute( final Runnable command )
+		{
+			synchronized ( monitor )
+			{
+				if ( shutdown )
+					throw new RejectedExecutionException( "ExecutorService has been shut down." );
+				pending++;
+			}
+			// NB: Queue the future itself, not a wrapper around it, such that
+			// cancelPending(...) cancels the future seen by the caller.
+			final OwnerTask< ? > task = ( command instanceof OwnerTask && ( ( OwnerTask< ? > ) command ).service() == this )
+					? ( OwnerTask< ? > ) command
+					: new OwnerTask<>( Executors.callable( command ), true );
+			// NB: Nested submissions run in the calling worker. Otherwise
+			// workers waiting for their sub-tasks could dead-lock the pool.
+			if ( isWorkerThread() )
+				task.run();
+			else
+			{
+				try
+				{
+					enqueue( owner, priority, task );
+				}
+				catch ( final RejectedExecutionException e )
+				{
+					task.cancel( false );
+					throw e;
+				}
+			}
+		}
+
+		/**
+		 * A {@link FutureTask} that counts as pending for its
+		 * {@link OwnerExecutorService} until it completed or was cancelled.
+		 */
+		private class OwnerTask< T > extends FutureTask< T >
+		{
+			private final boolean reportExceptions;
+
+			OwnerTask( final Callable< T > callable, final boolean reportExceptions )
+			{
+				super( callable );
+				this.reportExceptions = reportExceptions;
+			}
+
+			OwnerExecutorService service()
+			{
+				return OwnerExecutorService.this;
+			}
+
+			@Override
+			protected void done()
+			{
+				synchronized ( monitor )
+				{
+					pending--;
+					monitor.notifyAll();
+				}
+				if ( reportExceptions && !isCancelled() )
+				{
+					try
+					{
+						get();
+					}
+					catch ( final ExecutionException e )
+					{
+						report( e.getCause() );
+					}
+					catch ( final InterruptedException e )
+					{
+						Thread.currentThread().interrupt();
+					}
+				}
+			}
+		}
+
+		@Override
+		public void shutdown()
+		{
+			synchronized ( monitor )
+			{
+				shutdown = true;
+				monitor.notifyAll();
+			}
+		}
+
+		@Override
+		public List< Runnable > shutdownNow()
+		{
+			shutdown();
+			return Collections.emptyList();
+		}
+
+		@Override
+		public boolean isShutdown()
+		{
+			synchronized ( monitor )
+			{
+				return shutdown;
+			}
+		}
+
+		@Override
+		public boolean isTerminated()
+		{
+			synchronized ( monitor )
+			{
+				return shutdown && pending == 0;
+			}
+		}
+
+		@Override
+		public boolean awaitTermination( final long timeout, final TimeUnit unit ) throws InterruptedException
+		{
+			final long deadline = System.nanoTime() + unit.toNanos( timeout );
+			synchronized ( monitor )
+			{
+				while ( !( shutdown && pending == 0 ) )
+				{
+					final long remaining = deadline - System.nanoTime();
+					if ( remaining <= 0 )
+						return false;
+					TimeUnit.NANOSECONDS.timedWait( monitor, remaining );
+				}
+				return true;
+			}
+		}
+	}
+}
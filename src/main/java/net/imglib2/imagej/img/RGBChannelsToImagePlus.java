@@ -0,0 +1,256 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2025 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Gabriel Selzer, Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.imagej.img;
+
+import ij.ImagePlus;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.Sampler;
+import net.imglib2.converter.Converters;
+import net.imglib2.converter.readwrite.SamplerConverter;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.basictypeaccess.IntAccess;
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
+import net.imglib2.img.planar.PlanarImg;
+import net.imglib2.type.numeric.ARGBType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.util.Cast;
+import net.imglib2.util.IntervalIndexer;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+import net.imglib2.view.composite.Composite;
+
+import java.util.Arrays;
+
+/**
+ * Utility class to show an {@link UnsignedByteType} image with red, green,
+ * blue (and alpha) channels as an RGB {@link ImagePlus}. The channels are
+ * dimension 2 of the image, which must be a {@link PlanarImg} or an
+ * {@link ArrayImg} backed by {@code byte[]}.
+ * <p>
+ * A plane of the {@link ImagePlus} is packed from the channel planes into an
+ * {@code int[]} by a tight loop over primitive arrays, and unpacked the same
+ * way when it is written. Planes can be packed concurrently, e.g. by
+ * {@link net.imglib2.imagej.RAIToImagePlus#copy}.
+ *
+ * @see net.imglib2.imagej.RAIToImagePlus#convertRGB
+ */
+public class RGBChannelsToImagePlus extends AbstractVirtualStack
+{
+
+	// static
+
+	/**
+	 * Returns true, if {@link #wrap(RandomAccessibleInterval, String)}
+	 * supports the given image.
+	 *
+	 * @param obj an {@link Object} that may be supported by {@code wrap}
+	 * @return {@code true} iff {@code obj} is a {@link PlanarImg} or
+	 *         {@link ArrayImg} of {@link UnsignedByteType} backed by
+	 *         {@code byte[]}, with 3 to 5 dimensions and 3 or 4 channels in
+	 *         dimension 2.
+	 */
+	public static boolean isSupported( final Object obj )
+	{
+		if ( !( obj instanceof PlanarImg || obj instanceof ArrayImg ) )
+			return false;
+		final RandomAccessibleInterval< ? > img = ( RandomAccessibleInterval< ? > ) obj;
+		if ( img.numDimensions() < 3 || img.numDimensions() > 5 )
+			return false;
+		if ( img.dimension( 2 ) != 3 && img.dimension( 2 ) != 4 )
+			return false;
+		if ( !( img.getType() instanceof UnsignedByteType ) )
+			return false;
+		final Object access = ( img instanceof PlanarImg )
+				? ( ( PlanarImg< ?, ? > ) img ).getPlane( 0 )
+				: ( ( ArrayImg< ?, ? > ) img ).update( null );
+		return access instanceof ArrayDataAccess && ( ( ArrayDataAccess< ? > ) access ).getCurrentStorageArray() instanceof byte[];
+	}
+
+	/**
+	 * Wraps an {@link UnsignedByteType} image with red, green, blue and
+	 * optionally alpha channel in dimension 2 into an RGB {@link ImagePlus}.
+	 * Dimensions 3 and 4 are mapped to Z and time. Changes to the
+	 * {@link ImagePlus} are written back to the image.
+	 *
+	 * @param img an image supported according to {@link #isSupported(Object)}
+	 * @param name the title of the {@link ImagePlus}
+	 * @return an RGB {@link ImagePlus} showing {@code img}
+	 */
+	public static ImagePlus wrap( final RandomAccessibleInterval< ? > img, final String name )
+	{
+		if ( !isSupported( img ) )
+			throw new IllegalArgumentException( "Image is not supported: " + img );
+		final ImagePlus imp = new ImagePlus( name, new RGBChannelsToImagePlus( img ) );
+		final int z = img.numDimensions() > 3 ? ( int ) img.dimension( 3 ) : 1;
+		final int t = img.numDimensions() > 4 ? ( int ) img.dimension( 4 ) : 1;
+		imp.setDimensions( 1, z, t );
+		return imp;
+	}
+
+	// fields
+
+	private final RandomAccessibleInterval< ? > img;
+
+	private final int numChannels;
+
+	private final int planeSize;
+
+	// constructor
+
+	private RGBChannelsToImagePlus( final RandomAccessibleInterval< ? > img )
+	{
+		super( ( int ) img.dimension( 0 ), ( int ) img.dimension( 1 ), initSize( img ), 24 );
+		this.img = img;
+		this.numChannels = ( int ) img.dimension( 2 );
+		this.planeSize = ( int ) ( img.dimension( 0 ) * img.dimension( 1 ) );
+		setMinAndMax( 0, 255 );
+	}
+
+	private static int initSize( final RandomAccessibleInterval< ? > img )
+	{
+		long size = 1;
+		for ( int d = 3; d < img.numDimensions(); d++ )
+			size *= img.dimension( d );
+		return ( int ) size;
+	}
+
+	// public methods
+
+	/**
+	 * @return the wrapped image
+	 */
+	public RandomAccessibleInterval< ? > getSource()
+	{
+		return img;
+	}
+
+	@Override
+	protected Object getPixelsZeroBasedIndex( final int index )
+	{
+		final int[] argb = new int[ planeSize ];
+		final byte[] r = channel( index, 0 ), g = channel( index, 1 ), b = channel( index, 2 );
+		final int ro = offset( index, 0 ), go = offset( index, 1 ), bo = offset( index, 2 );
+		if ( numChannels == 4 )
+		{
+			final byte[] a = channel( index, 3 );
+			final int ao = offset( index, 3 );
+			for ( int i = 0; i < planeSize; i++ )
+				argb[ i ] = ( a[ ao + i ] & 0xff ) << 24 | ( r[ ro + i ] & 0xff ) << 16 | ( g[ go + i ] & 0xff ) << 8 | ( b[ bo + i ] & 0xff );
+		}
+		else
+		{
+			for ( int i = 0; i < planeSize; i++ )
+				argb[ i ] = 0xff000000 | ( r[ ro + i ] & 0xff ) << 16 | ( g[ go + i ] & 0xff ) << 8 | ( b[ bo + i ] & 0xff );
+		}
+		return argb;
+	}
+
+	@Override
+	protected void setPixelsZeroBasedIndex( final int index, final Object pixels )
+	{
+		final int[] argb = ( int[] ) pixels;
+		for ( int c = 0; c < numChannels; c++ )
+		{
+			final byte[] data = channel( index, c );
+			final int offset = offset( index, c );
+			final int shift = ( c == 3 ) ? 24 : 16 - 8 * c;
+			for ( int i = 0; i < planeSize; i++ )
+				data[ offset + i ] = ( byte ) ( argb[ i ] >> shift );
+		}
+	}
+
+	@Override
+	protected RandomAccessibleInterval< ? > getSliceZeroBasedIndex( final int index )
+	{
+		// NB: A writable view, such that setVoxels changes the image.
+		RandomAccessibleInterval< UnsignedByteType > slice = Cast.unchecked( img );
+		final int n = img.numDimensions();
+		final long[] position = new long[ n - 3 ];
+		IntervalIndexer.indexToPosition( index, Arrays.copyOfRange( Intervals.dimensionsAsLongArray( img ), 3, n ), position );
+		for ( int d = n - 1; d >= 3; d-- )
+			slice = Views.hyperSlice( slice, d, position[ d - 3 ] );
+		final RandomAccessibleInterval< ? extends Composite< UnsignedByteType > > channels = Views.collapse( slice );
+		return Converters.convert( channels, new PackingConverter( numChannels == 4 ) );
+	}
+
+	// Helper methods
+
+	private byte[] channel( final int index, final int c )
+	{
+		final Object access = ( img instanceof PlanarImg )
+				? ( ( PlanarImg< ?, ? > ) img ).getPlane( c + numChannels * index )
+				: ( ( ArrayImg< ?, ? > ) img ).update( null );
+		return ( byte[] ) ( ( ArrayDataAccess< ? > ) access ).getCurrentStorageArray();
+	}
+
+	private int offset( final int index, final int c )
+	{
+		return ( img instanceof PlanarImg ) ? 0 : ( c + numChannels * index ) * planeSize;
+	}
+
+	private static class PackingConverter implements SamplerConverter< Composite< UnsignedByteType >, ARGBType >
+	{
+		private final boolean hasAlpha;
+
+		PackingConverter( final boolean hasAlpha )
+		{
+			this.hasAlpha = hasAlpha;
+		}
+
+		@Override
+		public ARGBType convert( final Sampler< ? extends Composite< UnsignedByteType > > sampler )
+		{
+			return new ARGBType( new IntAccess()
+			{
+				@Override
+				public int getValue( final int index )
+				{
+					final Composite< UnsignedByteType > in = sampler.get();
+					return ARGBType.rgba( in.get( 0 ).get(), in.get( 1 ).get(), in.get( 2 ).get(), hasAlpha ? in.get( 3 ).get() : 255 );
+				}
+
+				@Override
+				public void setValue( final int index, final int value )
+				{
+					final Composite< UnsignedByteType > in = sampler.get();
+					in.get( 0 ).set( ARGBType.red( value ) );
+					in.get( 1 ).set( ARGBType.green( value ) );
+					in.get( 2 ).set( ARGBType.blue( value ) );
+					if ( hasAlpha )
+						in.get( 3 ).set( ARGBType.alpha( value ) );
+				}
+			} );
+		}
+	}
+}
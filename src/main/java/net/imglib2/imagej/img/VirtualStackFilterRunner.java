@@ -0,0 +1,211 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2025 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Gabriel Selzer, Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.imagej.img;
+
+import ij.IJ;
+import ij.ImagePlus;
+import ij.ImageStack;
+import ij.gui.Roi;
+import ij.plugin.filter.PlugInFilter;
+import ij.process.ImageProcessor;
+import net.imglib2.parallel.Parallelization;
+import net.imglib2.parallel.TaskExecutor;
+import net.imglib2.parallel.TaskExecutors;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Applies an ImageJ {@link PlugInFilter} to all planes of a writable
+ * {@link ImageJVirtualStack} in parallel.
+ * <p>
+ * Every worker repeatedly takes the next unprocessed plane, materializes it
+ * with {@link ImageStack#getProcessor(int)}, runs the filter on it and writes
+ * the result back to the wrapped image with
+ * {@link ImageStack#setPixels(Object, int)}, which converts the pixels back
+ * using the stack's converter. The number of workers, and thereby the number
+ * of planes held in memory at the same time, is bounded by
+ * {@code maxInFlight}.
+ * <p>
+ * {@link #run(ImagePlus, PlugInFilter, String)} honors the flags returned by
+ * {@link PlugInFilter#setup}, like ImageJ does: the filter is not run on
+ * image types it does not declare, e.g. {@link PlugInFilter#DOES_8G}, the
+ * filter instance is only
+ * shared by several workers if it declares
+ * {@link PlugInFilter#PARALLELIZE_STACKS}, only the current slice is processed
+ * without {@link PlugInFilter#DOES_STACKS}, and the area {@link Roi} of the
+ * image is set on every processor. Filters that are not thread-safe can be run
+ * in parallel with a {@link Supplier}, that creates one filter per worker.
+ */
+public class VirtualStackFilterRunner
+{
+	private VirtualStackFilterRunner()
+	{
+		// prevent from instantiation
+	}
+
+	/**
+	 * Calls {@link PlugInFilter#setup} on the filter and applies it to the
+	 * planes of the {@link ImageJVirtualStack} wrapped by {@code imp}: all
+	 * planes if the filter declares {@link PlugInFilter#DOES_STACKS}, the
+	 * current slice otherwise. The planes are processed in parallel only if
+	 * the filter declares {@link PlugInFilter#PARALLELIZE_STACKS}. If the
+	 * filter does not support the type of {@code imp}, an error is shown with
+	 * {@link IJ#error(String, String)} and nothing is processed.
+	 *
+	 * @param imp an {@link ImagePlus} with an {@link ImageJVirtualStack}
+	 * @param filter the filter
+	 * @param arg the argument passed to {@link PlugInFilter#setup}
+	 */
+	public static void run( final ImagePlus imp, final PlugInFilter filter, final String arg )
+	{
+		final ImageStack stack = imp.getStack();
+		if ( !( stack instanceof ImageJVirtualStack ) )
+			throw new IllegalArgumentException( "The ImagePlus must be backed by an ImageJVirtualStack." );
+		final int flags = filter.setup( arg, imp );
+		if ( ( flags & PlugInFilter.DONE ) != 0 )
+			return;
+		if ( !supportsType( flags, imp.getType() ) )
+		{
+			IJ.error( filter.getClass().getSimpleName(), "\"" + imp.getTitle() + "\" has an image type the filter does not support." );
+			return;
+		}
+		final boolean doesStacks = ( flags & PlugInFilter.DOES_STACKS ) != 0;
+		final int first = doesStacks ? 1 : imp.getCurrentSlice();
+		final int last = doesStacks ? stack.getSize() : first;
+		final TaskExecutor executor = ( flags & PlugInFilter.PARALLELIZE_STACKS ) != 0
+				? defaultTaskExecutor()
+				: TaskExecutors.singleThreaded();
+		final Roi roi = imp.getRoi();
+		run( ( ImageJVirtualStack< ? > ) stack, () -> filter, executor, executor.getParallelism(), first, last,
+				roi != null && roi.isArea() ? roi : null,
+				( flags & PlugInFilter.SUPPORTS_MASKING ) != 0,
+				( flags & PlugInFilter.NO_CHANGES ) == 0 );
+		if ( ( flags & PlugInFilter.FINAL_PROCESSING ) != 0 )
+			filter.setup( "final", imp );
+		imp.updateAndDraw();
+	}
+
+	/**
+	 * Applies an already set up filter to all planes of the stack, using all
+	 * available processors.
+	 *
+	 * @param stack the stack, must be writable
+	 * @param filter the filter, must be safe to use from multiple threads
+	 */
+	public static void run( final ImageJVirtualStack< ? > stack, final PlugInFilter filter )
+	{
+		final TaskExecutor executor = defaultTaskExecutor();
+		run( stack, () -> filter, executor, executor.getParallelism() );
+	}
+
+	/**
+	 * Applies filters created by {@code filterSupplier} to all planes of the
+	 * stack. Every worker requests its own filter from the supplier.
+	 *
+	 * @param stack the stack, must be writable
+	 * @param filterSupplier creates set up filters, called once per worker
+	 * @param executor the {@link TaskExecutor} that runs the workers
+	 * @param maxInFlight maximal number of planes that are processed at the
+	 *            same time
+	 */
+	public static void run( final ImageJVirtualStack< ? > stack, final Supplier< ? extends PlugInFilter > filterSupplier, final TaskExecutor executor, final int maxInFlight )
+	{
+		run( stack, filterSupplier, executor, maxInFlight, 1, stack.getSize(), null, false, true );
+	}
+
+	private static void run( final ImageJVirtualStack< ? > stack, final Supplier< ? extends PlugInFilter > filterSupplier, final TaskExecutor executor, final int maxInFlight,
+			final int first, final int last, final Roi roi, final boolean masking, final boolean writeBack )
+	{
+		if ( maxInFlight < 1 )
+			throw new IllegalArgumentException( "maxInFlight must be positive." );
+		if ( writeBack && !stack.isWritable() )
+			throw new IllegalArgumentException( "The ImageJVirtualStack is not writable." );
+		final int numWorkers = Math.min( maxInFlight, last - first + 1 );
+		final AtomicInteger nextPlane = new AtomicInteger( first );
+		final List< Integer > workers = IntStream.range( 0, numWorkers ).boxed().collect( Collectors.toList() );
+		executor.forEach( workers, worker -> {
+			final PlugInFilter filter = filterSupplier.get();
+			for ( int n = nextPlane.getAndIncrement(); n <= last; n = nextPlane.getAndIncrement() )
+			{
+				final ImageProcessor processor = stack.getProcessor( n );
+				processor.setSliceNumber( n );
+				if ( roi != null )
+					processor.setRoi( roi );
+				// NB: like ImageJ, restore the pixels outside of a
+				// non-rectangular ROI for filters that support masking
+				final boolean mask = masking && processor.getMask() != null;
+				if ( mask )
+					processor.snapshot();
+				filter.run( processor );
+				if ( mask )
+					processor.reset( processor.getMask() );
+				if ( writeBack )
+					stack.setPixels( processor.getPixels(), n );
+			}
+		} );
+	}
+
+	/**
+	 * Returns true if the flags returned by {@link PlugInFilter#setup} declare
+	 * the given {@link ImagePlus#getType() image type}.
+	 */
+	private static boolean supportsType( final int flags, final int type )
+	{
+		switch ( type )
+		{
+		case ImagePlus.GRAY8:
+			return ( flags & PlugInFilter.DOES_8G ) != 0;
+		case ImagePlus.COLOR_256:
+			return ( flags & PlugInFilter.DOES_8C ) != 0;
+		case ImagePlus.GRAY16:
+			return ( flags & PlugInFilter.DOES_16 ) != 0;
+		case ImagePlus.GRAY32:
+			return ( flags & PlugInFilter.DOES_32 ) != 0;
+		case ImagePlus.COLOR_RGB:
+			return ( flags & PlugInFilter.DOES_RGB ) != 0;
+		default:
+			return false;
+		}
+	}
+
+	private static TaskExecutor defaultTaskExecutor()
+	{
+		final TaskExecutor ambient = Parallelization.getTaskExecutor();
+		return ambient.getParallelism() > 1 ? ambient : TaskExecutors.multiThreaded();
+	}
+}
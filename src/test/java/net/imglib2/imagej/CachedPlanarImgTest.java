@@ -0,0 +1,347 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2025 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Gabriel Selzer, Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.imagej;
+
+import ij.ImagePlus;
+import ij.process.ImageProcessor;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.imagej.img.PlaneScheduler;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.ByteArray;
+import net.imglib2.img.basictypeaccess.array.DirtyByteArray;
+import net.imglib2.test.ImgLib2Assert;
+import net.imglib2.test.RandomImgs;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.util.Cast;
+import org.junit.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests {@link CachedPlanarImg} and the {@link PlaneCachePolicy}s of
+ * {@link ImagePlusToImg#wrapCached(ImagePlus, PlaneCachePolicy)}.
+ */
+public class CachedPlanarImgTest
+{
+	@Test
+	public void testBoundedByCount()
+	{
+		final CachedPlanarImg< ?, ? > img = ImagePlusToImg.wrapCached( randomImagePlus(), PlaneCachePolicy.boundedByCount( 3 ) );
+		for ( int i = 0; i < 10; i++ )
+			img.getPlane( i );
+		assertStatistics( img, 0, 10, 7, 3 );
+		assertSame( img.getPlane( 9 ), img.getPlane( 9 ) );
+		assertStatistics( img, 2, 10, 7, 3 );
+		img.getPlane( 0 );
+		assertStatistics( img, 2, 11, 8, 3 );
+	}
+
+	@Test
+	public void testBoundedByBytes()
+	{
+		final CachedPlanarImg< ?, ? > img = ImagePlusToImg.wrapCached( randomImagePlus(), PlaneCachePolicy.boundedByBytes( 12 ) );
+		for ( int i = 0; i < 10; i++ )
+			img.getPlane( i );
+		assertStatistics( img, 0, 10, 8, 2 );
+		assertEquals( 12, img.getCacheStatistics().getCachedBytes() );
+	}
+
+	@Test
+	public void testNone()
+	{
+		final CachedPlanarImg< ?, ? > img = ImagePlusToImg.wrapCached( randomImagePlus(), PlaneCachePolicy.none() );
+		assertNotSame( img.getPlane( 0 ), img.getPlane( 0 ) );
+		assertStatistics( img, 0, 2, 0, 0 );
+	}
+
+	@Test
+	public void testSoft()
+	{
+		final CachedPlanarImg< ?, ? > img = ImagePlusToImg.wrapCached( randomImagePlus(), PlaneCachePolicy.soft() );
+		assertSame( img.getPlane( 0 ), img.getPlane( 0 ) );
+		assertEquals( 1, img.getCacheStatistics().getHits() );
+		assertEquals( 1, img.getCacheStatistics().getMisses() );
+	}
+
+	@Test
+	public void testContent()
+	{
+		final ImagePlus image = randomImagePlus();
+		final Img< UnsignedByteType > expected = ImagePlusToImg.wrapByteDirect( image );
+		ImgLib2Assert.assertImageEquals( expected, ImagePlusToImg.wrapCached( image, PlaneCachePolicy.none() ) );
+		ImgLib2Assert.assertImageEquals( expected, ImagePlusToImg.wrapCached( image, PlaneCachePolicy.boundedByCount( 1 ) ) );
+	}
+
+	@Test
+	public void testPreload()
+	{
+		final CachedPlanarImg< ?, ? > img = ImagePlusToImg.wrapCached( randomImagePlus(), PlaneCachePolicy.boundedByCount( 10 ) );
+		img.preload( 2, 8 ).join();
+		assertStatistics( img, 0, 6, 0, 6 );
+		img.getPlane( 5 );
+		assertEquals( 1, img.getCacheStatistics().getHits() );
+	}
+
+	@Test
+	public void testReadAhead() throws InterruptedException
+	{
+		final CachedPlanarImg< ?, ? > img = ImagePlusToImg.wrapCached( randomImagePlus(), PlaneCachePolicy.boundedByCount( 10 ).withReadAhead( 3 ) );
+		img.getPlane( 0 );
+		img.getPlane( 1 );
+		for ( int i = 0; i < 500 && img.getCacheStatistics().getCachedPlanes() < 5; i++ )
+			Thread.sleep( 10 );
+		assertStatistics( img, 0, 5, 0, 5 );
+		img.getPlane( 2 );
+		assertEquals( 1, img.getCacheStatistics().getHits() );
+	}
+
+	@Test
+	public void testWriteBackOnFlush()
+	{
+		final Img< UnsignedByteType > img = ArrayImgs.unsignedBytes( 2, 3, 10 );
+		final CachedPlanarImg< ?, ? > cached = ImagePlusToImg.wrapCachedWritable( RAIToImagePlus.wrap( img, "test" ), PlaneCachePolicy.boundedByCount( 10 ) );
+		setValue( cached, 42, 1, 1, 4 );
+		assertEquals( 0, getValue( img, 1, 1, 4 ) );
+		cached.flush();
+		assertEquals( 42, getValue( img, 1, 1, 4 ) );
+	}
+
+	@Test
+	public void testDirtyPlanesExceedBoundsUntilFlush()
+	{
+		final Img< UnsignedByteType > img = ArrayImgs.unsignedBytes( 2, 3, 10 );
+		final CachedPlanarImg< ?, ? > cached = ImagePlusToImg.wrapCachedWritable( RAIToImagePlus.wrap( img, "test" ), PlaneCachePolicy.boundedByCount( 1 ) );
+		setValue( cached, 42, 0, 0, 0 );
+		cached.getPlane( 1 );
+		assertEquals( 0, getValue( img, 0, 0, 0 ) );
+		assertEquals( 2, cached.getCacheStatistics().getCachedPlanes() );
+		cached.flush();
+		assertEquals( 42, getValue( img, 0, 0, 0 ) );
+		assertEquals( 1, cached.getCacheStatistics().getCachedPlanes() );
+		assertEquals( 42, getValue( cached, 0, 0, 0 ) );
+	}
+
+	@Test
+	public void testWriteToEvictedPlane()
+	{
+		final Img< UnsignedByteType > img = ArrayImgs.unsignedBytes( 2, 3, 10 );
+		final CachedPlanarImg< ?, ? > cached = ImagePlusToImg.wrapCachedWritable( RAIToImagePlus.wrap( img, "test" ), PlaneCachePolicy.boundedByCount( 1 ) );
+		final DirtyByteArray plane = Cast.unchecked( cached.getPlane( 0 ) );
+		cached.getPlane( 1 );
+		assertEquals( 1, cached.getCacheStatistics().getCachedPlanes() );
+		plane.setValue( 0, ( byte ) 42 );
+		assertSame( plane, cached.getPlane( 0 ) );
+		cached.flush();
+		assertEquals( 42, getValue( img, 0, 0, 0 ) );
+	}
+
+	@Test
+	public void testDirtyPlanesArePinned()
+	{
+		final Img< UnsignedByteType > img = ArrayImgs.unsignedBytes( 2, 3, 10 );
+		final CachedPlanarImg< ?, ? > cached = ImagePlusToImg.wrapCachedWritable( RAIToImagePlus.wrap( img, "test" ), PlaneCachePolicy.boundedByCount( 2 ) );
+		setValue( cached, 42, 0, 0, 0 );
+		for ( int i = 1; i < 10; i++ )
+			cached.getPlane( i );
+		assertEquals( 0, getValue( img, 0, 0, 0 ) );
+		final long misses = cached.getCacheStatistics().getMisses();
+		assertEquals( 42, getValue( cached, 0, 0, 0 ) );
+		assertEquals( misses, cached.getCacheStatistics().getMisses() );
+	}
+
+	@Test( expected = IllegalArgumentException.class )
+	public void testWritableRequiresBoundedPolicy()
+	{
+		ImagePlusToImg.wrapCachedWritable( randomImagePlus(), PlaneCachePolicy.soft() );
+	}
+
+	@Test
+	public void testInvalidate()
+	{
+		final Img< UnsignedByteType > img = ArrayImgs.unsignedBytes( 2, 3, 10 );
+		final CachedPlanarImg< ?, ? > cached = ImagePlusToImg.wrapCached( RAIToImagePlus.wrap( img, "test" ), PlaneCachePolicy.boundedByCount( 10 ) );
+		assertEquals( 0, getValue( cached, 0, 0, 3 ) );
+		setValue( img, 5, 0, 0, 3 );
+		assertEquals( 0, getValue( cached, 0, 0, 3 ) );
+		cached.invalidate( 3 );
+		assertEquals( 5, getValue( cached, 0, 0, 3 ) );
+	}
+
+	@Test
+	public void testImageUpdatedInvalidatesCurrentPlane()
+	{
+		final Img< UnsignedByteType > img = ArrayImgs.unsignedBytes( 2, 3, 10 );
+		final ImagePlus imp = RAIToImagePlus.wrap( img, "test" );
+		final CachedPlanarImg< ?, ? > cached = ImagePlusToImg.wrapCached( imp, PlaneCachePolicy.boundedByCount( 10 ) );
+		getValue( cached, 0, 0, 0 );
+		getValue( cached, 0, 0, 3 );
+		setValue( img, 5, 0, 0, 0 );
+		setValue( img, 7, 0, 0, 3 );
+		imp.setSlice( 4 );
+		cached.getLoader().imageUpdated();
+		assertEquals( 0, getValue( cached, 0, 0, 0 ) );
+		assertEquals( 7, getValue( cached, 0, 0, 3 ) );
+	}
+
+	@Test
+	public void testImageJEditWinsOverDirtyPlane()
+	{
+		final Img< UnsignedByteType > img = ArrayImgs.unsignedBytes( 2, 3, 10 );
+		final ImagePlus imp = RAIToImagePlus.wrap( img, "test" );
+		final CachedPlanarImg< ?, ? > cached = ImagePlusToImg.wrapCachedWritable( imp, PlaneCachePolicy.boundedByCount( 10 ) );
+		setValue( cached, 42, 0, 0, 3 );
+		imp.setSlice( 4 );
+		final ImageProcessor ip = imp.getProcessor();
+		ip.set( 0, 0, 7 );
+		imp.getStack().setPixels( ip.getPixels(), 4 );
+		cached.getLoader().imageUpdated();
+		assertEquals( 7, getValue( img, 0, 0, 3 ) );
+		assertEquals( 7, getValue( cached, 0, 0, 3 ) );
+		cached.flush();
+		assertEquals( 7, getValue( img, 0, 0, 3 ) );
+	}
+
+	@Test
+	public void testStackSizeChangeDiscardsDirtyPlanes()
+	{
+		final Img< UnsignedByteType > img = ArrayImgs.unsignedBytes( 2, 3, 10 );
+		final ImagePlus imp = RAIToImagePlus.wrap( img, "test" );
+		final CachedPlanarImg< ?, ? > cached = ImagePlusToImg.wrapCachedWritable( imp, PlaneCachePolicy.boundedByCount( 10 ) );
+		setValue( cached, 42, 0, 0, 9 );
+		setValue( cached, 42, 0, 0, 2 );
+		imp.getStack().deleteSlice( 1 );
+		cached.getLoader().imageUpdated();
+		cached.flush();
+		for ( final UnsignedByteType pixel : img )
+			assertEquals( 0, pixel.get() );
+		assertEquals( 0, cached.getCacheStatistics().getCachedPlanes() );
+	}
+
+	@Test
+	public void testClose()
+	{
+		final Img< UnsignedByteType > img = ArrayImgs.unsignedBytes( 2, 3, 10 );
+		final CachedPlanarImg< ?, ? > cached = ImagePlusToImg.wrapCachedWritable( RAIToImagePlus.wrap( img, "test" ), PlaneCachePolicy.boundedByCount( 10 ) );
+		setValue( cached, 42, 1, 1, 4 );
+		cached.close();
+		assertEquals( 42, getValue( img, 1, 1, 4 ) );
+		assertEquals( 0, cached.getCacheStatistics().getCachedPlanes() );
+	}
+
+	@Test
+	public void testPreloadThenClose() throws Exception
+	{
+		final PlaneScheduler scheduler = new PlaneScheduler( 1, "test" );
+		try
+		{
+			final CountDownLatch started = new CountDownLatch( 1 );
+			final CountDownLatch release = new CountDownLatch( 1 );
+			scheduler.submit( null, PlaneScheduler.Priority.VISIBLE, () -> {
+				started.countDown();
+				release.await();
+				return null;
+			} );
+			started.await();
+			final ImagePlusLoader< ByteArray > loader = new ImagePlusLoader<>( randomImagePlus(), array -> new ByteArray( ( byte[] ) array ),
+					PlaneCachePolicy.boundedByCount( 10 ), false, scheduler );
+			final CompletableFuture< Void > future = loader.preload( 0, 10 );
+			loader.imageClosed();
+			release.countDown();
+			try
+			{
+				future.get( 5, TimeUnit.SECONDS );
+				fail( "preload of a closed image completed normally" );
+			}
+			catch ( final ExecutionException | CancellationException e )
+			{
+				// expected
+			}
+			assertEquals( 0, loader.getCache().statistics().getMisses() );
+		}
+		finally
+		{
+			scheduler.shutdown();
+		}
+	}
+
+	@Test
+	public void testImageClosedReleasesCache()
+	{
+		final CachedPlanarImg< ?, ? > cached = ImagePlusToImg.wrapCached( randomImagePlus(), PlaneCachePolicy.boundedByCount( 10 ) );
+		cached.getPlane( 0 );
+		cached.getPlane( 1 );
+		assertEquals( 2, cached.getCacheStatistics().getCachedPlanes() );
+		cached.getLoader().imageClosed();
+		assertEquals( 0, cached.getCacheStatistics().getCachedPlanes() );
+		assertEquals( 0, cached.getCacheStatistics().getCachedBytes() );
+	}
+
+	private static void setValue( final RandomAccessibleInterval< ? > img, final int value, final long... position )
+	{
+		final RandomAccess< UnsignedByteType > ra = Cast.unchecked( img.randomAccess() );
+		ra.setPositionAndGet( position ).set( value );
+	}
+
+	private static int getValue( final RandomAccessibleInterval< ? > img, final long... position )
+	{
+		final RandomAccess< UnsignedByteType > ra = Cast.unchecked( img.randomAccess() );
+		return ra.setPositionAndGet( position ).get();
+	}
+
+	private static void assertStatistics( final CachedPlanarImg< ?, ? > img, final long hits, final long misses, final long evictions, final int cachedPlanes )
+	{
+		final PlaneCacheStatistics statistics = img.getCacheStatistics();
+		assertEquals( "hits", hits, statistics.getHits() );
+		assertEquals( "misses", misses, statistics.getMisses() );
+		assertEquals( "evictions", evictions, statistics.getEvictions() );
+		assertEquals( "cached planes", cachedPlanes, statistics.getCachedPlanes() );
+	}
+
+	private static ImagePlus randomImagePlus()
+	{
+		final Img< UnsignedByteType > random = RandomImgs.seed( 42 ).nextImage( new UnsignedByteType(), 2, 3, 10 );
+		return RAIToImagePlus.wrap( random, "test" );
+	}
+}
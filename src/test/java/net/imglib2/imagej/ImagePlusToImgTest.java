@@ -35,7 +35,17 @@
 package net.imglib2.imagej;
 
 import ij.ImagePlus;
+import ij.process.ByteProcessor;
+import ij.process.ColorProcessor;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.imagej.img.PlanarImgToImagePlus;
 import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.cell.CellImgFactory;
+import net.imglib2.img.planar.PlanarImg;
+import net.imglib2.img.planar.PlanarImgs;
+import net.imglib2.parallel.TaskExecutors;
 import net.imglib2.test.ImgLib2Assert;
 import net.imglib2.test.RandomImgs;
 import net.imglib2.type.NativeType;
@@ -44,9 +54,23 @@ import net.imglib2.type.numeric.NumericType;
 import net.imglib2.type.numeric.integer.UnsignedByteType;
 import net.imglib2.type.numeric.integer.UnsignedIntType;
 import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.type.numeric.real.DoubleType;
 import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Cast;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
 import org.junit.Test;
 
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
 /**
  * Tests the lazy wrapping functions of {@link ImagePlusToImg}.
  *
@@ -128,6 +152,182 @@ public class ImagePlusToImgTest
 		ImgLib2Assert.assertImageEquals( expected, actual );
 	}
 
+	@Test
+	public void testUnwrapPlanarImg()
+	{
+		final PlanarImg< UnsignedByteType, ? > img = PlanarImgs.unsignedBytes( 2, 3, 4 );
+		final ImagePlus image = PlanarImgToImagePlus.wrap( img, "test" );
+		assertSame( img, ImagePlusToImg.unwrap( image ) );
+		assertSame( img, ImagePlusToImg.wrap( image ) );
+		assertSame( img, ImagePlusToImg.wrapDirect( image ) );
+		assertSame( img, ImagePlusToImg.wrapByteDirect( image ) );
+	}
+
+	@Test
+	public void testUnwrapVirtualStack()
+	{
+		final Img< FloatType > img = ArrayImgs.floats( 2, 3, 4 );
+		final ImagePlus image = RAIToImagePlus.wrap( img, "test" );
+		assertSame( img, ImagePlusToImg.unwrap( image ) );
+		assertSame( img, ImagePlusToImg.wrap( image ) );
+	}
+
+	@Test
+	public void testUnwrapAfterDeletingSlice()
+	{
+		final PlanarImg< UnsignedByteType, ? > img = PlanarImgs.unsignedBytes( 2, 3, 4 );
+		final ImagePlus image = PlanarImgToImagePlus.wrap( img, "test" );
+		image.getStack().deleteLastSlice();
+		assertNull( ImagePlusToImg.unwrap( image ) );
+		assertNotSame( img, ImagePlusToImg.wrapByteDirect( image ) );
+	}
+
+	@Test
+	public void testUnwrapOtherImagePlus()
+	{
+		final ImagePlus image = new ImagePlus( "test", new ByteProcessor( 2, 3 ) );
+		assertNull( ImagePlusToImg.unwrap( image ) );
+	}
+
+	@Test
+	public void testRoundTrip()
+	{
+		final ImagePlus image = new ImagePlus( "test", new ByteProcessor( 2, 3 ) );
+		assertSame( image, RAIToImagePlus.wrap( ImagePlusToImg.wrapByteDirect( image ), "test" ) );
+		assertSame( image, RAIToImagePlus.wrap( ImagePlusToImg.wrapCached( image ), "test" ) );
+	}
+
+	@Test
+	public void testCopyToArrayImg()
+	{
+		final ImagePlus image = randomImagePlus( 789, new UnsignedShortType(), DIMENSIONS );
+		final Img< UnsignedShortType > target = ArrayImgs.unsignedShorts( DIMENSIONS );
+		ImagePlusToImg.copy( image, target );
+		ImgLib2Assert.assertImageEquals( ImagePlusToImg.wrapShortDirect( image ), target );
+	}
+
+	@Test
+	public void testCopyToPlanarImg()
+	{
+		final ImagePlus image = randomImagePlus( 890, new FloatType(), DIMENSIONS );
+		final Img< FloatType > target = PlanarImgs.floats( DIMENSIONS );
+		ImagePlusToImg.copy( image, target );
+		ImgLib2Assert.assertImageEquals( ImagePlusToImg.wrapFloatDirect( image ), target );
+	}
+
+	@Test
+	public void testCopyToCellImg()
+	{
+		final ImagePlus image = randomImagePlus( 901, new ARGBType(), 5, 7, 4, 3 );
+		final Img< ARGBType > target = new CellImgFactory<>( new ARGBType(), 2, 3, 3, 2 ).create( 5, 7, 4, 3 );
+		ImagePlusToImg.copy( image, target, TaskExecutors.fixedThreadPool( 4 ) );
+		ImgLib2Assert.assertImageEquals( ImagePlusToImg.wrapRGBADirect( image ), target );
+	}
+
+	@Test
+	public void testCopyWithConversion()
+	{
+		final ImagePlus image = randomImagePlus( 912, new UnsignedByteType(), DIMENSIONS );
+		final Img< DoubleType > target = ArrayImgs.doubles( DIMENSIONS );
+		ImagePlusToImg.copy( image, target );
+		ImgLib2Assert.assertImageEqualsRealType( ImagePlusToImg.wrapByteDirect( image ), target, 0 );
+	}
+
+	@Test( expected = IllegalArgumentException.class )
+	public void testCopyDimensionMismatch()
+	{
+		final ImagePlus image = randomImagePlus( 923, new UnsignedByteType(), DIMENSIONS );
+		ImagePlusToImg.copy( image, ArrayImgs.unsignedBytes( 2, 3, 4 ) );
+	}
+
+	@Test
+	public void testPlanes()
+	{
+		final ImagePlus image = randomImagePlus( 934, new UnsignedByteType(), DIMENSIONS );
+		final Img< UnsignedByteType > direct = ImagePlusToImg.wrapByteDirect( image );
+		final List< Img< ? > > planes = ImagePlusToImg.planes( image ).collect( Collectors.toList() );
+		assertEquals( 4 * 5 * 6, planes.size() );
+		final Img< UnsignedByteType > last = Cast.unchecked( planes.get( planes.size() - 1 ) );
+		ImgLib2Assert.assertImageEquals( Views.hyperSlice( Views.hyperSlice( Views.hyperSlice( direct, 4, 5 ), 3, 4 ), 2, 3 ), last );
+	}
+
+	@Test
+	public void testPlanesOfChannel()
+	{
+		final ImagePlus image = randomImagePlus( 945, new FloatType(), DIMENSIONS );
+		final Img< FloatType > direct = ImagePlusToImg.wrapFloatDirect( image );
+		final List< Img< ? > > planes = ImagePlusToImg.planes( image, 2, 0, 0 ).collect( Collectors.toList() );
+		assertEquals( 5 * 6, planes.size() );
+		final Img< FloatType > second = Cast.unchecked( planes.get( 1 ) );
+		ImgLib2Assert.assertImageEquals( Views.hyperSlice( Views.hyperSlice( Views.hyperSlice( direct, 4, 0 ), 3, 1 ), 2, 1 ), second );
+	}
+
+	@Test
+	public void testPlanesParallel()
+	{
+		final ImagePlus image = randomImagePlus( 956, new UnsignedShortType(), DIMENSIONS );
+		final long[] sequential = ImagePlusToImg.planes( image ).mapToLong( ImagePlusToImgTest::sum ).toArray();
+		final long[] parallel = ImagePlusToImg.planes( image ).parallel().mapToLong( ImagePlusToImgTest::sum ).toArray();
+		assertArrayEquals( sequential, parallel );
+	}
+
+	@Test
+	public void testPlaneSpliteratorSplitsEvenly()
+	{
+		final ImagePlus image = randomImagePlus( 967, new UnsignedByteType(), 2, 3, 10 );
+		final Spliterator< Img< ? > > suffix = ImagePlusToImg.planeSpliterator( image, 0, 0, 0 );
+		final Spliterator< Img< ? > > prefix = suffix.trySplit();
+		assertEquals( 5, prefix.estimateSize() );
+		assertEquals( 5, suffix.estimateSize() );
+	}
+
+	@Test( expected = IllegalArgumentException.class )
+	public void testPlanesInvalidChannel()
+	{
+		final ImagePlus image = randomImagePlus( 978, new UnsignedByteType(), DIMENSIONS );
+		ImagePlusToImg.planes( image, 5, 0, 0 );
+	}
+
+	@Test
+	public void testWrapRGBChannels()
+	{
+		final ColorProcessor processor = new ColorProcessor( 2, 1 );
+		processor.set( 0, 0, 0x123456 );
+		processor.set( 1, 0, 0xabcdef );
+		final ImagePlus image = new ImagePlus( "test", processor );
+		final RandomAccessibleInterval< UnsignedByteType > channels = ImagePlusToImg.wrapRGBChannels( image );
+		assertArrayEquals( new long[] { 2, 1, 3 }, Intervals.dimensionsAsLongArray( channels ) );
+		final RandomAccess< UnsignedByteType > ra = channels.randomAccess();
+		assertEquals( 0x12, ra.setPositionAndGet( 0, 0, 0 ).get() );
+		assertEquals( 0x34, ra.setPositionAndGet( 0, 0, 1 ).get() );
+		assertEquals( 0x56, ra.setPositionAndGet( 0, 0, 2 ).get() );
+		assertEquals( 0xcd, ra.setPositionAndGet( 1, 0, 1 ).get() );
+		ra.setPositionAndGet( 1, 0, 1 ).set( 0x77 );
+		assertEquals( 0xab77ef, processor.get( 1, 0 ) & 0xffffff );
+	}
+
+	@Test
+	public void testWrapRGBChannelsStack()
+	{
+		final ImagePlus image = randomImagePlus( 989, new ARGBType(), 2, 3, 4 );
+		final RandomAccessibleInterval< UnsignedByteType > channels = ImagePlusToImg.wrapRGBChannels( image );
+		assertArrayEquals( new long[] { 2, 3, 3, 4 }, Intervals.dimensionsAsLongArray( channels ) );
+		final Img< ARGBType > argb = ImagePlusToImg.wrapRGBADirect( image );
+		final RandomAccess< ARGBType > ra = argb.randomAccess();
+		final RandomAccess< UnsignedByteType > blue = Views.hyperSlice( channels, 2, 2 ).randomAccess();
+		ra.setPosition( new long[] { 1, 2, 3 } );
+		blue.setPosition( new long[] { 1, 2, 3 } );
+		assertEquals( ARGBType.blue( ra.get().get() ), blue.get().get() );
+	}
+
+	private static long sum( final Img< ? > plane )
+	{
+		long sum = 0;
+		for ( final Object pixel : plane )
+			sum += ( ( UnsignedShortType ) pixel ).get();
+		return sum;
+	}
+
 	private < T extends NativeType< T > & NumericType< T > > ImagePlus randomImagePlus( final int seed, final T type, final long... dimensions )
 	{
 		final Img< T > random = RandomImgs.seed(seed).nextImage( type, dimensions );
@@ -0,0 +1,122 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2025 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Gabriel Selzer, Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.imagej;
+
+import ij.ImagePlus;
+import ij.process.ByteProcessor;
+import net.imglib2.img.Img;
+import net.imglib2.img.planar.PlanarImg;
+import net.imglib2.test.RandomImgs;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests {@link ImagePlusWrapRegistry}.
+ */
+public class ImagePlusWrapRegistryTest
+{
+	@Test
+	public void testWrapCachedReturnsSameWrapper()
+	{
+		final ImagePlus imp = randomImagePlus();
+		final CachedPlanarImg< ?, ? > first = ImagePlusWrapRegistry.wrapCached( imp );
+		assertSame( first, ImagePlusWrapRegistry.wrapCached( imp ) );
+		assertSame( first, ImagePlusWrapRegistry.wrapCached( imp, PlaneCachePolicy.soft() ) );
+		assertNotSame( first, ImagePlusWrapRegistry.wrapCached( imp, PlaneCachePolicy.boundedByCount( 5 ) ) );
+		assertNotSame( first, ImagePlusWrapRegistry.wrapCached( randomImagePlus() ) );
+	}
+
+	@Test
+	public void testWrapDirectReturnsSameWrapper()
+	{
+		final ImagePlus imp = randomImagePlus();
+		assertSame( ImagePlusWrapRegistry.wrapDirect( imp ), ImagePlusWrapRegistry.wrapDirect( imp ) );
+	}
+
+	@Test
+	public void testRemove()
+	{
+		final ImagePlus imp = randomImagePlus();
+		final CachedPlanarImg< ?, ? > first = ImagePlusWrapRegistry.wrapCached( imp );
+		ImagePlusWrapRegistry.remove( imp );
+		assertNotSame( first, ImagePlusWrapRegistry.wrapCached( imp ) );
+	}
+
+	@Test
+	public void testDuplicateDoesNotShareWrapper()
+	{
+		final ImagePlus imp = randomImagePlus();
+		final CachedPlanarImg< ?, ? > first = ImagePlusWrapRegistry.wrapCached( imp );
+		assertNotSame( first, ImagePlusWrapRegistry.wrapCached( imp.duplicate() ) );
+	}
+
+	@Test
+	public void testSetStackCreatesNewWrapper()
+	{
+		final ImagePlus imp = randomImagePlus();
+		final CachedPlanarImg< ?, ? > first = ImagePlusWrapRegistry.wrapCached( imp );
+		imp.setStack( randomImagePlus().getStack() );
+		final CachedPlanarImg< ?, ? > second = ImagePlusWrapRegistry.wrapCached( imp );
+		assertNotSame( first, second );
+		assertSame( second, ImagePlusWrapRegistry.wrapCached( imp ) );
+	}
+
+	@Test
+	public void testDeleteSliceCreatesNewWrapper()
+	{
+		final ImagePlus imp = randomImagePlus();
+		final PlanarImg< ?, ? > first = ImagePlusWrapRegistry.wrapDirect( imp );
+		imp.getStack().deleteLastSlice();
+		final PlanarImg< ?, ? > second = ImagePlusWrapRegistry.wrapDirect( imp );
+		assertNotSame( first, second );
+		assertEquals( 9, second.numSlices() );
+	}
+
+	@Test
+	public void testSingleImageReturnsSameWrapper()
+	{
+		final ImagePlus imp = new ImagePlus( "test", new ByteProcessor( 2, 3 ) );
+		assertSame( ImagePlusWrapRegistry.wrapCached( imp ), ImagePlusWrapRegistry.wrapCached( imp ) );
+	}
+
+	private static ImagePlus randomImagePlus()
+	{
+		final Img< UnsignedByteType > random = RandomImgs.seed( 42 ).nextImage( new UnsignedByteType(), 2, 3, 10 );
+		return RAIToImagePlus.wrap( random, "test" );
+	}
+}
@@ -43,18 +43,28 @@ import net.imglib2.FinalInterval;
 import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.img.Img;
 import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.cell.CellImgFactory;
+import net.imglib2.img.planar.PlanarImgs;
+import net.imglib2.loops.LoopBuilder;
+import net.imglib2.parallel.TaskExecutor;
+import net.imglib2.parallel.TaskExecutors;
+import net.imglib2.test.ImgLib2Assert;
+import net.imglib2.test.RandomImgs;
 import net.imglib2.type.logic.BitType;
 import net.imglib2.type.logic.BoolType;
+import net.imglib2.type.numeric.ARGBType;
 import net.imglib2.type.numeric.IntegerType;
 import net.imglib2.type.numeric.RealType;
 import net.imglib2.type.numeric.integer.*;
 import net.imglib2.type.numeric.real.DoubleType;
 import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Cast;
 import net.imglib2.util.ConstantUtils;
 import net.imglib2.view.Views;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
@@ -245,4 +255,164 @@ public class RAIToImagePlusTest
 		// test
         assertTrue(img.cursor().next().get());
 	}
+
+	@Test
+	public void testCopyPlanarImg()
+	{
+		final Img< UnsignedShortType > img = RandomImgs.seed( 1 ).nextImage( new UnsignedShortType(), 3, 4, 2, 5 );
+		final Img< UnsignedShortType > planar = PlanarImgs.unsignedShorts( 3, 4, 2, 5 );
+		LoopBuilder.setImages( img, planar ).forEachPixel( ( i, o ) -> o.set( i ) );
+		final ImagePlus copy = RAIToImagePlus.copy( planar, "copy" );
+		assertFalse( copy.getStack().isVirtual() );
+		assertEquals( 2, copy.getNChannels() );
+		assertEquals( 5, copy.getNSlices() );
+		ImgLib2Assert.assertImageEquals( img, ImagePlusToImg.wrapShortDirect( copy ) );
+	}
+
+	@Test
+	public void testCopyCellImg()
+	{
+		final Img< ARGBType > img = RandomImgs.seed( 2 ).nextImage( new ARGBType(), 7, 5, 3, 2 );
+		final Img< ARGBType > cells = new CellImgFactory<>( new ARGBType(), 3, 2, 2, 1 ).create( img );
+		LoopBuilder.setImages( img, cells ).forEachPixel( ( i, o ) -> o.set( i ) );
+		final ImagePlus copy = RAIToImagePlus.copy( cells, "copy", TaskExecutors.fixedThreadPool( 3 ), ( done, total ) -> {}, () -> false );
+		assertFalse( copy.getStack().isVirtual() );
+		ImgLib2Assert.assertImageEquals( img, ImagePlusToImg.wrapRGBADirect( copy ) );
+	}
+
+	@Test
+	public void testCopyWithConversion()
+	{
+		final Img< DoubleType > img = RandomImgs.seed( 3 ).nextImage( new DoubleType(), 3, 4, 5 );
+		final ImagePlus copy = RAIToImagePlus.copy( img, "copy" );
+		assertFalse( copy.getStack().isVirtual() );
+		ImgLib2Assert.assertImageEqualsRealType( img, ImagePlusToImg.wrapFloatDirect( copy ), 1e-6 );
+	}
+
+	@Test
+	public void testCopyIsDetached()
+	{
+		final Img< FloatType > img = ArrayImgs.floats( 2, 2 );
+		final ImagePlus copy = RAIToImagePlus.copy( img, "copy" );
+		copy.getProcessor().setf( 0, 0, 42 );
+		assertEquals( 0, img.firstElement().get(), 0 );
+	}
+
+	@Test
+	public void testCopyProgress()
+	{
+		final Img< UnsignedByteType > img = ArrayImgs.unsignedBytes( 2, 2, 7 );
+		final AtomicInteger calls = new AtomicInteger();
+		RAIToImagePlus.copy( img, "copy", TaskExecutors.singleThreaded(), ( done, total ) -> {
+			assertEquals( 7, ( int ) total );
+			assertEquals( calls.incrementAndGet(), ( int ) done );
+		}, () -> false );
+		assertEquals( 7, calls.get() );
+	}
+
+	@Test
+	public void testCopyProgressIsMonotonic()
+	{
+		final Img< UnsignedByteType > img = ArrayImgs.unsignedBytes( 2, 2, 100 );
+		final AtomicInteger last = new AtomicInteger();
+		try (final TaskExecutor executor = TaskExecutors.fixedThreadPool( 4 ))
+		{
+			RAIToImagePlus.copy( img, "copy", executor, ( done, total ) -> {
+				assertEquals( last.get() + 1, ( int ) done );
+				last.set( done );
+			}, () -> false );
+		}
+		assertEquals( 100, last.get() );
+	}
+
+	@Test
+	public void testCopyDoesNotFlush()
+	{
+		final Img< UnsignedByteType > img = ArrayImgs.unsignedBytes( 2, 3, 4 );
+		final ImagePlus imp = RAIToImagePlus.wrap( img, "title" );
+		final CachedPlanarImg< ?, ? > cached = ImagePlusToImg.wrapCachedWritable( imp, PlaneCachePolicy.boundedByCount( 10 ) );
+		final RandomAccessibleInterval< UnsignedByteType > typed = Cast.unchecked( cached );
+		typed.getAt( 1, 1, 2 ).set( 42 );
+		final ImagePlus copy = RAIToImagePlus.copy( typed, "copy" );
+		assertEquals( 42, copy.getStack().getProcessor( 3 ).get( 1, 1 ) );
+		assertEquals( 0, img.getAt( 1, 1, 2 ).get() );
+		assertEquals( "title", imp.getTitle() );
+	}
+
+	@Test( expected = CancellationException.class )
+	public void testCopyCanceled()
+	{
+		final Img< UnsignedByteType > img = ArrayImgs.unsignedBytes( 2, 2, 7 );
+		final AtomicInteger polls = new AtomicInteger();
+		RAIToImagePlus.copy( img, "copy", TaskExecutors.singleThreaded(), ( done, total ) -> {}, () -> polls.incrementAndGet() > 3 );
+	}
+
+	@Test
+	public void testWrapStrategy()
+	{
+		assertEquals( RAIToImagePlus.WrapStrategy.PLANAR, RAIToImagePlus.getWrapStrategy( PlanarImgs.floats( 2, 3, 4 ) ) );
+		assertEquals( RAIToImagePlus.WrapStrategy.CELL, RAIToImagePlus.getWrapStrategy( new CellImgFactory<>( new UnsignedShortType(), 2, 3, 1 ).create( 2, 3, 4 ) ) );
+		assertEquals( RAIToImagePlus.WrapStrategy.ARRAY, RAIToImagePlus.getWrapStrategy( ArrayImgs.argbs( 2, 3 ) ) );
+		assertEquals( RAIToImagePlus.WrapStrategy.PLANAR_VIEW, RAIToImagePlus.getWrapStrategy( Views.hyperSlice( PlanarImgs.unsignedBytes( 2, 3, 4, 5 ), 2, 1 ) ) );
+		assertEquals( RAIToImagePlus.WrapStrategy.VIRTUAL, RAIToImagePlus.getWrapStrategy( PlanarImgs.doubles( 2, 3, 4 ) ) );
+		assertEquals( RAIToImagePlus.WrapStrategy.VIRTUAL, RAIToImagePlus.getWrapStrategy( ArrayImgs.bytes( 2, 3, 4 ) ) );
+		final ImagePlus imp = new ImagePlus( "title", new ByteProcessor( 2, 3 ) );
+		assertEquals( RAIToImagePlus.WrapStrategy.IMAGE_PLUS, RAIToImagePlus.getWrapStrategy( ImagePlusToImg.wrapDirect( imp ) ) );
+	}
+
+	@Test
+	public void testWrapStrategyDoesNotFlush()
+	{
+		final Img< UnsignedByteType > img = ArrayImgs.unsignedBytes( 2, 3, 4 );
+		final ImagePlus imp = RAIToImagePlus.wrap( img, "title" );
+		final CachedPlanarImg< ?, ? > cached = ImagePlusToImg.wrapCachedWritable( imp, PlaneCachePolicy.boundedByCount( 10 ) );
+		final RandomAccessibleInterval< UnsignedByteType > typed = Cast.unchecked( cached );
+		typed.getAt( 1, 1, 2 ).set( 42 );
+		assertEquals( RAIToImagePlus.WrapStrategy.IMAGE_PLUS, RAIToImagePlus.getWrapStrategy( cached ) );
+		assertEquals( 0, img.getAt( 1, 1, 2 ).get() );
+		assertSame( imp, RAIToImagePlus.wrap( typed, "other" ) );
+		assertEquals( "title", imp.getTitle() );
+		assertEquals( 42, img.getAt( 1, 1, 2 ).get() );
+	}
+
+	@Test
+	public void testZeroCopyWrapMatchesVirtualWrap()
+	{
+		assertSameImagePlus( RAIToImagePlus.wrapUnsignedByte( PlanarImgs.unsignedBytes( 4, 5, 2, 3 ), "title" ),
+				RAIToImagePlus.wrap( PlanarImgs.unsignedBytes( 4, 5, 2, 3 ), "title" ) );
+		assertSameImagePlus( RAIToImagePlus.wrapUnsignedShort( ArrayImgs.unsignedShorts( 4, 5, 2, 3 ), "title" ),
+				RAIToImagePlus.wrap( ArrayImgs.unsignedShorts( 4, 5, 2, 3 ), "title" ) );
+		assertSameImagePlus( RAIToImagePlus.wrapFloat( PlanarImgs.floats( 4, 5, 2, 3 ), "title" ),
+				RAIToImagePlus.wrap( PlanarImgs.floats( 4, 5, 2, 3 ), "title" ) );
+	}
+
+	private static void assertSameImagePlus( final ImagePlus expected, final ImagePlus actual )
+	{
+		assertEquals( expected.getBitDepth(), actual.getBitDepth() );
+		assertArrayEquals( expected.getDimensions(), actual.getDimensions() );
+		assertEquals( expected.getOpenAsHyperStack(), actual.getOpenAsHyperStack() );
+		assertEquals( expected.getDisplayRangeMin(), actual.getDisplayRangeMin(), 0 );
+		assertEquals( expected.getDisplayRangeMax(), actual.getDisplayRangeMax(), 0 );
+	}
+
+	@Test
+	public void testWrapSharesPlanes()
+	{
+		final Img< UnsignedShortType > img = PlanarImgs.unsignedShorts( 2, 3, 4, 5 );
+		final ImagePlus imagePlus = RAIToImagePlus.wrap( img, "title" );
+		assertEquals( 4, imagePlus.getNChannels() );
+		assertEquals( 5, imagePlus.getNSlices() );
+		assertEquals( 65535, imagePlus.getDisplayRangeMax(), 0 );
+		imagePlus.getStack().getProcessor( 7 ).set( 1, 2, 42 );
+		assertEquals( 42, img.getAt( 1, 2, 2, 1 ).get() );
+	}
+
+	@Test
+	public void testCopyOfSharedPlanesIsDetached()
+	{
+		final Img< FloatType > img = PlanarImgs.floats( 2, 3, 4 );
+		final ImagePlus copy = RAIToImagePlus.copy( img, "copy" );
+		img.getAt( 0, 0, 1 ).set( 42 );
+		assertEquals( 0, copy.getStack().getProcessor( 2 ).getf( 0, 0 ), 0 );
+	}
 }
@@ -34,14 +34,34 @@
 
 package net.imglib2.imagej.imageplus;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import ij.ImagePlus;
+import ij.ImageStack;
+import net.imglib2.exception.ImgLibException;
+import net.imglib2.imagej.img.ImageJVirtualStackUnsignedByte;
+import net.imglib2.img.basictypeaccess.array.ByteArray;
+import net.imglib2.img.basictypeaccess.array.ShortArray;
+import net.imglib2.img.Img;
 import net.imglib2.img.array.ArrayImgFactory;
+import net.imglib2.img.array.ArrayImgs;
 import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.util.Fraction;
 import net.imglib2.util.Util;
 
 import org.junit.Test;
 
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
 /**
  * Unit tests for {@link ImagePlusImg}.
  *
@@ -66,4 +86,159 @@ public class ImagePlusImgTest
             }
         }
 	}
+
+	@Test
+	public void testLazyPlanes()
+	{
+		final AtomicInteger loads = new AtomicInteger();
+		final ImageStack stack = new ImageStack( 4, 3 )
+		{
+			@Override
+			public Object getPixels( final int n )
+			{
+				loads.incrementAndGet();
+				return super.getPixels( n );
+			}
+		};
+		for ( int i = 0; i < 1000; i++ )
+			stack.addSlice( "", new byte[ 4 * 3 ] );
+		final ImagePlus imp = new ImagePlus( "test", stack );
+		final ByteImagePlus< UnsignedByteType > img = new ByteImagePlus<>( imp );
+		assertEquals( 0, loads.get() );
+		assertSame( stack.getPixels( 42 ), img.getPlane( 41 ).getCurrentStorageArray() );
+		assertEquals( 2, loads.get() );
+		img.getPlane( 41 );
+		assertEquals( 2, loads.get() );
+	}
+
+	@Test
+	public void testLazyPlanesConcurrentAccess()
+	{
+		final ImageStack stack = new ImageStack( 4, 3 );
+		for ( int i = 0; i < 100; i++ )
+			stack.addSlice( "", new byte[ 4 * 3 ] );
+		final ByteImagePlus< UnsignedByteType > img = new ByteImagePlus<>( new ImagePlus( "test", stack ) );
+		final List< ByteArray > planes = IntStream.range( 0, 1000 ).parallel()
+				.mapToObj( i -> img.getPlane( i % 100 ) )
+				.collect( Collectors.toList() );
+		for ( int i = 0; i < planes.size(); i++ )
+			assertSame( img.getPlane( i % 100 ), planes.get( i ) );
+	}
+
+	@Test
+	public void testSetPlane() throws ImgLibException
+	{
+		final ShortImagePlus< UnsignedShortType > img = new ShortImagePlus<>( new long[] { 4, 3, 2 }, new Fraction() );
+		final ImagePlus imp = img.getImagePlus();
+		final short[] first = new short[ 4 * 3 ];
+		final short[] second = new short[ 4 * 3 ];
+		img.setPlane( 0, new ShortArray( first ) );
+		img.setPlane( 1, new ShortArray( second ) );
+		assertSame( first, img.getPlane( 0 ).getCurrentStorageArray() );
+		assertSame( first, imp.getStack().getPixels( 1 ) );
+		assertSame( first, imp.getProcessor().getPixels() );
+		assertSame( second, img.getPlane( 1 ).getCurrentStorageArray() );
+		assertSame( second, imp.getStack().getPixels( 2 ) );
+	}
+
+	@Test
+	public void testSetPlaneNonCurrentSlice() throws ImgLibException
+	{
+		final ShortImagePlus< UnsignedShortType > img = new ShortImagePlus<>( new long[] { 4, 3, 2 }, new Fraction() );
+		final ImagePlus imp = img.getImagePlus();
+		final Object shown = imp.getProcessor().getPixels();
+		final short[] second = new short[ 4 * 3 ];
+		img.setPlane( 1, new ShortArray( second ) );
+		assertEquals( 1, imp.getCurrentSlice() );
+		assertSame( shown, imp.getProcessor().getPixels() );
+		assertSame( shown, imp.getStack().getPixels( 1 ) );
+		assertSame( second, imp.getStack().getPixels( 2 ) );
+	}
+
+	@Test
+	public void testSetPlaneVirtualStack()
+	{
+		final Img< UnsignedByteType > source = ArrayImgs.unsignedBytes( 2, 2, 3 );
+		final ImageJVirtualStackUnsignedByte stack = ImageJVirtualStackUnsignedByte.wrap( source );
+		stack.setWritable( true );
+		final ImagePlus imp = new ImagePlus( "test", stack );
+		imp.setSlice( 2 );
+		final ByteImagePlus< UnsignedByteType > img = new ByteImagePlus<>( imp );
+		final Object pixels = img.getPlane( 1 ).getCurrentStorageArray();
+		final byte[] plane = { 1, 2, 3, 4 };
+		img.setPlane( 1, new ByteArray( plane ) );
+		assertSame( pixels, img.getPlane( 1 ).getCurrentStorageArray() );
+		assertArrayEquals( plane, ( byte[] ) pixels );
+		assertArrayEquals( plane, ( byte[] ) stack.getPixels( 2 ) );
+		assertArrayEquals( plane, ( byte[] ) imp.getProcessor().getPixels() );
+		assertEquals( 4, source.getAt( 1, 1, 1 ).get() );
+	}
+
+	@Test
+	public void testSetPlaneReadOnlyVirtualStack()
+	{
+		final Img< UnsignedByteType > source = ArrayImgs.unsignedBytes( 2, 2, 3 );
+		final ImagePlus imp = new ImagePlus( "test", ImageJVirtualStackUnsignedByte.wrap( source ) );
+		final ByteImagePlus< UnsignedByteType > img = new ByteImagePlus<>( imp );
+		try
+		{
+			img.setPlane( 1, new ByteArray( new byte[] { 1, 2, 3, 4 } ) );
+			fail();
+		}
+		catch ( final UnsupportedOperationException e )
+		{
+			assertArrayEquals( new byte[ 4 ], ( byte[] ) img.getPlane( 1 ).getCurrentStorageArray() );
+			assertEquals( 0, source.getAt( 1, 1, 1 ).get() );
+		}
+	}
+
+	@Test( expected = UnsupportedOperationException.class )
+	public void testSetPlaneForeignVirtualStack()
+	{
+		final ImageStack stack = new ImageStack( 2, 2 )
+		{
+			@Override
+			public boolean isVirtual()
+			{
+				return true;
+			}
+		};
+		for ( int i = 0; i < 3; i++ )
+			stack.addSlice( "", new byte[ 2 * 2 ] );
+		final ByteImagePlus< UnsignedByteType > img = new ByteImagePlus<>( new ImagePlus( "test", stack ) );
+		img.setPlane( 1, new ByteArray( new byte[] { 1, 2, 3, 4 } ) );
+	}
+
+	@Test
+	public void testSetPlaneNullImagePlus()
+	{
+		final ByteImagePlus< UnsignedByteType > img = new ByteImagePlus<>( new long[] { 2, 2, 3 }, new Fraction() )
+		{
+			@Override
+			public void setPlane( final int no, final ByteArray plane )
+			{
+				swapPlane( no, plane, null );
+			}
+		};
+		final ByteArray plane = new ByteArray( 4 );
+		img.setPlane( 2, plane );
+		assertSame( plane, img.getPlane( 2 ) );
+	}
+
+	@Test
+	public void testSetPlaneCopy() throws ImgLibException
+	{
+		final ByteImagePlus< UnsignedByteType > img = new ByteImagePlus<>( new long[] { 2, 2, 3 }, new Fraction() );
+		final Object pixels = img.getImagePlus().getStack().getPixels( 3 );
+		img.setPlaneCopy( 2, new ByteArray( new byte[] { 1, 2, 3, 4 } ) );
+		assertSame( pixels, img.getPlane( 2 ).getCurrentStorageArray() );
+		assertArrayEquals( new byte[] { 1, 2, 3, 4 }, ( byte[] ) pixels );
+	}
+
+	@Test( expected = IllegalArgumentException.class )
+	public void testSetPlaneWrongSize()
+	{
+		final ByteImagePlus< UnsignedByteType > img = new ByteImagePlus<>( new long[] { 2, 2, 3 }, new Fraction() );
+		img.setPlane( 0, new ByteArray( 3 ) );
+	}
 }
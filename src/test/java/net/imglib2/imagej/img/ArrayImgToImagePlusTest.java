@@ -35,13 +35,18 @@
 package net.imglib2.imagej.img;
 
 import ij.ImagePlus;
+import ij.ImageStack;
+import ij.process.ImageProcessor;
 import net.imglib2.img.Img;
 import net.imglib2.img.array.ArrayImg;
 import net.imglib2.img.array.ArrayImgs;
 import net.imglib2.img.basictypeaccess.array.ByteArray;
 import net.imglib2.img.basictypeaccess.array.FloatArray;
+import net.imglib2.img.basictypeaccess.array.ShortArray;
 import net.imglib2.img.cell.CellImgFactory;
 import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.type.numeric.real.DoubleType;
 import net.imglib2.type.numeric.real.FloatType;
 import org.junit.Test;
 
@@ -66,10 +71,14 @@ public class ArrayImgToImagePlusTest
 	public void testIsSupported()
 	{
 		final Img< UnsignedByteType > supported = ArrayImgs.unsignedBytes( 2, 2 );
-		final Img< UnsignedByteType > unsupported1 = ArrayImgs.unsignedBytes( 2, 2, 3 );
+		final Img< UnsignedByteType > supported5d = ArrayImgs.unsignedBytes( 2, 2, 3, 4, 5 );
+		final Img< UnsignedByteType > unsupported1 = ArrayImgs.unsignedBytes( 2, 2, 3, 4, 5, 6 );
+		final Img< DoubleType > unsupported2 = ArrayImgs.doubles( 2, 2, 3 );
 		final Img< UnsignedByteType > cellImg = new CellImgFactory<>( new UnsignedByteType() ).create( 2, 2 );
 		assertTrue( ArrayImgToImagePlus.isSupported( supported ) );
+		assertTrue( ArrayImgToImagePlus.isSupported( supported5d ) );
 		assertFalse( ArrayImgToImagePlus.isSupported( unsupported1 ) );
+		assertFalse( ArrayImgToImagePlus.isSupported( unsupported2 ) );
 		assertFalse( ArrayImgToImagePlus.isSupported( cellImg ) );
 	}
 
@@ -85,4 +94,32 @@ public class ArrayImgToImagePlusTest
 		// test
 		assertEquals( expected, img.cursor().next().getRealFloat(), 0.0f );
 	}
+
+	@Test
+	public void testPlanes()
+	{
+		final short[] buffer = { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12 };
+		final ArrayImg< UnsignedShortType, ShortArray > img = ArrayImgs.unsignedShorts( buffer, 2, 1, 3, 2 );
+		final ImagePlus imagePlus = ArrayImgToImagePlus.wrap( img, "test" );
+		assertEquals( 3, imagePlus.getNChannels() );
+		assertEquals( 2, imagePlus.getNSlices() );
+		assertEquals( 1, imagePlus.getNFrames() );
+		final ImageStack stack = imagePlus.getStack();
+		assertEquals( 6, stack.getSize() );
+		assertArrayEquals( new short[] { 9, 10 }, ( short[] ) stack.getPixels( imagePlus.getStackIndex( 2, 2, 1 ) ) );
+		assertSame( img, ( ( ArrayImgToImagePlus ) stack ).getSource() );
+	}
+
+	@Test
+	public void testWriteBack()
+	{
+		final ArrayImg< FloatType, FloatArray > img = ArrayImgs.floats( 2, 2, 3 );
+		final ImageStack stack = ArrayImgToImagePlus.wrap( img, "test" ).getStack();
+		final ImageProcessor processor = stack.getProcessor( 2 );
+		processor.setf( 1, 0, 42 );
+		stack.setPixels( processor.getPixels(), 2 );
+		assertEquals( 42, img.getAt( 1, 0, 1 ).get(), 0 );
+		stack.setVoxels( 0, 1, 2, 1, 1, 1, new float[] { 7 } );
+		assertEquals( 7, img.getAt( 0, 1, 2 ).get(), 0 );
+	}
 }
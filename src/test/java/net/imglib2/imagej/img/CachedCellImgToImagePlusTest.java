@@ -0,0 +1,189 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2025 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Gabriel Selzer, Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imglib2.imagej.img;
+
+import ij.ImagePlus;
+import net.imglib2.cache.img.CachedCellImg;
+import net.imglib2.cache.img.ReadOnlyCachedCellImgFactory;
+import net.imglib2.cache.img.ReadOnlyCachedCellImgOptions;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.type.numeric.real.DoubleType;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link CachedCellImgToImagePlus}.
+ */
+public class CachedCellImgToImagePlusTest
+{
+
+	@Test
+	public void testIsSupported()
+	{
+		assertTrue( CachedCellImgToImagePlus.isSupported( createImage( new CountDownLatch( 0 ) ) ) );
+		assertFalse( CachedCellImgToImagePlus.isSupported( new ReadOnlyCachedCellImgFactory().create( new long[] { 2, 2 }, new DoubleType(), cell -> {} ) ) );
+		assertFalse( CachedCellImgToImagePlus.isSupported( ArrayImgs.unsignedBytes( 2, 2 ) ) );
+	}
+
+	@Test
+	public void testNonBlocking() throws InterruptedException
+	{
+		final CountDownLatch loaded = new CountDownLatch( 1 );
+		final PlaneScheduler scheduler = new PlaneScheduler( 2, "test" );
+		try
+		{
+			final ImagePlus imp = CachedCellImgToImagePlus.wrap( createImage( loaded ), "title", scheduler );
+			final CachedCellImgToImagePlus stack = ( CachedCellImgToImagePlus ) imp.getStack();
+			assertEquals( 3, imp.getStackSize() );
+			assertArrayEquals( new byte[ 9 ], ( byte[] ) stack.getPixels( 2 ) );
+			assertTrue( stack.getNumLoading() > 0 );
+			loaded.countDown();
+			awaitLoaded( stack );
+			final byte[] expected = new byte[ 9 ];
+			Arrays.fill( expected, ( byte ) 7 );
+			assertArrayEquals( expected, ( byte[] ) stack.getPixels( 2 ) );
+		}
+		finally
+		{
+			loaded.countDown();
+			scheduler.shutdown();
+		}
+	}
+
+	@Test
+	public void testOffScreenReadKeepsVisibleLoads() throws InterruptedException
+	{
+		final PlaneScheduler scheduler = new PlaneScheduler( 1, "test" );
+		final CountDownLatch release = new CountDownLatch( 1 );
+		try
+		{
+			final CountDownLatch started = new CountDownLatch( 1 );
+			scheduler.submit( null, PlaneScheduler.Priority.VISIBLE, () -> {
+				started.countDown();
+				release.await();
+				return null;
+			} );
+			started.await();
+			final ImagePlus imp = CachedCellImgToImagePlus.wrap( createImage( new CountDownLatch( 0 ) ), "title", scheduler );
+			final CachedCellImgToImagePlus stack = ( CachedCellImgToImagePlus ) imp.getStack();
+			// NB: the shown slice 1 needs the 4 cells at z = 0
+			assertEquals( 4, stack.getNumLoading() );
+			// NB: slice 3 needs the 4 cells at z = 2
+			stack.getPixels( 3 );
+			assertEquals( 8, stack.getNumLoading() );
+			release.countDown();
+			awaitLoaded( stack );
+		}
+		finally
+		{
+			release.countDown();
+			scheduler.shutdown();
+		}
+	}
+
+	@Test
+	public void testCloseCancelsLoading() throws InterruptedException
+	{
+		final PlaneScheduler scheduler = new PlaneScheduler( 1, "test" );
+		final CountDownLatch release = new CountDownLatch( 1 );
+		try
+		{
+			final CountDownLatch started = new CountDownLatch( 1 );
+			scheduler.submit( null, PlaneScheduler.Priority.VISIBLE, () -> {
+				started.countDown();
+				release.await();
+				return null;
+			} );
+			started.await();
+			final ImagePlus imp = CachedCellImgToImagePlus.wrap( createImage( new CountDownLatch( 0 ) ), "title", scheduler );
+			final CachedCellImgToImagePlus stack = ( CachedCellImgToImagePlus ) imp.getStack();
+			stack.getPixels( 2 );
+			assertTrue( stack.getNumLoading() > 0 );
+			stack.close();
+			assertEquals( 0, stack.getNumLoading() );
+		}
+		finally
+		{
+			release.countDown();
+			scheduler.shutdown();
+		}
+	}
+
+	@Test
+	public void testBlocking()
+	{
+		final ImagePlus imp = CachedCellImgToImagePlus.wrap( createImage( new CountDownLatch( 0 ) ), "title" );
+		final CachedCellImgToImagePlus stack = ( CachedCellImgToImagePlus ) imp.getStack();
+		stack.setBlocking( true );
+		assertEquals( 7, ( ( byte[] ) stack.getPixels( 3 ) )[ 8 ] );
+		assertEquals( 0, stack.getNumLoading() );
+	}
+
+	@Test
+	public void testSetPixels()
+	{
+		final CachedCellImg< UnsignedByteType, ? > img = createImage( new CountDownLatch( 0 ) );
+		final CachedCellImgToImagePlus stack = ( CachedCellImgToImagePlus ) CachedCellImgToImagePlus.wrap( img, "title" ).getStack();
+		final byte[] pixels = new byte[ 9 ];
+		pixels[ 4 ] = 42;
+		stack.setPixels( pixels, 2 );
+		assertEquals( 42, img.getAt( 1, 1, 1 ).get() );
+		assertEquals( 0, img.getAt( 0, 0, 1 ).get() );
+	}
+
+	private static CachedCellImg< UnsignedByteType, ? > createImage( final CountDownLatch loaded )
+	{
+		return new ReadOnlyCachedCellImgFactory().create( new long[] { 3, 3, 3 }, new UnsignedByteType(), cell -> {
+			loaded.await();
+			cell.forEach( pixel -> pixel.set( 7 ) );
+		}, ReadOnlyCachedCellImgOptions.options().cellDimensions( 2, 2, 2 ) );
+	}
+
+	private static void awaitLoaded( final CachedCellImgToImagePlus stack ) throws InterruptedException
+	{
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos( 10 );
+		while ( stack.getNumLoading() > 0 )
+		{
+			assertTrue( "cells were not loaded", System.nanoTime() < deadline );
+			Thread.sleep( 10 );
+		}
+	}
+}
@@ -35,6 +35,7 @@
 package net.imglib2.imagej.img;
 
 import ij.ImagePlus;
+import ij.ImageStack;
 import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
 import net.imglib2.img.cell.CellImg;
@@ -125,8 +126,55 @@ public class CellImgToImagePlusTest
 
 	@Test
 	public void testIsSupported_NoPlanarCells() {
-		assertFalse( CellImgToImagePlus.isSupported( new CellImgFactory<>( new FloatType(), 1, 2 ).create( 2, 2 ) ) );
-		assertFalse( CellImgToImagePlus.isSupported( new CellImgFactory<>( new FloatType(), 2, 2, 3 ).create( 2, 2, 3 ) ) );
+		assertTrue( CellImgToImagePlus.isSupported( new CellImgFactory<>( new FloatType(), 1, 2 ).create( 2, 2 ) ) );
+		assertTrue( CellImgToImagePlus.isSupported( new CellImgFactory<>( new FloatType(), 2, 2, 3 ).create( 2, 2, 3 ) ) );
+		assertFalse( CellImgToImagePlus.isSupported( new CellImgFactory<>( new DoubleType(), 2, 2, 3 ).create( 2, 2, 3 ) ) );
+	}
+
+	@Test
+	public void testNonPlanarCells()
+	{
+		final CellImg< UnsignedByteType, ? > image = new CellImgFactory<>( new UnsignedByteType(), 2, 2, 2 ).create( 3, 3, 3 );
+		fill( image );
+		final ImagePlus imp = wrap( image );
+		assertTrue( imp.getStack() instanceof CellImgToImagePlus );
+		assertEquals( 3, imp.getStackSize() );
+		assertArrayEquals( new byte[] { 10, 11, 12, 13, 14, 15, 16, 17, 18 }, ( byte[] ) imp.getStack().getPixels( 2 ) );
+		assertArrayEquals( new byte[] { 19, 20, 21, 22, 23, 24, 25, 26, 27 }, ( byte[] ) imp.getStack().getPixels( 3 ) );
+	}
+
+	@Test
+	public void testNonPlanarCellsSetPixels()
+	{
+		final CellImg< FloatType, ? > image = new CellImgFactory<>( new FloatType(), 2, 2, 2 ).create( 3, 3, 3 );
+		final ImageStack stack = wrap( image ).getStack();
+		// NB: cache the plane before it is written
+		stack.getPixels( 3 );
+		final float[] pixels = new float[ 9 ];
+		pixels[ 8 ] = 42;
+		stack.setPixels( pixels, 3 );
+		assertEquals( 42, image.getAt( 2, 2, 2 ).get(), 0 );
+		assertEquals( 42, ( ( float[] ) stack.getPixels( 3 ) )[ 8 ], 0 );
+		stack.setVoxels( 1, 0, 0, 1, 1, 1, new float[] { 7 } );
+		assertEquals( 7, image.getAt( 1, 0, 0 ).get(), 0 );
+		assertEquals( 7, ( ( float[] ) stack.getPixels( 1 ) )[ 1 ], 0 );
+	}
+
+	@Test
+	public void testNonPlanarCellsCache()
+	{
+		final CellImg< FloatType, ? > image = new CellImgFactory<>( new FloatType(), 2, 2, 2 ).create( 3, 3, 3 );
+		final CellImgToImagePlus stack = ( CellImgToImagePlus ) wrap( image ).getStack();
+		assertSame( image, stack.getSource() );
+		final float[] first = ( float[] ) stack.getPixels( 1 );
+		assertNotSame( first, stack.getPixels( 1 ) );
+		image.getAt( 0, 0, 0 ).set( 42 );
+		assertEquals( 0, ( ( float[] ) stack.getPixels( 1 ) )[ 0 ], 0 );
+		stack.invalidateCache();
+		assertEquals( 42, ( ( float[] ) stack.getPixels( 1 ) )[ 0 ], 0 );
+		stack.setCacheSize( 0 );
+		image.getAt( 0, 0, 0 ).set( 7 );
+		assertEquals( 7, ( ( float[] ) stack.getPixels( 1 ) )[ 0 ], 0 );
 	}
 
 	private void fill( RandomAccessibleInterval< ? extends IntegerType< ? > > image )
@@ -0,0 +1,105 @@
+/*-
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2025 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Gabriel Selzer, Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.imagej.img;
+
+import ij.ImageStack;
+import net.imglib2.imagej.RAIToImagePlus;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Stress test for concurrent reads of an {@link ImageJVirtualStack}. Every
+ * benchmark thread repeatedly requests a random plane. Reads are lock-free,
+ * so the throughput should scale linearly with the number of threads, up to
+ * the number of available cores. {@link #main} runs the benchmark with 1 to
+ * 32 reader threads.
+ */
+@State( Scope.Benchmark )
+public class ImageJVirtualStackConcurrentReadBenchmark
+{
+	private ImageStack stack;
+
+	@Setup
+	public void setup()
+	{
+		final Img< UnsignedShortType > img = ArrayImgs.unsignedShorts( 256, 256, 128 );
+		stack = RAIToImagePlus.wrapVirtualStack( img, "test" ).getStack();
+	}
+
+	@Benchmark
+	public void getPixels( final Blackhole blackhole )
+	{
+		final int n = ThreadLocalRandom.current().nextInt( stack.getSize() ) + 1;
+		blackhole.consume( stack.getPixels( n ) );
+	}
+
+	@Benchmark
+	public void getProcessor( final Blackhole blackhole )
+	{
+		final int n = ThreadLocalRandom.current().nextInt( stack.getSize() ) + 1;
+		blackhole.consume( stack.getProcessor( n ) );
+	}
+
+	public static void main( final String... args ) throws RunnerException
+	{
+		for ( int threads = 1; threads <= 32; threads *= 2 )
+		{
+			final Options opt = new OptionsBuilder()
+					.include( ImageJVirtualStackConcurrentReadBenchmark.class.getSimpleName() )
+					.mode( Mode.Throughput )
+					.threads( threads )
+					.forks( 0 )
+					.warmupIterations( 4 )
+					.measurementIterations( 8 )
+					.warmupTime( TimeValue.milliseconds( 100 ) )
+					.measurementTime( TimeValue.milliseconds( 100 ) )
+					.build();
+			new Runner( opt ).run();
+		}
+	}
+}
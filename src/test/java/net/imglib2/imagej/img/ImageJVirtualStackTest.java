@@ -42,13 +42,26 @@ import net.imglib2.RandomAccess;
 import net.imglib2.imagej.RAIToImagePlus;
 import net.imglib2.img.Img;
 import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.parallel.Parallelization;
+import net.imglib2.parallel.TaskExecutor;
+import net.imglib2.parallel.TaskExecutors;
 import net.imglib2.test.RandomImgs;
 import net.imglib2.type.numeric.ARGBType;
+import net.imglib2.type.numeric.integer.ByteType;
 import net.imglib2.type.numeric.integer.UnsignedByteType;
 import net.imglib2.type.numeric.integer.UnsignedShortType;
 import net.imglib2.type.numeric.real.FloatType;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
 import static org.junit.Assert.*;
 
 public class ImageJVirtualStackTest
@@ -240,4 +253,159 @@ public class ImageJVirtualStackTest
 		final ImageProcessor p2 = stack.getProcessor( 2 );
 		assertNotSame( p1, p2 );
 	}
+
+	@Test
+	public void testTaskExecutor()
+	{
+		final Img< UnsignedByteType > img = RandomImgs.seed( 4242 ).nextImage( new UnsignedByteType(), 100, 100, 3 );
+		final ImageJVirtualStack< ? > expected = ImageJVirtualStackUnsignedByte.wrap( img );
+		final ImageJVirtualStack< ? > actual = ImageJVirtualStackUnsignedByte.wrap( img );
+		try (final TaskExecutor executor = TaskExecutors.fixedThreadPool( 4 ))
+		{
+			actual.setTaskExecutor( executor );
+			for ( int i = 1; i <= 3; i++ )
+				assertArrayEquals( ( byte[] ) expected.getPixels( i ), ( byte[] ) actual.getPixels( i ) );
+		}
+	}
+
+	@Test
+	public void testWrapInsideParallelizationDoesNotKeepExecutor()
+	{
+		final Img< ByteType > img = ArrayImgs.bytes( 10, 10, 2 );
+		final AtomicReference< ImagePlus > imagePlus = new AtomicReference<>();
+		final TaskExecutor executor = TaskExecutors.fixedThreadPool( 4 );
+		try
+		{
+			Parallelization.runWithExecutor( executor, () -> imagePlus.set( RAIToImagePlus.wrap( img, "title" ) ) );
+		}
+		finally
+		{
+			executor.close();
+		}
+		final ImageJVirtualStack< ? > stack = ( ImageJVirtualStack< ? > ) imagePlus.get().getStack();
+		assertNotSame( executor, stack.getTaskExecutor() );
+		// NB: projecting must not use the executor that was shut down
+		assertArrayEquals( new byte[ 100 ], ( byte[] ) stack.getPixels( 2 ) );
+	}
+
+	@Test
+	public void testConverterIsNotParallelizedImplicitly()
+	{
+		final Img< UnsignedByteType > img = ArrayImgs.unsignedBytes( 10, 10, 2 );
+		final ImageJVirtualStackFloat stack = new ImageJVirtualStackFloat( img, ( i, o ) -> o.setReal( i.getRealFloat() ) );
+		try (final TaskExecutor executor = TaskExecutors.fixedThreadPool( 4 ))
+		{
+			Parallelization.runWithExecutor( executor, () -> assertEquals( 1, stack.getTaskExecutor().getParallelism() ) );
+		}
+		final ImageJVirtualStackFloat supplied = new ImageJVirtualStackFloat( img, () -> ( i, o ) -> o.setReal( i.getRealFloat() ) );
+		try (final TaskExecutor executor = TaskExecutors.fixedThreadPool( 4 ))
+		{
+			Parallelization.runWithExecutor( executor, () -> assertSame( executor, supplied.getTaskExecutor() ) );
+		}
+	}
+
+	@Test
+	public void testSetMinMaxMultiThreaded()
+	{
+		final Img< FloatType > img = ArrayImgs.floats( new float[] { 3, -7, 12, 5, 0, 1 }, 3, 1, 2 );
+		final ImageJVirtualStackFloat stack = ImageJVirtualStackFloat.wrap( img );
+		try (final TaskExecutor executor = TaskExecutors.fixedThreadPool( 4 ))
+		{
+			stack.setTaskExecutor( executor );
+			stack.setMinMax( img, ( i, o ) -> o.set( i ) );
+		}
+		final ImageProcessor processor = stack.getProcessor( 1 );
+		assertEquals( -7, processor.getMin(), 0 );
+		assertEquals( 12, processor.getMax(), 0 );
+	}
+
+	@Test
+	public void testConverterSupplier()
+	{
+		final Img< UnsignedByteType > img = RandomImgs.seed( 42 ).nextImage( new UnsignedByteType(), 100, 100, 3 );
+		final AtomicInteger created = new AtomicInteger();
+		try (final TaskExecutor executor = TaskExecutors.fixedThreadPool( 4 ))
+		{
+			final ImageJVirtualStackFloat stack = new ImageJVirtualStackFloat( img, () -> {
+				created.incrementAndGet();
+				final FloatType tmp = new FloatType();
+				return ( i, o ) -> {
+					tmp.setReal( i.getRealFloat() );
+					o.set( tmp );
+				};
+			} );
+			stack.setTaskExecutor( executor );
+			final float[] pixels = ( float[] ) stack.getPixels( 2 );
+			final RandomAccess< UnsignedByteType > ra = img.randomAccess();
+			ra.setPosition( new long[] { 17, 53, 1 } );
+			assertEquals( ra.get().getRealFloat(), pixels[ 53 * 100 + 17 ], 0 );
+		}
+		assertTrue( created.get() > 1 );
+	}
+
+	@Test
+	public void testRGBConverterSupplier()
+	{
+		final Img< UnsignedByteType > img = RandomImgs.seed( 42 ).nextImage( new UnsignedByteType(), 100, 100, 3 );
+		final AtomicInteger created = new AtomicInteger();
+		final ExecutorService service = Executors.newFixedThreadPool( 4 );
+		try
+		{
+			final ImagePlus imp = RAIToImagePlus.wrapRGB( img, () -> {
+				created.incrementAndGet();
+				return ( i, o ) -> o.set( ARGBType.rgba( i.get(), i.get(), i.get(), 255 ) );
+			}, "title", service );
+			final int[] pixels = ( int[] ) imp.getStack().getPixels( 2 );
+			final RandomAccess< UnsignedByteType > ra = img.randomAccess();
+			ra.setPosition( new long[] { 17, 53, 1 } );
+			assertEquals( ra.get().get(), pixels[ 53 * 100 + 17 ] & 0xff );
+		}
+		finally
+		{
+			service.shutdown();
+		}
+		assertTrue( created.get() > 1 );
+	}
+
+	@Test
+	public void testConcurrentWritesToSamePlane() throws Exception
+	{
+		final int width = 256, height = 256;
+		final Img< UnsignedByteType > img = ArrayImgs.unsignedBytes( width, height, 2 );
+		final ImageJVirtualStackUnsignedByte stack = ImageJVirtualStackUnsignedByte.wrap( img );
+		stack.setWritable( true );
+		final int nThreads = 8;
+		final ExecutorService writers = Executors.newFixedThreadPool( nThreads );
+		try
+		{
+			final List< Future< ? > > futures = new ArrayList<>();
+			for ( int t = 0; t < nThreads; t++ )
+			{
+				final byte[] pixels = new byte[ width * height ];
+				Arrays.fill( pixels, ( byte ) ( t + 1 ) );
+				futures.add( writers.submit( () -> {
+					for ( int i = 0; i < 50; i++ )
+					{
+						stack.setPixels( pixels, 2 );
+						assertUniform( ( byte[] ) stack.getPixels( 2 ) );
+					}
+				} ) );
+			}
+			for ( final Future< ? > future : futures )
+				future.get();
+		}
+		finally
+		{
+			writers.shutdown();
+		}
+		final byte[] result = ( byte[] ) stack.getPixels( 2 );
+		assertUniform( result );
+		assertNotEquals( 0, result[ 0 ] );
+	}
+
+	private static void assertUniform( final byte[] plane )
+	{
+		for ( final byte value : plane )
+			assertEquals( "partially written plane", plane[ 0 ], value );
+	}
 }
@@ -0,0 +1,75 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2025 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Gabriel Selzer, Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.imagej.img;
+
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.converter.Converter;
+import net.imglib2.converter.Converters;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.parallel.TaskExecutors;
+import net.imglib2.test.ImgLib2Assert;
+import net.imglib2.test.RandomImgs;
+import net.imglib2.type.numeric.integer.IntType;
+import net.imglib2.view.IntervalView;
+import net.imglib2.view.Views;
+import org.junit.Test;
+
+/**
+ * Tests {@link MultithreadedIterableIntervalProjector2D}.
+ */
+public class MultithreadedIterableIntervalProjector2DTest
+{
+	private final Converter< IntType, IntType > copy = ( i, o ) -> o.set( i );
+
+	@Test
+	public void testNonZeroMin()
+	{
+		final Img< IntType > img = RandomImgs.seed( 42 ).nextImage( new IntType(), 20, 20 );
+		final RandomAccessibleInterval< IntType > converted = Converters.convert( ( RandomAccessibleInterval< IntType > ) img, copy, new IntType() );
+		for ( int nTasks = 1; nTasks <= 5; nTasks++ )
+		{
+			assertProjection( img, nTasks );
+			assertProjection( converted, nTasks );
+		}
+	}
+
+	private void assertProjection( final RandomAccessibleInterval< IntType > source, final int nTasks )
+	{
+		// NB: 35 pixels do not split into portions of whole lines
+		final IntervalView< IntType > target = Views.translate( ArrayImgs.ints( 7, 5 ), 5, 3 );
+		new MultithreadedIterableIntervalProjector2D<>( 0, 1, source, target, copy, TaskExecutors.multiThreaded(), nTasks ).map();
+		ImgLib2Assert.assertImageEquals( Views.interval( source, target ), target );
+	}
+}
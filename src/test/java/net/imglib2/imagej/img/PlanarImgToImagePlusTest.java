@@ -39,8 +39,12 @@ import ij.ImagePlus;
 import ij.ImageStack;
 import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.imagej.ImagePlusToImg;
+import net.imglib2.imagej.RAIToImagePlus;
+import net.imglib2.img.Img;
+import net.imglib2.img.basictypeaccess.array.ByteArray;
 import net.imglib2.img.basictypeaccess.array.FloatArray;
 import net.imglib2.img.basictypeaccess.array.IntArray;
+import net.imglib2.img.cell.CellImgFactory;
 import net.imglib2.img.planar.PlanarImg;
 import net.imglib2.img.planar.PlanarImgFactory;
 import net.imglib2.img.planar.PlanarImgs;
@@ -48,9 +52,12 @@ import net.imglib2.type.numeric.ARGBType;
 import net.imglib2.type.numeric.IntegerType;
 import net.imglib2.type.numeric.integer.UnsignedByteType;
 import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Fraction;
 import net.imglib2.view.Views;
 import org.junit.Test;
 
+import java.util.AbstractList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
@@ -161,4 +168,117 @@ public class PlanarImgToImagePlusTest
 		twiceConvertedImagePlus.getStack().getProcessor( 1 ).set( 0, 0, 5 );
 		assertEquals( 5, imagePlus.getStack().getProcessor( 1 ).get( 0, 0 ) );
 	}
+
+	@Test
+	public void testWrapViews()
+	{
+		final PlanarImg< UnsignedByteType, ? > img = new PlanarImgFactory<>( new UnsignedByteType() ).create( 2, 3, 4, 5, 6 );
+		fill( img );
+		testWrapView( img );
+		testWrapView( Views.hyperSlice( img, 2, 1 ) );
+		testWrapView( Views.interval( img, new long[] { 0, 0, 1, 2, 0 }, new long[] { 1, 2, 2, 4, 5 } ) );
+		testWrapView( Views.subsample( img, 1, 1, 1, 2, 3 ) );
+		testWrapView( Views.moveAxis( img, 3, 2 ) );
+		testWrapView( Views.zeroMin( Views.invertAxis( Views.interval( img, new long[] { 0, 0, 0, 1, 0 }, new long[] { 1, 2, 3, 3, 5 } ), 3 ) ) );
+		testWrapView( Views.hyperSlice( Views.hyperSlice( img, 4, 5 ), 2, 3 ) );
+		testWrapView( Views.translate( img, 1, 2, 3, 4, 5 ) );
+	}
+
+	@Test
+	public void testWrapViewOfCellImg()
+	{
+		final Img< UnsignedByteType > img = new CellImgFactory<>( new UnsignedByteType(), 2, 3, 1, 1 ).create( 2, 3, 4, 5 );
+		fill( img );
+		testWrapView( Views.hyperSlice( img, 2, 3 ) );
+	}
+
+	@Test
+	public void testUnsupportedViews()
+	{
+		final PlanarImg< UnsignedByteType, ? > img = PlanarImgs.unsignedBytes( 2, 3, 4 );
+		assertFalse( PlanarImgToImagePlus.isSupportedView( Views.interval( img, new long[] { 0, 0, 0 }, new long[] { 0, 2, 3 } ) ) );
+		assertFalse( PlanarImgToImagePlus.isSupportedView( Views.permute( img, 0, 1 ) ) );
+		assertFalse( PlanarImgToImagePlus.isSupportedView( Views.moveAxis( img, 2, 0 ) ) );
+		assertFalse( PlanarImgToImagePlus.isSupportedView( Views.subsample( img, 2 ) ) );
+		assertFalse( PlanarImgToImagePlus.isSupportedView( Views.interval( Views.extendZero( img ), new long[] { 0, 0, 0 }, new long[] { 1, 2, 4 } ) ) );
+		assertFalse( PlanarImgToImagePlus.isSupportedView( PlanarImgs.bytes( 2, 3, 4 ) ) );
+	}
+
+	@Test
+	public void testWriteThroughView()
+	{
+		final PlanarImg< FloatType, ? > img = PlanarImgs.floats( 1, 1, 3 );
+		final ImagePlus imagePlus = PlanarImgToImagePlus.wrapView( Views.hyperSlice( img, 2, 2 ), "title" );
+		assertSame( img.getPlane( 2 ).getCurrentStorageArray(), imagePlus.getStack().getPixels( 1 ) );
+		imagePlus.getProcessor().setf( 0, 0, 42 );
+		assertEquals( 42, img.randomAccess().setPositionAndGet( 0, 0, 2 ).get(), 0 );
+	}
+
+	private void testWrapView( final RandomAccessibleInterval< UnsignedByteType > view )
+	{
+		assertTrue( PlanarImgToImagePlus.isSupportedView( view ) );
+		final ImagePlus actual = PlanarImgToImagePlus.wrapView( view, "actual" );
+		final ImagePlus expected = RAIToImagePlus.wrap( view, "expected" );
+		assertSame( view, ( ( PlanarImgToImagePlus ) actual.getStack() ).getSource() );
+		assertEquals( expected.getNChannels(), actual.getNChannels() );
+		assertEquals( expected.getNSlices(), actual.getNSlices() );
+		assertEquals( expected.getNFrames(), actual.getNFrames() );
+		for ( int i = 1; i <= expected.getStackSize(); i++ )
+			assertArrayEquals( ( byte[] ) expected.getStack().getPixels( i ), ( byte[] ) actual.getStack().getPixels( i ) );
+	}
+
+	@Test
+	public void testWrapNonVirtual()
+	{
+		final PlanarImg< UnsignedByteType, ? > img = example();
+		final ImagePlus imp = PlanarImgToImagePlus.wrapNonVirtual( img, "title" );
+		final ImageStack stack = imp.getStack();
+		assertFalse( stack.isVirtual() );
+		assertEquals( 2, stack.getSize() );
+		assertSame( ( ( ByteArray ) img.getPlane( 1 ) ).getCurrentStorageArray(), stack.getImageArray()[ 1 ] );
+		assertArrayEquals( new byte[] { 4, 5, 6 }, ( byte[] ) stack.getPixels( 2 ) );
+		assertSame( img, ImagePlusToImg.unwrap( imp ) );
+	}
+
+	@Test
+	public void testWrapNonVirtualSetPixels()
+	{
+		final PlanarImg< UnsignedByteType, ? > img = example();
+		final ImageStack stack = PlanarImgToImagePlus.wrapNonVirtual( img, "title" ).getStack();
+		stack.setPixels( new byte[] { 42, 43, 44 }, 1 );
+		assertEquals( 43, img.getAt( 1, 0, 0 ).get() );
+		stack.deleteLastSlice();
+		stack.setPixels( new byte[] { 7, 7, 7 }, 1 );
+		assertEquals( 43, img.getAt( 1, 0, 0 ).get() );
+	}
+
+	@Test
+	public void testWrapNonVirtualIsLazy()
+	{
+		final PlanarImg< UnsignedByteType, ByteArray > planes = PlanarImgs.unsignedBytes( 2, 2, 5 );
+		final AtomicInteger loaded = new AtomicInteger();
+		final List< ByteArray > slices = new AbstractList< ByteArray >()
+		{
+			@Override
+			public ByteArray get( final int index )
+			{
+				loaded.incrementAndGet();
+				return planes.getPlane( index );
+			}
+
+			@Override
+			public int size()
+			{
+				return planes.numSlices();
+			}
+		};
+		final PlanarImg< UnsignedByteType, ByteArray > img = new PlanarImg<>( slices, new long[] { 2, 2, 5 }, new Fraction() );
+		img.setLinkedType( new UnsignedByteType( img ) );
+		final PlanarImgStack stack = new PlanarImgStack( img );
+		final int initial = loaded.get();
+		stack.getPixels( 3 );
+		assertEquals( initial + 1, loaded.get() );
+		stack.getImageArray();
+		assertEquals( initial + 5, loaded.get() );
+	}
 }
@@ -0,0 +1,215 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2025 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Gabriel Selzer, Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.imagej.img;
+
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.test.ImgLib2Assert;
+import net.imglib2.test.RandomImgs;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.view.Views;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link PlanePublisher}.
+ */
+public class PlanePublisherTest
+{
+	@Test
+	public void testDeliversPlanesInOrder() throws Exception
+	{
+		final PlanePublisher< Integer > publisher = new PlanePublisher<>( 20, i -> i, 4, new PlaneScheduler( 4, "test" ), PlaneScheduler.Priority.BACKGROUND );
+		final CollectingSubscriber< Integer > subscriber = new CollectingSubscriber<>( 1 );
+		publisher.subscribe( subscriber );
+		assertEquals( IntStream.range( 0, 20 ).boxed().collect( Collectors.toList() ), subscriber.completed.get( 10, TimeUnit.SECONDS ) );
+	}
+
+	@Test
+	public void testLoadsOnlyRequestedPlanes() throws Exception
+	{
+		final AtomicInteger loads = new AtomicInteger();
+		final PlanePublisher< Integer > publisher = new PlanePublisher<>( 20, i -> {
+			loads.incrementAndGet();
+			return i;
+		}, 8, new PlaneScheduler( 4, "test" ), PlaneScheduler.Priority.BACKGROUND );
+		final CountDownLatch received = new CountDownLatch( 3 );
+		publisher.subscribe( new CollectingSubscriber< Integer >( 0 )
+		{
+			@Override
+			public void onSubscribe( final Flow.Subscription subscription )
+			{
+				subscription.request( 3 );
+			}
+
+			@Override
+			public void onNext( final Integer item )
+			{
+				received.countDown();
+			}
+		} );
+		assertTrue( received.await( 10, TimeUnit.SECONDS ) );
+		Thread.sleep( 100 );
+		assertEquals( 3, loads.get() );
+	}
+
+	@Test
+	public void testLookaheadIsBounded() throws Exception
+	{
+		final AtomicInteger loads = new AtomicInteger();
+		final CountDownLatch release = new CountDownLatch( 1 );
+		final PlanePublisher< Integer > publisher = new PlanePublisher<>( 100, i -> {
+			loads.incrementAndGet();
+			return i;
+		}, 5, new PlaneScheduler( 4, "test" ), PlaneScheduler.Priority.BACKGROUND );
+		final CollectingSubscriber< Integer > subscriber = new CollectingSubscriber< Integer >( Long.MAX_VALUE )
+		{
+			@Override
+			public void onNext( final Integer item )
+			{
+				// NB: a slow subscriber, blocked until released
+				try
+				{
+					release.await();
+				}
+				catch ( final InterruptedException e )
+				{
+					throw new RuntimeException( e );
+				}
+				super.onNext( item );
+			}
+		};
+		publisher.subscribe( subscriber );
+		Thread.sleep( 200 );
+		assertTrue( loads.get() <= 1 + 5 );
+		release.countDown();
+		assertEquals( 100, subscriber.completed.get( 10, TimeUnit.SECONDS ).size() );
+	}
+
+	@Test
+	public void testError() throws Exception
+	{
+		final PlanePublisher< Integer > publisher = new PlanePublisher<>( 10, i -> {
+			if ( i == 3 )
+				throw new IllegalStateException();
+			return i;
+		}, 2, new PlaneScheduler( 2, "test" ), PlaneScheduler.Priority.BACKGROUND );
+		final CollectingSubscriber< Integer > subscriber = new CollectingSubscriber<>( 1 );
+		publisher.subscribe( subscriber );
+		final Throwable error = subscriber.failed.get( 10, TimeUnit.SECONDS );
+		assertTrue( error instanceof IllegalStateException );
+		assertEquals( 3, subscriber.items.size() );
+	}
+
+	@Test
+	public void testVirtualStackPlanes() throws Exception
+	{
+		final Img< FloatType > img = RandomImgs.seed( 42 ).nextImage( new FloatType(), 3, 4, 5 );
+		final ImageJVirtualStackFloat stack = ImageJVirtualStackFloat.wrap( img );
+		final CollectingSubscriber< ArrayImg< FloatType, ? > > subscriber = new CollectingSubscriber<>( 2 );
+		stack.planePublisher( 2 ).subscribe( subscriber );
+		final List< ArrayImg< FloatType, ? > > planes = subscriber.completed.get( 10, TimeUnit.SECONDS );
+		assertEquals( 5, planes.size() );
+		for ( int z = 0; z < 5; z++ )
+			ImgLib2Assert.assertImageEquals( Views.hyperSlice( img, 2, z ), planes.get( z ) );
+	}
+
+	/**
+	 * Collects all items, requesting {@code batch} items at a time.
+	 */
+	private static class CollectingSubscriber< T > implements Flow.Subscriber< T >
+	{
+		private final long batch;
+
+		private Flow.Subscription subscription;
+
+		private long remaining;
+
+		final List< T > items = Collections.synchronizedList( new ArrayList<>() );
+
+		final CompletableFuture< List< T > > completed = new CompletableFuture<>();
+
+		final CompletableFuture< Throwable > failed = new CompletableFuture<>();
+
+		CollectingSubscriber( final long batch )
+		{
+			this.batch = batch;
+		}
+
+		@Override
+		public void onSubscribe( final Flow.Subscription subscription )
+		{
+			this.subscription = subscription;
+			remaining = batch;
+			subscription.request( batch );
+		}
+
+		@Override
+		public void onNext( final T item )
+		{
+			items.add( item );
+			if ( --remaining == 0 )
+			{
+				remaining = batch;
+				subscription.request( batch );
+			}
+		}
+
+		@Override
+		public void onError( final Throwable throwable )
+		{
+			failed.complete( throwable );
+			completed.completeExceptionally( throwable );
+		}
+
+		@Override
+		public void onComplete()
+		{
+			completed.complete( new ArrayList<>( items ) );
+		}
+	}
+}
@@ -0,0 +1,162 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2025 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Gabriel Selzer, Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.imagej.img;
+
+import net.imglib2.img.Img;
+import net.imglib2.test.ImgLib2Assert;
+import net.imglib2.test.RandomImgs;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link PlaneScheduler}.
+ */
+public class PlaneSchedulerTest
+{
+	@Test
+	public void testPriorities() throws Exception
+	{
+		final PlaneScheduler scheduler = new PlaneScheduler( 1, "test" );
+		final List< String > order = Collections.synchronizedList( new ArrayList<>() );
+		final CountDownLatch release = block( scheduler );
+		scheduler.submit( null, PlaneScheduler.Priority.BACKGROUND, () -> order.add( "background" ) );
+		scheduler.submit( null, PlaneScheduler.Priority.PREFETCH, () -> order.add( "prefetch" ) );
+		final Future< ? > last = scheduler.submit( null, PlaneScheduler.Priority.VISIBLE, () -> order.add( "visible" ) );
+		release.countDown();
+		last.get();
+		scheduler.submit( null, PlaneScheduler.Priority.BACKGROUND, () -> {} ).get();
+		assertEquals( Arrays.asList( "visible", "prefetch", "background" ), order );
+	}
+
+	@Test
+	public void testFairShare() throws Exception
+	{
+		final PlaneScheduler scheduler = new PlaneScheduler( 1, "test" );
+		final List< String > order = Collections.synchronizedList( new ArrayList<>() );
+		final Object a = new Object();
+		final Object b = new Object();
+		final CountDownLatch release = block( scheduler );
+		scheduler.submit( a, PlaneScheduler.Priority.VISIBLE, () -> order.add( "a" ) );
+		scheduler.submit( a, PlaneScheduler.Priority.VISIBLE, () -> order.add( "a" ) );
+		scheduler.submit( a, PlaneScheduler.Priority.VISIBLE, () -> order.add( "a" ) );
+		final Future< ? > last = scheduler.submit( b, PlaneScheduler.Priority.VISIBLE, () -> order.add( "b" ) );
+		release.countDown();
+		last.get();
+		scheduler.submit( null, PlaneScheduler.Priority.BACKGROUND, () -> {} ).get();
+		assertEquals( Arrays.asList( "a", "b", "a", "a" ), order );
+	}
+
+	@Test
+	public void testStackProjection()
+	{
+		final Img< UnsignedByteType > img = RandomImgs.seed( 42 ).nextImage( new UnsignedByteType(), 100, 100, 3 );
+		final PlaneScheduler scheduler = new PlaneScheduler( 2, "test" );
+		final ImageJVirtualStackUnsignedByte expected = ImageJVirtualStackUnsignedByte.wrap( img );
+		final ImageJVirtualStackUnsignedByte actual = ImageJVirtualStackUnsignedByte.wrap( img );
+		actual.setExecutorService( scheduler.executorService() );
+		assertSame( scheduler, actual.getPlaneScheduler() );
+		for ( int i = 1; i <= 3; i++ )
+			ImgLib2Assert.assertImageEquals( ImageProcessorUtils.createImg( expected.getPixels( i ), 100, 100 ),
+					ImageProcessorUtils.createImg( actual.getPixels( i ), 100, 100 ) );
+	}
+
+	@Test
+	public void testNestedSubmission() throws Exception
+	{
+		final PlaneScheduler scheduler = new PlaneScheduler( 1, "test" );
+		final ExecutorService service = scheduler.executorService();
+		final Future< Integer > result = service.submit( () -> service.submit( () -> 42 ).get() );
+		assertEquals( 42, ( int ) result.get() );
+	}
+
+	@Test
+	public void testCancelPendingExecutorServiceTasks() throws Exception
+	{
+		final PlaneScheduler scheduler = new PlaneScheduler( 1, "test" );
+		try
+		{
+			final Object owner = new Object();
+			final ExecutorService service = scheduler.executorService( owner, PlaneScheduler.Priority.VISIBLE );
+			final CountDownLatch release = block( scheduler );
+			final Future< Integer > future = service.submit( () -> 42 );
+			assertEquals( 1, scheduler.cancelPending( owner ) );
+			release.countDown();
+			assertTrue( future.isCancelled() );
+			service.shutdown();
+			assertTrue( service.awaitTermination( 1, TimeUnit.SECONDS ) );
+		}
+		finally
+		{
+			scheduler.shutdown();
+		}
+	}
+
+	@Test( expected = CancellationException.class )
+	public void testShutdownCancelsPendingTasks() throws Exception
+	{
+		final PlaneScheduler scheduler = new PlaneScheduler( 1, "test" );
+		final CountDownLatch release = block( scheduler );
+		final Future< ? > future = scheduler.submit( null, PlaneScheduler.Priority.BACKGROUND, () -> {} );
+		scheduler.shutdown();
+		release.countDown();
+		future.get();
+	}
+
+	private static CountDownLatch block( final PlaneScheduler scheduler ) throws InterruptedException
+	{
+		final CountDownLatch started = new CountDownLatch( 1 );
+		final CountDownLatch release = new CountDownLatch( 1 );
+		scheduler.submit( null, PlaneScheduler.Priority.VISIBLE, () -> {
+			started.countDown();
+			release.await();
+			return null;
+		} );
+		started.await();
+		return release;
+	}
+}
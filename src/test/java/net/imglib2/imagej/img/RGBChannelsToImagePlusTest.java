@@ -0,0 +1,113 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2025 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Gabriel Selzer, Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.imagej.img;
+
+import ij.ImagePlus;
+import ij.ImageStack;
+import net.imglib2.RandomAccess;
+import net.imglib2.imagej.RAIToImagePlus;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.planar.PlanarImgs;
+import net.imglib2.loops.LoopBuilder;
+import net.imglib2.test.RandomImgs;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.view.Views;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link RGBChannelsToImagePlus}.
+ */
+public class RGBChannelsToImagePlusTest
+{
+	@Test
+	public void testIsSupported()
+	{
+		assertTrue( RGBChannelsToImagePlus.isSupported( PlanarImgs.unsignedBytes( 2, 2, 3 ) ) );
+		assertTrue( RGBChannelsToImagePlus.isSupported( ArrayImgs.unsignedBytes( 2, 2, 4, 2, 2 ) ) );
+		assertFalse( RGBChannelsToImagePlus.isSupported( PlanarImgs.unsignedBytes( 2, 2, 2 ) ) );
+		assertFalse( RGBChannelsToImagePlus.isSupported( PlanarImgs.bytes( 2, 2, 3 ) ) );
+		assertFalse( RGBChannelsToImagePlus.isSupported( PlanarImgs.unsignedBytes( 2, 2 ) ) );
+		assertFalse( RGBChannelsToImagePlus.isSupported( Views.translate( ArrayImgs.unsignedBytes( 2, 2, 3 ), 1, 1, 0 ) ) );
+	}
+
+	@Test
+	public void testSameAsConverter()
+	{
+		testSameAsConverter( RandomImgs.seed( 1 ).nextImage( new UnsignedByteType(), 4, 3, 3, 2, 2 ) );
+		testSameAsConverter( RandomImgs.seed( 2 ).nextImage( new UnsignedByteType(), 4, 3, 4, 5 ) );
+	}
+
+	private void testSameAsConverter( final Img< UnsignedByteType > img )
+	{
+		final Img< UnsignedByteType > planar = PlanarImgs.unsignedBytes( img.dimensionsAsLongArray() );
+		LoopBuilder.setImages( img, planar ).forEachPixel( ( i, o ) -> o.set( i ) );
+		// NB: a view is not supported and uses the generic converter
+		final ImageStack expected = RAIToImagePlus.convertRGB( Views.interval( img, img ), "expected" ).getStack();
+		final ImageStack actual = RAIToImagePlus.convertRGB( planar, "actual" ).getStack();
+		assertTrue( actual instanceof RGBChannelsToImagePlus );
+		assertEquals( expected.getSize(), actual.getSize() );
+		for ( int i = 1; i <= expected.getSize(); i++ )
+			assertArrayEquals( ( int[] ) expected.getPixels( i ), ( int[] ) actual.getPixels( i ) );
+	}
+
+	@Test
+	public void testSetPixels()
+	{
+		final Img< UnsignedByteType > img = ArrayImgs.unsignedBytes( 2, 1, 3, 2 );
+		final ImagePlus imp = RGBChannelsToImagePlus.wrap( img, "test" );
+		assertEquals( 2, imp.getNSlices() );
+		imp.getStack().setPixels( new int[] { 0x010203, 0x040506 }, 2 );
+		final RandomAccess< UnsignedByteType > ra = img.randomAccess();
+		assertEquals( 1, ra.setPositionAndGet( 0, 0, 0, 1 ).get() );
+		assertEquals( 2, ra.setPositionAndGet( 0, 0, 1, 1 ).get() );
+		assertEquals( 6, ra.setPositionAndGet( 1, 0, 2, 1 ).get() );
+		assertEquals( 0, ra.setPositionAndGet( 1, 0, 2, 0 ).get() );
+	}
+
+	@Test
+	public void testSetVoxels()
+	{
+		final Img< UnsignedByteType > img = PlanarImgs.unsignedBytes( 2, 1, 3, 2 );
+		final ImagePlus imp = RGBChannelsToImagePlus.wrap( img, "test" );
+		imp.getStack().setVoxels( 1, 0, 1, 1, 1, 1, new float[] { 7 }, 1 );
+		assertEquals( 7, img.randomAccess().setPositionAndGet( 1, 0, 1, 1 ).get() );
+		assertEquals( 0x000700, ( ( int[] ) imp.getStack().getPixels( 2 ) )[ 1 ] & 0xffffff );
+	}
+}
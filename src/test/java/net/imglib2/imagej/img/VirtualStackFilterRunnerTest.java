@@ -0,0 +1,253 @@
+/*
+ * #%L
+ * ImgLib2: a general-purpose, multidimensional image processing library.
+ * %%
+ * Copyright (C) 2009 - 2025 Tobias Pietzsch, Stephan Preibisch, Stephan Saalfeld,
+ * John Bogovic, Albert Cardona, Barry DeZonia, Christian Dietz, Jan Funke,
+ * Aivar Grislis, Jonathan Hale, Grant Harris, Stefan Helfrich, Mark Hiner,
+ * Martin Horn, Steffen Jaensch, Lee Kamentsky, Larry Lindsey, Melissa Linkert,
+ * Mark Longair, Brian Northan, Nick Perry, Curtis Rueden, Johannes Schindelin,
+ * Gabriel Selzer, Jean-Yves Tinevez and Michael Zinsmaier.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package net.imglib2.imagej.img;
+
+import ij.IJ;
+import ij.ImagePlus;
+import ij.gui.Roi;
+import ij.plugin.filter.PlugInFilter;
+import ij.process.ImageProcessor;
+import net.imglib2.Cursor;
+import net.imglib2.imagej.RAIToImagePlus;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.parallel.Parallelization;
+import net.imglib2.parallel.TaskExecutor;
+import net.imglib2.parallel.TaskExecutors;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.view.Views;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link VirtualStackFilterRunner}.
+ */
+public class VirtualStackFilterRunnerTest
+{
+	@Test
+	public void testRun()
+	{
+		final Img< UnsignedByteType > img = createImage();
+		final ImageJVirtualStackUnsignedByte stack = ImageJVirtualStackUnsignedByte.wrap( img );
+		stack.setWritable( true );
+		VirtualStackFilterRunner.run( stack, new InvertFilter() );
+		assertInverted( img );
+	}
+
+	@Test
+	public void testRunImagePlus()
+	{
+		final Img< UnsignedByteType > img = createImage();
+		final ImagePlus imp = RAIToImagePlus.wrapUnsignedByte( img, "test" );
+		VirtualStackFilterRunner.run( imp, new InvertFilter(), "" );
+		assertInverted( img );
+	}
+
+	@Test
+	public void testMaxInFlight()
+	{
+		final Img< UnsignedByteType > img = createImage();
+		final ImageJVirtualStackUnsignedByte stack = ImageJVirtualStackUnsignedByte.wrap( img );
+		stack.setWritable( true );
+		final AtomicInteger filters = new AtomicInteger();
+		final AtomicInteger inFlight = new AtomicInteger();
+		final AtomicInteger maxInFlight = new AtomicInteger();
+		try (final TaskExecutor executor = TaskExecutors.fixedThreadPool( 8 ))
+		{
+			VirtualStackFilterRunner.run( stack, () -> {
+				filters.incrementAndGet();
+				return new InvertFilter()
+				{
+					@Override
+					public void run( final ImageProcessor ip )
+					{
+						maxInFlight.accumulateAndGet( inFlight.incrementAndGet(), Math::max );
+						super.run( ip );
+						inFlight.decrementAndGet();
+					}
+				};
+			}, executor, 3 );
+		}
+		assertInverted( img );
+		assertTrue( filters.get() <= 3 );
+		assertTrue( maxInFlight.get() <= 3 );
+	}
+
+	@Test
+	public void testRunWithoutParallelizeStacks()
+	{
+		final Img< UnsignedByteType > img = createImage();
+		final ImagePlus imp = RAIToImagePlus.wrapUnsignedByte( img, "test" );
+		final AtomicInteger inFlight = new AtomicInteger();
+		final AtomicInteger maxInFlight = new AtomicInteger();
+		final InvertFilter filter = new InvertFilter( PlugInFilter.DOES_8G | PlugInFilter.DOES_STACKS )
+		{
+			@Override
+			public void run( final ImageProcessor ip )
+			{
+				maxInFlight.accumulateAndGet( inFlight.incrementAndGet(), Math::max );
+				super.run( ip );
+				inFlight.decrementAndGet();
+			}
+		};
+		try (final TaskExecutor executor = TaskExecutors.fixedThreadPool( 8 ))
+		{
+			Parallelization.runWithExecutor( executor, () -> VirtualStackFilterRunner.run( imp, filter, "" ) );
+		}
+		assertInverted( img );
+		assertEquals( 1, maxInFlight.get() );
+	}
+
+	@Test
+	public void testRunWithoutDoesStacks()
+	{
+		final Img< UnsignedByteType > img = createImage();
+		final ImagePlus imp = RAIToImagePlus.wrapUnsignedByte( img, "test" );
+		imp.setSlice( 3 );
+		VirtualStackFilterRunner.run( imp, new InvertFilter( PlugInFilter.DOES_8G ), "" );
+		int i = 0;
+		final Cursor< UnsignedByteType > cursor = Views.flatIterable( img ).cursor();
+		while ( cursor.hasNext() )
+		{
+			final int expected = ( i / 100 == 2 ) ? 255 - i % 256 : i % 256;
+			assertEquals( expected, cursor.next().get() );
+			i++;
+		}
+	}
+
+	@Test
+	public void testRoi()
+	{
+		final Img< UnsignedByteType > img = createImage();
+		final ImagePlus imp = RAIToImagePlus.wrapUnsignedByte( img, "test" );
+		imp.setRoi( new Roi( 2, 3, 4, 5 ) );
+		VirtualStackFilterRunner.run( imp, new PlugInFilter()
+		{
+			@Override
+			public int setup( final String arg, final ImagePlus imp )
+			{
+				return DOES_8G | DOES_STACKS | PARALLELIZE_STACKS;
+			}
+
+			@Override
+			public void run( final ImageProcessor ip )
+			{
+				ip.setValue( 0 );
+				ip.fill();
+			}
+		}, "" );
+		final ImageProcessor processor = imp.getStack().getProcessor( 7 );
+		assertEquals( 0, processor.get( 2, 3 ) );
+		assertEquals( 0, processor.get( 5, 7 ) );
+		assertNotEquals( 0, processor.get( 6, 7 ) );
+		assertNotEquals( 0, processor.get( 5, 8 ) );
+	}
+
+	@Test
+	public void testUnsupportedType()
+	{
+		final Img< UnsignedByteType > img = createImage();
+		final ImagePlus imp = RAIToImagePlus.wrapUnsignedByte( img, "test" );
+		final AtomicInteger runs = new AtomicInteger();
+		IJ.redirectErrorMessages();
+		VirtualStackFilterRunner.run( imp, new InvertFilter( PlugInFilter.DOES_16 | PlugInFilter.DOES_32 | PlugInFilter.DOES_RGB | PlugInFilter.DOES_STACKS )
+		{
+			@Override
+			public void run( final ImageProcessor ip )
+			{
+				runs.incrementAndGet();
+			}
+		}, "" );
+		assertEquals( 0, runs.get() );
+		assertEquals( 99, img.getAt( 9, 9, 0 ).get() );
+	}
+
+	@Test( expected = IllegalArgumentException.class )
+	public void testNotWritable()
+	{
+		final ImageJVirtualStackUnsignedByte stack = ImageJVirtualStackUnsignedByte.wrap( createImage() );
+		VirtualStackFilterRunner.run( stack, new InvertFilter() );
+	}
+
+	private static Img< UnsignedByteType > createImage()
+	{
+		final Img< UnsignedByteType > img = ArrayImgs.unsignedBytes( 10, 10, 20 );
+		int i = 0;
+		for ( final UnsignedByteType pixel : img )
+			pixel.set( i++ % 256 );
+		return img;
+	}
+
+	private static void assertInverted( final Img< UnsignedByteType > img )
+	{
+		int i = 0;
+		final Cursor< UnsignedByteType > cursor = Views.flatIterable( img ).cursor();
+		while ( cursor.hasNext() )
+			assertEquals( 255 - i++ % 256, cursor.next().get() );
+	}
+
+	private static class InvertFilter implements PlugInFilter
+	{
+		private final int flags;
+
+		InvertFilter()
+		{
+			this( DOES_8G | DOES_STACKS | PARALLELIZE_STACKS );
+		}
+
+		InvertFilter( final int flags )
+		{
+			this.flags = flags;
+		}
+
+		@Override
+		public int setup( final String arg, final ImagePlus imp )
+		{
+			return flags;
+		}
+
+		@Override
+		public void run( final ImageProcessor ip )
+		{
+			final byte[] pixels = ( byte[] ) ip.getPixels();
+			for ( int i = 0; i < pixels.length; i++ )
+				pixels[ i ] = ( byte ) ( 255 - ( pixels[ i ] & 0xff ) );
+		}
+	}
+}